@@ -0,0 +1,40 @@
+package org.gym;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+public class AvailableSlot {
+    private final Coach coach;
+    private final LocalDateTime start;
+    private final Duration length;
+
+    public AvailableSlot(Coach coach, LocalDateTime start, Duration length) {
+        this.coach = coach;
+        this.start = start;
+        this.length = length;
+    }
+
+    public Coach getCoach() {
+        return coach;
+    }
+
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    public LocalDateTime getEnd() {
+        return start.plus(length);
+    }
+
+    public Duration getLength() {
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return "AvailableSlot {coach=" + coach.getPhone()
+                + ", start=" + start
+                + ", end=" + getEnd()
+                + '}';
+    }
+}
@@ -0,0 +1,11 @@
+package org.gym;
+
+import java.io.IOException;
+
+interface BinaryCodec<T> {
+    int tag();
+
+    void write(BinaryWriter out, T value) throws IOException;
+
+    T read(BinaryReader in);
+}
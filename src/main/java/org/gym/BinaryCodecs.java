@@ -0,0 +1,208 @@
+package org.gym;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+final class BinaryCodecs {
+    private static final Map<Class<?>, BinaryCodec<?>> CODECS = new HashMap<>();
+
+    static final BinaryCodec<Visit> VISIT = register(Visit.class, new BinaryCodec<>() {
+        @Override
+        public int tag() {
+            return 1;
+        }
+
+        @Override
+        public void write(BinaryWriter out, Visit visit) throws IOException {
+            out.writeDateTime(visit.getDateTime());
+            out.writeString(visit.getVisitorPhone());
+        }
+
+        @Override
+        public Visit read(BinaryReader in) {
+            LocalDateTime dateTime = in.readDateTime();
+            return new Visit(dateTime, in.readString());
+        }
+    });
+
+    static final BinaryCodec<Membership> MEMBERSHIP = register(Membership.class, new BinaryCodec<>() {
+        @Override
+        public int tag() {
+            return 2;
+        }
+
+        @Override
+        public void write(BinaryWriter out, Membership membership) throws IOException {
+            out.writeString(membership.getVisitorPhone());
+            out.writeString(membership.getGymName());
+            out.writeByte(membership.getDuration().ordinal());
+            out.writeDate(membership.getStartDate());
+        }
+
+        @Override
+        public Membership read(BinaryReader in) {
+            String visitorPhone = in.readString();
+            String gymName = in.readString();
+            MembershipDuration duration = MembershipDuration.values()[in.readByte()];
+            return new Membership(visitorPhone, gymName, duration.name(), in.readDate());
+        }
+    });
+
+    static final BinaryCodec<Coach> COACH = register(Coach.class, new BinaryCodec<>() {
+        @Override
+        public int tag() {
+            return 3;
+        }
+
+        @Override
+        public void write(BinaryWriter out, Coach coach) throws IOException {
+            out.writeString(coach.getPhone());
+            out.writeString(coach.getName());
+            out.writeString(coach.getSpecialization());
+            out.writeVarint(coach.getSessions().size());
+            for (TrainingSession session : coach.getSessions()) {
+                out.writeDateTime(session.getStart());
+                out.writeVarint(session.getDuration().getSeconds());
+                out.writeString(session.getVisitorPhone());
+            }
+        }
+
+        @Override
+        public Coach read(BinaryReader in) {
+            Coach coach = new Coach(in.readString(), in.readString(), in.readString());
+            int sessions = in.readCount();
+            for (int i = 0; i < sessions; i++) {
+                LocalDateTime dateTime = in.readDateTime();
+                Duration duration = Duration.ofSeconds(in.readVarint());
+                coach.scheduleSession(dateTime, duration, in.readString());
+            }
+            return coach;
+        }
+    });
+
+    static final BinaryCodec<Visitor> VISITOR = register(Visitor.class, new BinaryCodec<>() {
+        @Override
+        public int tag() {
+            return 4;
+        }
+
+        @Override
+        public void write(BinaryWriter out, Visitor visitor) throws IOException {
+            out.writeString(visitor.getPhone());
+            out.writeString(visitor.getName());
+            out.writeVarint(visitor.getMemberships().size());
+            for (Membership membership : visitor.getMemberships()) {
+                MEMBERSHIP.write(out, membership);
+            }
+            out.writeVarint(visitor.getVisits().size());
+            for (LocalDateTime visit : visitor.getVisits()) {
+                out.writeDateTime(visit);
+            }
+            out.writeVarint(visitor.getBookedSessions().size());
+            for (Map.Entry<String, List<LocalDateTime>> entry : visitor.getBookedSessions().entrySet()) {
+                out.writeString(entry.getKey());
+                out.writeVarint(entry.getValue().size());
+                for (LocalDateTime session : entry.getValue()) {
+                    out.writeDateTime(session);
+                }
+            }
+        }
+
+        @Override
+        public Visitor read(BinaryReader in) {
+            Visitor visitor = new Visitor(in.readString(), in.readString());
+            int memberships = in.readCount();
+            for (int i = 0; i < memberships; i++) {
+                visitor.addMembership(MEMBERSHIP.read(in));
+            }
+            int visits = in.readCount();
+            List<LocalDateTime> dateTimes = new ArrayList<>(visits);
+            for (int i = 0; i < visits; i++) {
+                dateTimes.add(in.readDateTime());
+            }
+            visitor.recordVisits(dateTimes);
+            int coaches = in.readCount();
+            Map<String, List<LocalDateTime>> booked = new HashMap<>();
+            for (int i = 0; i < coaches; i++) {
+                String coachPhone = in.readString();
+                int sessions = in.readCount();
+                List<LocalDateTime> dates = new ArrayList<>(sessions);
+                for (int j = 0; j < sessions; j++) {
+                    dates.add(in.readDateTime());
+                }
+                booked.put(coachPhone, dates);
+            }
+            visitor.setBookedSessions(booked);
+            return visitor;
+        }
+    });
+
+    static final BinaryCodec<Gym> GYM = register(Gym.class, new BinaryCodec<>() {
+        @Override
+        public int tag() {
+            return 5;
+        }
+
+        @Override
+        public void write(BinaryWriter out, Gym gym) throws IOException {
+            out.writeString(gym.getName());
+            out.writeString(gym.getAddress());
+            out.writeVarint(gym.getAllVisitors().size());
+            for (Visitor visitor : gym.getAllVisitors().values()) {
+                out.writeString(visitor.getPhone());
+                out.writeString(visitor.getName());
+            }
+            out.writeVarint(gym.getAllCoaches().size());
+            for (Coach coach : gym.getAllCoaches().values()) {
+                out.writeString(coach.getPhone());
+                out.writeString(coach.getName());
+            }
+            out.writeVarint(gym.getVisitCount());
+            Iterator<Visit> visits = gym.visitIterator();
+            while (visits.hasNext()) {
+                VISIT.write(out, visits.next());
+            }
+        }
+
+        @Override
+        public Gym read(BinaryReader in) {
+            Gym gym = new Gym(in.readString(), in.readString());
+            Map<String, String> visitors = new LinkedHashMap<>();
+            int visitorCount = in.readCount();
+            for (int i = 0; i < visitorCount; i++) {
+                visitors.put(in.readString(), in.readString());
+            }
+            gym.setVisitorsPhonesNames(visitors);
+            Map<String, String> coaches = new LinkedHashMap<>();
+            int coachCount = in.readCount();
+            for (int i = 0; i < coachCount; i++) {
+                coaches.put(in.readString(), in.readString());
+            }
+            gym.setCoachesPhonesNames(coaches);
+            int visitCount = in.readCount();
+            for (int i = 0; i < visitCount; i++) {
+                gym.addVisit(VISIT.read(in));
+            }
+            return gym;
+        }
+    });
+
+    private BinaryCodecs() {
+    }
+
+    private static <T> BinaryCodec<T> register(Class<T> type, BinaryCodec<T> codec) {
+        CODECS.put(type, codec);
+        return codec;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> BinaryCodec<T> forType(Class<T> type) {
+        BinaryCodec<T> codec = (BinaryCodec<T>) CODECS.get(type);
+        if (codec == null) {
+            throw new IllegalArgumentException("No binary format for " + type.getSimpleName());
+        }
+        return codec;
+    }
+}
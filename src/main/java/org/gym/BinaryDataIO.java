@@ -0,0 +1,129 @@
+package org.gym;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Compact binary snapshot format. Layout: header (magic, version, entity tag),
+ * records, string table, then a fixed footer holding the string table offset
+ * and record count. Strings are written once and referenced by varint index;
+ * dates are zigzag varints. Files are read through a memory-mapped channel; a
+ * truncated or corrupt file fails with an {@link IOException} naming it.
+ */
+public class BinaryDataIO<T> implements DataIO<T> {
+    private static final int MAGIC = 0x47594D42;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = Long.BYTES;
+    private static final int FOOTER_SIZE = 2 * Long.BYTES;
+
+    private final BinaryCodec<T> codec;
+
+    public BinaryDataIO(Class<T> type) {
+        this.codec = BinaryCodecs.forType(type);
+    }
+
+    @Override
+    public void exportData(List<T> data, File file, Comparator<T> sorter) throws IOException {
+        data.sort(sorter);
+        exportStream(data.iterator(), file);
+    }
+
+    @Override
+    public void exportData(List<T> data, File file) throws IOException {
+        exportStream(data.iterator(), file);
+    }
+
+    @Override
+    public List<T> importData(File file) throws IOException {
+        List<T> result = new ArrayList<>();
+        importStream(file, result::add);
+        return result;
+    }
+
+    @Override
+    public void exportStream(Iterator<T> data, File file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            BinaryWriter writer = new BinaryWriter(out);
+            writer.writeLong((long) MAGIC << 32 | VERSION << 8 | codec.tag());
+            long count = 0;
+            while (data.hasNext()) {
+                codec.write(writer, data.next());
+                count++;
+            }
+            long tableOffset = writer.position();
+            writer.writeStringTable();
+            writer.writeLong(tableOffset);
+            writer.writeLong(count);
+        }
+    }
+
+    @Override
+    public void importStream(File file, Consumer<T> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE + FOOTER_SIZE) {
+                throw new IOException("Not a binary snapshot: " + file);
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Binary snapshot is too large to map: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            BinaryReader reader = new BinaryReader(buffer);
+
+            long header = reader.readLong();
+            if ((int) (header >>> 32) != MAGIC) {
+                throw new IOException("Not a binary snapshot: " + file);
+            }
+            int version = (int) (header >>> 8) & 0xFFFF;
+            if (version != VERSION) {
+                throw new IOException("Unsupported binary snapshot version " + version + " in " + file);
+            }
+            if ((int) (header & 0xFF) != codec.tag()) {
+                throw new IOException("Binary snapshot " + file + " holds a different entity type");
+            }
+
+            long count;
+            try {
+                reader.position(size - FOOTER_SIZE);
+                long tableOffset = reader.readLong();
+                count = reader.readLong();
+                if (tableOffset < HEADER_SIZE || tableOffset > size - FOOTER_SIZE || count < 0 || count > size) {
+                    throw new IllegalArgumentException("Footer points outside the file");
+                }
+                reader.position(tableOffset);
+                reader.readStringTable();
+                reader.position(HEADER_SIZE);
+            } catch (RuntimeException e) {
+                throw corrupt(file, e);
+            }
+            for (long i = 0; i < count; i++) {
+                T record;
+                try {
+                    record = codec.read(reader);
+                } catch (RuntimeException e) {
+                    throw corrupt(file, e);
+                }
+                consumer.accept(record);
+            }
+        }
+    }
+
+    private static IOException corrupt(File file, RuntimeException e) {
+        if (e instanceof BufferUnderflowException || e instanceof IllegalArgumentException
+                || e instanceof IndexOutOfBoundsException || e instanceof ArithmeticException
+                || e instanceof DateTimeException || e instanceof NegativeArraySizeException) {
+            return new IOException("Corrupt binary snapshot " + file + ": " + e, e);
+        }
+        throw e;
+    }
+}
@@ -0,0 +1,85 @@
+package org.gym;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+class BinaryReader {
+    private final ByteBuffer buffer;
+    private String[] strings = new String[0];
+
+    BinaryReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    int readByte() {
+        return buffer.get() & 0xFF;
+    }
+
+    long readLong() {
+        return buffer.getLong();
+    }
+
+    long readVarint() {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (shift >= Long.SIZE) {
+                throw new IllegalArgumentException("Varint longer than " + Long.SIZE + " bits");
+            }
+            b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    // Every counted item takes at least one byte, so a count cannot exceed what is left.
+    int readCount() {
+        long count = readVarint();
+        if (count < 0 || count > buffer.remaining()) {
+            throw new IllegalArgumentException("Count " + count + " exceeds the " + buffer.remaining()
+                    + " bytes left");
+        }
+        return (int) count;
+    }
+
+    long readSignedVarint() {
+        long value = readVarint();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    String readString() {
+        long id = readVarint();
+        if (id < 0 || id > strings.length) {
+            throw new IllegalArgumentException("String " + id + " is outside the table of " + strings.length);
+        }
+        return id == 0 ? null : strings[(int) id - 1];
+    }
+
+    LocalDate readDate() {
+        return LocalDate.ofEpochDay(readSignedVarint());
+    }
+
+    LocalDateTime readDateTime() {
+        long epochSecond = readSignedVarint();
+        return LocalDateTime.ofEpochSecond(epochSecond, (int) readVarint(), ZoneOffset.UTC);
+    }
+
+    void readStringTable() {
+        String[] table = new String[readCount()];
+        for (int i = 0; i < table.length; i++) {
+            byte[] bytes = new byte[readCount()];
+            buffer.get(bytes);
+            table[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        strings = table;
+    }
+
+    void position(long position) {
+        buffer.position(Math.toIntExact(position));
+    }
+}
@@ -0,0 +1,173 @@
+package org.gym;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Chain-wide identity of visitors. A gym that joins the chain stores the one
+ * canonical {@link Visitor} per phone, so memberships, visits and bookings made
+ * at any club land on the same object. Each visitor has one entry holding the
+ * clubs that list it and when it was last seen at each one. Entries sit in an
+ * array indexed by the {@link PhoneDictionary} id of the phone, so a check-in
+ * finds its entry without locking or boxing; enrolling and leaving are
+ * serialized. Cross-gym queries scan these entries instead of looping over gyms.
+ */
+public class ChainRegistry {
+    private final Object writeLock = new Object();
+    private final PhoneDictionary ids = new PhoneDictionary();
+    private volatile AtomicReferenceArray<Enrollment> members = new AtomicReferenceArray<>(16);
+    private volatile int size;
+
+    public synchronized void join(Gym gym) {
+        ChainRegistry current = gym.getChain();
+        if (current == this) {
+            return;
+        }
+        if (current != null) {
+            throw new IllegalStateException("Gym " + gym.getName() + " already belongs to another chain");
+        }
+        gym.joinChain(this);
+    }
+
+    public void joinAll(Collection<Gym> gyms) {
+        for (Gym gym : gyms) {
+            join(gym);
+        }
+    }
+
+    Visitor enroll(Gym gym, Visitor visitor) {
+        Enrollment enrollment;
+        synchronized (writeLock) {
+            int id = ids.intern(visitor.getPhoneId());
+            AtomicReferenceArray<Enrollment> entries = members;
+            if (id == entries.length()) {
+                AtomicReferenceArray<Enrollment> grown = new AtomicReferenceArray<>(id * 2);
+                for (int i = 0; i < id; i++) {
+                    grown.set(i, entries.get(i));
+                }
+                members = entries = grown;
+            }
+            enrollment = entries.get(id);
+            if (enrollment == null) {
+                enrollment = new Enrollment(visitor);
+                entries.set(id, enrollment);
+                size++;
+            }
+            enrollment.gyms.add(gym.getName());
+        }
+        if (enrollment.visitor != visitor) {
+            enrollment.visitor.absorb(visitor);
+        }
+        return enrollment.visitor;
+    }
+
+    void leave(Gym gym, long visitorId) {
+        synchronized (writeLock) {
+            int id = ids.idOf(visitorId);
+            Enrollment enrollment = id < 0 ? null : members.get(id);
+            if (enrollment == null) {
+                return;
+            }
+            enrollment.gyms.remove(gym.getName());
+            enrollment.lastSeen.remove(gym.getName());
+            if (enrollment.gyms.isEmpty()) {
+                members.set(id, null);
+                size--;
+            }
+        }
+    }
+
+    void seen(long visitorId, String gymName, LocalDateTime dateTime) {
+        Enrollment enrollment = enrollment(visitorId);
+        if (enrollment != null) {
+            enrollment.lastSeen.merge(gymName, dateTime, (a, b) -> a.isAfter(b) ? a : b);
+        }
+    }
+
+    private Enrollment enrollment(long phoneId) {
+        int id = ids.idOf(phoneId);
+        AtomicReferenceArray<Enrollment> entries = members;
+        return id < 0 || id >= entries.length() ? null : entries.get(id);
+    }
+
+    private List<Enrollment> enrollments() {
+        AtomicReferenceArray<Enrollment> entries = members;
+        List<Enrollment> found = new ArrayList<>(size);
+        for (int i = 0; i < entries.length(); i++) {
+            Enrollment enrollment = entries.get(i);
+            if (enrollment != null) {
+                found.add(enrollment);
+            }
+        }
+        return found;
+    }
+
+    public Visitor getVisitor(String phone) {
+        long id = PhoneRegistry.find(phone);
+        Enrollment enrollment = id == PhoneRegistry.NONE ? null : enrollment(id);
+        return enrollment == null ? null : enrollment.visitor;
+    }
+
+    public List<Visitor> getVisitors() {
+        List<Enrollment> enrollments = enrollments();
+        List<Visitor> visitors = new ArrayList<>(enrollments.size());
+        for (Enrollment enrollment : enrollments) {
+            visitors.add(enrollment.visitor);
+        }
+        return visitors;
+    }
+
+    public Set<String> gymsOf(String phone) {
+        long id = PhoneRegistry.find(phone);
+        Enrollment enrollment = id == PhoneRegistry.NONE ? null : enrollment(id);
+        return enrollment == null ? Set.of() : Set.copyOf(enrollment.gyms);
+    }
+
+    public List<Visitor> activeMembers() {
+        List<Visitor> active = new ArrayList<>();
+        for (Enrollment enrollment : enrollments()) {
+            if (enrollment.visitor.hasActiveMembership()) {
+                active.add(enrollment.visitor);
+            }
+        }
+        return active;
+    }
+
+    public List<Visitor> seenAtClubs(int minClubs, LocalDateTime since) {
+        if (minClubs <= 0) {
+            throw new IllegalArgumentException("Number of clubs must be positive");
+        }
+        List<Visitor> found = new ArrayList<>();
+        for (Enrollment enrollment : enrollments()) {
+            if (enrollment.lastSeen.size() < minClubs) {
+                continue;
+            }
+            int clubs = 0;
+            for (LocalDateTime last : enrollment.lastSeen.values()) {
+                if (!last.isBefore(since)) {
+                    clubs++;
+                }
+            }
+            if (clubs >= minClubs) {
+                found.add(enrollment.visitor);
+            }
+        }
+        return found;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static final class Enrollment {
+        final Visitor visitor;
+        final Set<String> gyms = ConcurrentHashMap.newKeySet();
+        final Map<String, LocalDateTime> lastSeen = new ConcurrentHashMap<>();
+
+        Enrollment(Visitor visitor) {
+            this.visitor = visitor;
+        }
+    }
+}
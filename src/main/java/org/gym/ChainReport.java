@@ -0,0 +1,80 @@
+package org.gym;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+public class ChainReport {
+    private final LocalDate asOf;
+    private final LocalDate windowStart;
+    private final Map<MembershipDuration, Long> activeByDuration;
+    private final Map<String, Double> coachUtilization;
+    private final long endedMemberships;
+    private final long churnedMemberships;
+    private final Map<String, Long> churnByGym;
+
+    ChainReport(LocalDate asOf, LocalDate windowStart, Map<MembershipDuration, Long> activeByDuration,
+                Map<String, Double> coachUtilization, long endedMemberships, long churnedMemberships,
+                Map<String, Long> churnByGym) {
+        this.asOf = asOf;
+        this.windowStart = windowStart;
+        this.activeByDuration = activeByDuration;
+        this.coachUtilization = coachUtilization;
+        this.endedMemberships = endedMemberships;
+        this.churnedMemberships = churnedMemberships;
+        this.churnByGym = churnByGym;
+    }
+
+    public LocalDate getAsOf() {
+        return asOf;
+    }
+
+    public LocalDate getWindowStart() {
+        return windowStart;
+    }
+
+    public Map<MembershipDuration, Long> getActiveByDuration() {
+        return activeByDuration;
+    }
+
+    public long getActiveMemberships() {
+        return activeByDuration.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /** Booked share of each coach's bookable hours in the window, keyed by coach phone. */
+    public Map<String, Double> getCoachUtilization() {
+        return coachUtilization;
+    }
+
+    /** Memberships that ended in the window. */
+    public long getEndedMemberships() {
+        return endedMemberships;
+    }
+
+    /** Memberships that ended in the window with no later membership at the same gym. */
+    public long getChurnedMemberships() {
+        return churnedMemberships;
+    }
+
+    public double getChurnRate() {
+        return endedMemberships == 0 ? 0 : (double) churnedMemberships / endedMemberships;
+    }
+
+    public Map<String, Long> getChurnByGym() {
+        return churnByGym;
+    }
+
+    @Override
+    public String toString() {
+        double averageUtilization = coachUtilization.values().stream()
+                .mapToDouble(Double::doubleValue).average().orElse(0);
+        return "ChainReport {asOf=" + asOf
+                + ", window=" + windowStart + ".." + asOf
+                + ", activeByDuration=" + activeByDuration
+                + ", coaches=" + coachUtilization.size()
+                + ", averageCoachUtilization=" + String.format("%.1f%%", averageUtilization * 100)
+                + ", ended=" + endedMemberships
+                + ", churned=" + churnedMemberships
+                + ", churnByGym=" + churnByGym
+                + '}';
+    }
+}
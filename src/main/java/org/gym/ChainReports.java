@@ -0,0 +1,203 @@
+package org.gym;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Chain-wide reports computed with fork-join. Each gym is one task; its visitors
+ * are split further into shards of the member directory and its coaches form a
+ * separate task. Every task returns a partial aggregate and parents merge them.
+ * A membership is counted at the gym it belongs to, so a visitor listed at several
+ * clubs of a chain is never counted twice.
+ */
+public class ChainReports {
+    private static final int SHARD_SIZE = 8192;
+    private static final int DEFAULT_BOOKABLE_HOURS_PER_DAY = 12;
+
+    private final ForkJoinPool pool;
+    private final int bookableHoursPerDay;
+
+    public ChainReports() {
+        this(ForkJoinPool.commonPool(), DEFAULT_BOOKABLE_HOURS_PER_DAY);
+    }
+
+    public ChainReports(ForkJoinPool pool, int bookableHoursPerDay) {
+        if (bookableHoursPerDay <= 0 || bookableHoursPerDay > 24) {
+            throw new IllegalArgumentException("Bookable hours per day must be between 1 and 24");
+        }
+        this.pool = pool;
+        this.bookableHoursPerDay = bookableHoursPerDay;
+    }
+
+    /**
+     * Report as of {@code asOf}: memberships active that day, and coach bookings
+     * and ended memberships in the {@code windowDays} days before it, the
+     * half-open window {@code [asOf - windowDays, asOf)}. A membership ended in
+     * the window when its last active day (the day before its end date) is in it.
+     * A coach listed at several gyms is measured against the bookable hours of
+     * all of them.
+     */
+    public ChainReport generate(Collection<Gym> gyms, LocalDate asOf, int windowDays) {
+        if (windowDays <= 0) {
+            throw new IllegalArgumentException("Window must be at least one day");
+        }
+        LocalDate windowStart = asOf.minusDays(windowDays);
+        Partial total = pool.invoke(new ChainTask(new ArrayList<>(gyms), asOf, windowStart));
+
+        Map<MembershipDuration, Long> activeByDuration = new EnumMap<>(MembershipDuration.class);
+        for (MembershipDuration duration : MembershipDuration.values()) {
+            activeByDuration.put(duration, total.active[duration.ordinal()]);
+        }
+        double bookableMinutes = (double) windowDays * bookableHoursPerDay * 60;
+        Map<String, Double> coachUtilization = new TreeMap<>();
+        total.coachMinutes.forEach((coach, minutes) ->
+                coachUtilization.put(PhoneRegistry.phone(coach),
+                        minutes / (bookableMinutes * total.coachListings.get(coach))));
+        return new ChainReport(asOf, windowStart, activeByDuration, coachUtilization,
+                total.ended, total.churned, new TreeMap<>(total.churnByGym));
+    }
+
+    private static final class Partial {
+        final long[] active = new long[MembershipDuration.values().length];
+        long ended;
+        long churned;
+        final Map<String, Long> churnByGym = new HashMap<>();
+        final Map<Long, Long> coachMinutes = new HashMap<>();
+        final Map<Long, Long> coachListings = new HashMap<>();
+
+        Partial merge(Partial other) {
+            for (int i = 0; i < active.length; i++) {
+                active[i] += other.active[i];
+            }
+            ended += other.ended;
+            churned += other.churned;
+            other.churnByGym.forEach((gym, count) -> churnByGym.merge(gym, count, Long::sum));
+            other.coachMinutes.forEach((coach, minutes) -> coachMinutes.merge(coach, minutes, Long::sum));
+            other.coachListings.forEach((coach, listings) -> coachListings.merge(coach, listings, Long::sum));
+            return this;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class ChainTask extends RecursiveTask<Partial> {
+        private final List<Gym> gyms;
+        private final LocalDate asOf;
+        private final LocalDate windowStart;
+
+        ChainTask(List<Gym> gyms, LocalDate asOf, LocalDate windowStart) {
+            this.gyms = gyms;
+            this.asOf = asOf;
+            this.windowStart = windowStart;
+        }
+
+        @Override
+        protected Partial compute() {
+            List<RecursiveTask<Partial>> tasks = new ArrayList<>();
+            for (Gym gym : gyms) {
+                tasks.add(new VisitorTask(gym.getName(), gym.getAllVisitors().values().spliterator(),
+                        asOf, windowStart));
+                tasks.add(new CoachTask(gym.getAllCoaches().values(), asOf, windowStart));
+            }
+            invokeAll(tasks);
+            Partial total = new Partial();
+            for (RecursiveTask<Partial> task : tasks) {
+                total.merge(task.join());
+            }
+            return total;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class VisitorTask extends RecursiveTask<Partial> {
+        private final String gymName;
+        private final Spliterator<Visitor> shard;
+        private final LocalDate asOf;
+        private final LocalDate windowStart;
+
+        VisitorTask(String gymName, Spliterator<Visitor> shard, LocalDate asOf, LocalDate windowStart) {
+            this.gymName = gymName;
+            this.shard = shard;
+            this.asOf = asOf;
+            this.windowStart = windowStart;
+        }
+
+        @Override
+        protected Partial compute() {
+            Spliterator<Visitor> prefix;
+            if (shard.estimateSize() > SHARD_SIZE && (prefix = shard.trySplit()) != null) {
+                VisitorTask left = new VisitorTask(gymName, prefix, asOf, windowStart);
+                left.fork();
+                Partial right = new VisitorTask(gymName, shard, asOf, windowStart).compute();
+                return right.merge(left.join());
+            }
+            Partial partial = new Partial();
+            shard.forEachRemaining(visitor -> add(partial, visitor));
+            return partial;
+        }
+
+        private void add(Partial partial, Visitor visitor) {
+            synchronized (visitor) {
+                List<Membership> memberships = visitor.getMemberships();
+                for (Membership membership : memberships) {
+                    if (!gymName.equals(membership.getGymName())) {
+                        continue;
+                    }
+                    if (membership.isActiveOn(asOf)) {
+                        partial.active[membership.getDuration().ordinal()]++;
+                    }
+                    LocalDate end = membership.getEndDate();
+                    if (end != null && end.isAfter(windowStart) && !end.isAfter(asOf)) {
+                        partial.ended++;
+                        if (!renewed(memberships, membership)) {
+                            partial.churned++;
+                            partial.churnByGym.merge(gymName, 1L, Long::sum);
+                        }
+                    }
+                }
+            }
+        }
+
+        private static boolean renewed(List<Membership> memberships, Membership ended) {
+            for (Membership other : memberships) {
+                if (other != ended && other.getGymName().equals(ended.getGymName())
+                        && other.getEndDate() != null && other.getEndDate().isAfter(ended.getEndDate())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class CoachTask extends RecursiveTask<Partial> {
+        private final Collection<Coach> coaches;
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+
+        CoachTask(Collection<Coach> coaches, LocalDate asOf, LocalDate windowStart) {
+            this.coaches = coaches;
+            this.from = windowStart.atStartOfDay();
+            this.to = asOf.atStartOfDay();
+        }
+
+        @Override
+        protected Partial compute() {
+            Partial partial = new Partial();
+            for (Coach coach : coaches) {
+                long minutes = 0;
+                for (TrainingSession session : coach.getSessionsBetween(from, to)) {
+                    LocalDateTime start = session.getStart().isBefore(from) ? from : session.getStart();
+                    LocalDateTime end = session.getEnd().isAfter(to) ? to : session.getEnd();
+                    minutes += Math.max(0, Duration.between(start, end).toMinutes());
+                }
+                partial.coachMinutes.merge(coach.getPhoneId(), minutes, Long::sum);
+                partial.coachListings.merge(coach.getPhoneId(), 1L, Long::sum);
+            }
+            return partial;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package org.gym;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide change epoch used for dirty tracking. Mutations stamp the entity
+ * with {@link #current()} after the change is applied; a delta export calls
+ * {@link #advance()} before scanning, so every change is either seen by that
+ * scan or stamped with an epoch at or above the returned watermark.
+ */
+public final class ChangeTracker {
+    private static final AtomicLong epoch = new AtomicLong();
+
+    private ChangeTracker() {
+    }
+
+    public static long current() {
+        return epoch.get();
+    }
+
+    public static long advance() {
+        return epoch.incrementAndGet();
+    }
+}
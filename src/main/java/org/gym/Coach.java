@@ -1,56 +1,150 @@
 package org.gym;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Objects;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
 
 public class Coach {
-    private String phone;
-    private String name;
-    private String specialization;
-    private Map<LocalDateTime, String> trainingSchedule = new HashMap<>();
+    public static final Duration DEFAULT_SESSION_DURATION = Duration.ofHours(1);
+
+    private final long phoneId;
+    private final String phone;
+    private final String name;
+    private final String specialization;
+    @JsonIgnore
+    private final int hash;
+    private NavigableMap<LocalDateTime, TrainingSession> sessions = new ConcurrentSkipListMap<>();
+    @JsonIgnore
+    private volatile long modified = ChangeTracker.current();
 
     @JsonCreator
     public Coach(@JsonProperty("phone") String phone, @JsonProperty("name") String name,
                  @JsonProperty("specialization") String specialization) {
-        this.phone = phone;
+        this.phoneId = PhoneRegistry.intern(phone);
+        this.phone = PhoneRegistry.phone(phoneId);
         this.name = name;
         this.specialization = specialization;
+        this.hash = 31 * Objects.hashCode(name) + Objects.hashCode(specialization);
     }
 
     public void scheduleSession(LocalDateTime dateTime, String visitorPhone) {
-        if (trainingSchedule.containsKey(dateTime)) {
-            throw new IllegalArgumentException("Coach " + name + " is already booked at " + dateTime);
+        scheduleSession(dateTime, DEFAULT_SESSION_DURATION, visitorPhone);
+    }
+
+    public void scheduleSession(LocalDateTime dateTime, Duration duration, String visitorPhone) {
+        scheduleSession(dateTime, duration, PhoneRegistry.intern(visitorPhone));
+    }
+
+    public synchronized void scheduleSession(LocalDateTime dateTime, Duration duration, long visitorId) {
+        TrainingSession session = new TrainingSession(dateTime, duration, visitorId);
+        checkAvailable(dateTime, session.getEnd());
+        sessions.put(dateTime, session);
+        markModified();
+    }
+
+    synchronized void checkAvailable(LocalDateTime from, LocalDateTime to) {
+        if (!isAvailable(from, to)) {
+            throw new IllegalArgumentException("Coach " + name + " is already booked at " + from);
         }
-        trainingSchedule.put(dateTime, visitorPhone);
     }
 
-    public void cancelSession(LocalDateTime dateTime) {
-        if (!trainingSchedule.containsKey(dateTime)) {
+    synchronized boolean hasSession(LocalDateTime dateTime) {
+        return sessions.containsKey(dateTime);
+    }
+
+    public synchronized void cancelSession(LocalDateTime dateTime) {
+        long started = System.nanoTime();
+        if (sessions.remove(dateTime) == null) {
+            Metrics.CANCEL_SESSION.failed();
             throw new IllegalArgumentException("There is no training session at this time.");
         }
-        trainingSchedule.remove(dateTime);
+        markModified();
+        Metrics.CANCEL_SESSION.record(started);
+    }
+
+    public boolean isAvailable(LocalDateTime from, LocalDateTime to) {
+        Map.Entry<LocalDateTime, TrainingSession> before = sessions.lowerEntry(to);
+        return before == null || !before.getValue().getEnd().isAfter(from);
+    }
+
+    public List<TrainingSession> getSessionsBetween(LocalDateTime from, LocalDateTime to) {
+        List<TrainingSession> result = new ArrayList<>();
+        Map.Entry<LocalDateTime, TrainingSession> first = sessions.lowerEntry(from);
+        if (first != null && first.getValue().overlaps(from, to)) {
+            result.add(first.getValue());
+        }
+        result.addAll(sessions.subMap(from, true, to, false).values());
+        return result;
+    }
+
+    public List<LocalDateTime> findFreeSlots(LocalDateTime from, LocalDateTime to, Duration slotLength) {
+        List<LocalDateTime> slots = new ArrayList<>();
+        forEachFreeSlot(from, to, slotLength, slots::add);
+        return slots;
+    }
+
+    void forEachFreeSlot(LocalDateTime from, LocalDateTime to, Duration slotLength,
+                         Consumer<LocalDateTime> action) {
+        long length = slotLength.getSeconds();
+        if (length <= 0) {
+            throw new IllegalArgumentException("Slot length must be at least one second: " + slotLength);
+        }
+        long start = from.toEpochSecond(ZoneOffset.UTC);
+        long end = to.toEpochSecond(ZoneOffset.UTC);
+        long cursor = start;
+        for (TrainingSession session : getSessionsBetween(from, to)) {
+            long busyFrom = session.getStart().toEpochSecond(ZoneOffset.UTC);
+            long busyTo = busyFrom + session.getDuration().getSeconds();
+            for (; cursor + length <= busyFrom; cursor += length) {
+                action.accept(from.plusSeconds(cursor - start));
+            }
+            if (cursor < busyTo) {
+                cursor += (busyTo - cursor + length - 1) / length * length;
+            }
+        }
+        for (; cursor + length <= end; cursor += length) {
+            action.accept(from.plusSeconds(cursor - start));
+        }
     }
 
     public String showSchedule() {
         StringBuilder builder = new StringBuilder("Training schedule for " + name + ":\n");
-        trainingSchedule.entrySet().stream()
-                .sorted(Map.Entry.comparingByKey())
-                .forEach(entry -> builder.append(entry.getKey())
-                        .append(" → visitor=")
-                        .append(entry.getValue())
-                        .append("\n"));
+        for (TrainingSession session : sessions.values()) {
+            builder.append(session.getStart())
+                    .append(" - ")
+                    .append(session.getEnd().toLocalTime())
+                    .append(" → visitor=")
+                    .append(session.getVisitorPhone())
+                    .append("\n");
+        }
         return builder.toString();
     }
 
+    void markModified() {
+        modified = ChangeTracker.current();
+    }
+
+    @JsonIgnore
+    public long getModified() {
+        return modified;
+    }
+
     public String getPhone() {
         return phone;
     }
 
+    @JsonIgnore
+    public long getPhoneId() {
+        return phoneId;
+    }
+
     public String getName() {
         return name;
     }
@@ -59,27 +153,97 @@ public class Coach {
         return specialization;
     }
 
+    public Collection<TrainingSession> getSessions() {
+        return Collections.unmodifiableCollection(sessions.values());
+    }
+
+    @JsonProperty("sessions")
+    public synchronized void setSessions(List<TrainingSession> list) {
+        sessions.clear();
+        for (TrainingSession session : list) {
+            scheduleSession(session.getStart(), session.getDuration(), session.getVisitorId());
+        }
+    }
+
+    @JsonIgnore
     public Map<LocalDateTime, String> getTrainingSchedule() {
-        return trainingSchedule;
+        return new AbstractMap<>() {
+            @Override
+            public String get(Object key) {
+                TrainingSession session = sessions.get(key);
+                return session == null ? null : session.getVisitorPhone();
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return sessions.containsKey(key);
+            }
+
+            @Override
+            public int size() {
+                return sessions.size();
+            }
+
+            @Override
+            public Set<Entry<LocalDateTime, String>> entrySet() {
+                return new AbstractSet<>() {
+                    @Override
+                    public Iterator<Entry<LocalDateTime, String>> iterator() {
+                        Iterator<TrainingSession> iterator = sessions.values().iterator();
+                        return new Iterator<>() {
+                            @Override
+                            public boolean hasNext() {
+                                return iterator.hasNext();
+                            }
+
+                            @Override
+                            public Entry<LocalDateTime, String> next() {
+                                TrainingSession session = iterator.next();
+                                return new SimpleImmutableEntry<>(session.getStart(), session.getVisitorPhone());
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        return sessions.size();
+                    }
+                };
+            }
+        };
+    }
+
+    @JsonProperty("trainingSchedule")
+    public synchronized void setTrainingSchedule(Map<LocalDateTime, String> schedule) {
+        NavigableMap<LocalDateTime, String> sorted = new TreeMap<>(schedule);
+        for (Map.Entry<LocalDateTime, String> entry : sorted.entrySet()) {
+            LocalDateTime next = sorted.higherKey(entry.getKey());
+            Duration duration = DEFAULT_SESSION_DURATION;
+            if (next != null && Duration.between(entry.getKey(), next).compareTo(duration) < 0) {
+                duration = Duration.between(entry.getKey(), next);
+            }
+            scheduleSession(entry.getKey(), duration, entry.getValue());
+        }
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(name, specialization);
+        return hash;
     }
 
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof Coach that)) return false;
-        return this.hashCode() == that.hashCode();
+        return hash == that.hash && Objects.equals(name, that.name)
+                && Objects.equals(specialization, that.specialization);
     }
 
     @Override
     public String toString() {
         return "Coach {name='" + name + '\''
                 + ", specialization='" + specialization + '\''
-                + ", scheduled=" + trainingSchedule.size()
+                + ", scheduled=" + sessions.size()
                 + '}';
     }
 }
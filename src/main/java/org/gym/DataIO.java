@@ -3,10 +3,14 @@ package org.gym;
 import java.io.File;
 import java.io.IOException;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface DataIO<T> {
     void exportData(List<T> data, File file, Comparator<T> sorter) throws IOException;
     void exportData(List<T> data, File file) throws IOException;
     List<T> importData(File file) throws IOException;
+    void exportStream(Iterator<T> data, File file) throws IOException;
+    void importStream(File file, Consumer<T> consumer) throws IOException;
 }
@@ -0,0 +1,101 @@
+package org.gym;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the current day of a clock. By default the clock is read on every call
+ * and the day is recomputed only when midnight has passed; once a refresh timer
+ * is started the clock is not read at all and the day may lag by up to one period.
+ * The current time to the second is built on the cached day, so on a day without
+ * an offset change it costs one clock read and a {@code LocalTime}.
+ */
+public class DayClock {
+    private static final long MILLIS_PER_DAY = 86_400_000;
+
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "day-clock-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Clock clock;
+    private volatile Day current;
+    private volatile ScheduledFuture<?> refreshTask;
+
+    public DayClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    public LocalDate today() {
+        Day day = current;
+        if (day != null && refreshTask != null) {
+            return day.date;
+        }
+        long now = clock.millis();
+        if (day == null || now >= day.rolloverMillis || now < day.startMillis) {
+            day = refresh(now);
+        }
+        return day.date;
+    }
+
+    public LocalDateTime nowToSeconds() {
+        long now = clock.millis();
+        Day day = current;
+        if (day == null || now >= day.rolloverMillis || now < day.startMillis) {
+            day = refresh(now);
+        }
+        if (day.rolloverMillis - day.startMillis != MILLIS_PER_DAY) {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(now), clock.getZone()).truncatedTo(ChronoUnit.SECONDS);
+        }
+        return LocalDateTime.of(day.date, LocalTime.ofSecondOfDay((now - day.startMillis) / 1000));
+    }
+
+    public synchronized void startRefreshing(Duration period) {
+        stopRefreshing();
+        refresh(clock.millis());
+        refreshTask = TIMER.scheduleAtFixedRate(() -> refresh(clock.millis()),
+                period.toMillis(), period.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopRefreshing() {
+        if (refreshTask != null) {
+            refreshTask.cancel(false);
+            refreshTask = null;
+        }
+    }
+
+    public Clock getClock() {
+        return clock;
+    }
+
+    private Day refresh(long now) {
+        LocalDate date = LocalDate.ofInstant(Instant.ofEpochMilli(now), clock.getZone());
+        long start = date.atStartOfDay(clock.getZone()).toInstant().toEpochMilli();
+        long rollover = date.plusDays(1).atStartOfDay(clock.getZone()).toInstant().toEpochMilli();
+        Day day = new Day(date, start, rollover);
+        current = day;
+        return day;
+    }
+
+    private static final class Day {
+        private final LocalDate date;
+        private final long startMillis;
+        private final long rolloverMillis;
+
+        private Day(LocalDate date, long startMillis, long rolloverMillis) {
+            this.date = date;
+            this.startMillis = startMillis;
+            this.rolloverMillis = rolloverMillis;
+        }
+    }
+}
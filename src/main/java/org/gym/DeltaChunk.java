@@ -0,0 +1,93 @@
+package org.gym;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+public class DeltaChunk {
+    public static class GymChanges {
+        private final String name;
+        private final String address;
+        private final List<Visitor> visitors;
+        private final List<String> removedVisitors;
+        private final List<Coach> coaches;
+        private final List<String> removedCoaches;
+        private final List<Visit> visits;
+
+        @JsonCreator
+        public GymChanges(@JsonProperty("name") String name,
+                          @JsonProperty("address") String address,
+                          @JsonProperty("visitors") List<Visitor> visitors,
+                          @JsonProperty("removedVisitors") List<String> removedVisitors,
+                          @JsonProperty("coaches") List<Coach> coaches,
+                          @JsonProperty("removedCoaches") List<String> removedCoaches,
+                          @JsonProperty("visits") List<Visit> visits) {
+            this.name = name;
+            this.address = address;
+            this.visitors = visitors == null ? List.of() : visitors;
+            this.removedVisitors = removedVisitors == null ? List.of() : removedVisitors;
+            this.coaches = coaches == null ? List.of() : coaches;
+            this.removedCoaches = removedCoaches == null ? List.of() : removedCoaches;
+            this.visits = visits == null ? List.of() : visits;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getAddress() {
+            return address;
+        }
+
+        public List<Visitor> getVisitors() {
+            return visitors;
+        }
+
+        public List<String> getRemovedVisitors() {
+            return removedVisitors;
+        }
+
+        public List<Coach> getCoaches() {
+            return coaches;
+        }
+
+        public List<String> getRemovedCoaches() {
+            return removedCoaches;
+        }
+
+        public List<Visit> getVisits() {
+            return visits;
+        }
+    }
+
+    private final long since;
+    private final long until;
+    private final List<GymChanges> gyms;
+
+    @JsonCreator
+    public DeltaChunk(@JsonProperty("since") long since,
+                      @JsonProperty("until") long until,
+                      @JsonProperty("gyms") List<GymChanges> gyms) {
+        this.since = since;
+        this.until = until;
+        this.gyms = gyms == null ? List.of() : gyms;
+    }
+
+    public long getSince() {
+        return since;
+    }
+
+    public long getUntil() {
+        return until;
+    }
+
+    public List<GymChanges> getGyms() {
+        return gyms;
+    }
+
+    @Override
+    public String toString() {
+        return "DeltaChunk {since=" + since + ", until=" + until + ", gyms=" + gyms.size() + '}';
+    }
+}
@@ -0,0 +1,72 @@
+package org.gym;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Writes and applies delta chunks: the gyms, visitors, coaches and removals
+ * changed since a watermark, plus the visits of every day segment touched since
+ * then. Export returns the watermark to pass to the next export; applying chunks
+ * in order on top of the base snapshot reproduces the exported state.
+ */
+public class DeltaExport {
+    private final ObjectMapper mapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    public static long watermark() {
+        return ChangeTracker.advance();
+    }
+
+    public DeltaChunk collect(List<Gym> gyms, long since) {
+        long until = ChangeTracker.advance();
+        List<DeltaChunk.GymChanges> changes = new ArrayList<>();
+        for (Gym gym : gyms) {
+            DeltaChunk.GymChanges gymChanges = gym.changesSince(since);
+            if (gymChanges != null) {
+                changes.add(gymChanges);
+            }
+        }
+        return new DeltaChunk(since, until, changes);
+    }
+
+    public long exportSince(List<Gym> gyms, long since, File file) throws IOException {
+        DeltaChunk chunk = collect(gyms, since);
+        mapper.writeValue(file, chunk);
+        return chunk.getUntil();
+    }
+
+    public DeltaChunk read(File file) throws IOException {
+        return mapper.readValue(file, DeltaChunk.class);
+    }
+
+    public DeltaChunk importInto(File file, List<Gym> gyms) throws IOException {
+        DeltaChunk chunk = read(file);
+        apply(chunk, gyms);
+        return chunk;
+    }
+
+    public void apply(DeltaChunk chunk, List<Gym> gyms) {
+        for (DeltaChunk.GymChanges changes : chunk.getGyms()) {
+            Gym target = null;
+            for (Gym gym : gyms) {
+                if (Objects.equals(gym.getName(), changes.getName())) {
+                    target = gym;
+                    break;
+                }
+            }
+            if (target == null) {
+                target = new Gym(changes.getName(), changes.getAddress());
+                gyms.add(target);
+            }
+            target.applyChanges(changes);
+        }
+    }
+}
@@ -4,77 +4,355 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class Gym {
-    private static final int MAX_VISITORS = 999;
-    private static final int MAX_COACHES = 100;
+    private static final int DEFAULT_EXPECTED_VISITORS = 1024;
+    private static final int DEFAULT_EXPECTED_COACHES = 64;
+    private static final int PARALLEL_SLOT_SEARCH_THRESHOLD = 16;
 
-    private String name;
-    private String address;
+    private final String name;
+    private final String address;
 
     @JsonIgnore
-    private Map<String, Visitor> allVisitors = new HashMap<>();
+    private final int hash;
 
     @JsonIgnore
-    private  Map<String, Coach> allCoaches = new HashMap<>();
+    private final MemberDirectory<Visitor> allVisitors;
 
-    private List<Visit> visitHistory = new ArrayList<>();
+    @JsonIgnore
+    private final MemberDirectory<Coach> allCoaches;
+
+    @JsonIgnore
+    private volatile int visitorLimit = Integer.MAX_VALUE;
+
+    @JsonIgnore
+    private volatile int coachLimit = Integer.MAX_VALUE;
+
+    @JsonIgnore
+    private VisitStore visitHistory = new VisitStore();
+
+    @JsonIgnore
+    private final Map<String, Long> removedVisitors = new ConcurrentHashMap<>();
+
+    @JsonIgnore
+    private final Map<String, Long> removedCoaches = new ConcurrentHashMap<>();
+
+    @JsonIgnore
+    private volatile long modified = ChangeTracker.current();
+
+    @JsonIgnore
+    private volatile ChainRegistry chain;
+
+    @JsonIgnore
+    private final OccupancyStats occupancy = new OccupancyStats();
+
+    @JsonIgnore
+    private volatile VisitLog visitLog;
+
+    @JsonIgnore
+    private int skippedDuplicateVisits;
 
     @JsonCreator
     public Gym(@JsonProperty("name") String name, @JsonProperty("address") String address) {
+        this(name, address, DEFAULT_EXPECTED_VISITORS, DEFAULT_EXPECTED_COACHES);
+    }
+
+    public Gym(String name, String address, int expectedVisitors, int expectedCoaches) {
         this.name = name;
         this.address = address;
+        this.hash = 31 * Objects.hashCode(name) + Objects.hashCode(address);
+        this.allVisitors = new MemberDirectory<>(expectedVisitors, Visitor::getPhoneId, Visitor::getName);
+        this.allCoaches = new MemberDirectory<>(expectedCoaches, Coach::getPhoneId, Coach::getName);
     }
 
     public void addVisit(Visit visit) {
-        if (visitHistory.contains(visit)) {
+        if (!tryAddVisit(visit)) {
             throw new IllegalArgumentException("You cannot add the same visit twice");
         }
-        visitHistory.add(visit);
     }
 
-    public void addVisitor(Visitor visitor) {
-        if (allVisitors.size() >= MAX_VISITORS) {
-            throw new IllegalStateException("Max number of visitors is " + MAX_VISITORS);
+    private boolean tryAddVisit(Visit visit) {
+        if (!visitHistory.add(visit)) {
+            return false;
+        }
+        occupancy.record(visit.getDateTime(), visit.getVisitorId());
+        logVisit(visit.getDateTime(), visit.getVisitorId());
+        ChainRegistry registry = chain;
+        if (registry != null) {
+            registry.seen(visit.getVisitorId(), name, visit.getDateTime());
+        }
+        return true;
+    }
+
+    public VisitBatchResult recordVisits(Collection<Visit> events) {
+        Map<Long, List<Visit>> byVisitor = new HashMap<>();
+        for (Visit event : events) {
+            byVisitor.computeIfAbsent(event.getVisitorId(), k -> new ArrayList<>()).add(event);
+        }
+
+        List<VisitBatchResult.Rejection> rejections = new ArrayList<>();
+        Map<Visitor, List<Visit>> admitted = new LinkedHashMap<>();
+        List<Visit> candidates = new ArrayList<>(events.size());
+        for (Map.Entry<Long, List<Visit>> entry : byVisitor.entrySet()) {
+            Visitor visitor = allVisitors.get(entry.getKey().longValue());
+            if (visitor == null) {
+                for (Visit event : entry.getValue()) {
+                    rejections.add(new VisitBatchResult.Rejection(event, VisitBatchResult.Reason.UNKNOWN_VISITOR));
+                }
+                continue;
+            }
+            List<Visit> valid = new ArrayList<>(entry.getValue().size());
+            for (Visit event : entry.getValue()) {
+                if (visitor.hadActiveMembership(name, event.getDateTime().toLocalDate())) {
+                    valid.add(event);
+                } else {
+                    rejections.add(new VisitBatchResult.Rejection(event, VisitBatchResult.Reason.NO_ACTIVE_MEMBERSHIP));
+                }
+            }
+            if (!valid.isEmpty()) {
+                admitted.put(visitor, valid);
+                candidates.addAll(valid);
+            }
+        }
+
+        boolean[] added = visitHistory.addAll(candidates);
+        int accepted = 0;
+        int position = 0;
+        for (Map.Entry<Visitor, List<Visit>> entry : admitted.entrySet()) {
+            List<LocalDateTime> recorded = new ArrayList<>(entry.getValue().size());
+            boolean sorted = true;
+            for (Visit event : entry.getValue()) {
+                if (!added[position++]) {
+                    rejections.add(new VisitBatchResult.Rejection(event, VisitBatchResult.Reason.DUPLICATE));
+                    continue;
+                }
+                LocalDateTime dateTime = event.getDateTime();
+                if (dateTime.getNano() != 0) {
+                    dateTime = dateTime.truncatedTo(ChronoUnit.SECONDS);
+                }
+                occupancy.record(dateTime, event.getVisitorId());
+                logVisit(dateTime, event.getVisitorId());
+                sorted &= recorded.isEmpty() || !recorded.get(recorded.size() - 1).isAfter(dateTime);
+                recorded.add(dateTime);
+            }
+            if (!sorted) {
+                Collections.sort(recorded);
+            }
+            entry.getKey().recordVisits(recorded);
+            accepted += recorded.size();
+            ChainRegistry registry = chain;
+            if (registry != null && !recorded.isEmpty()) {
+                registry.seen(entry.getKey().getPhoneId(), name, recorded.get(recorded.size() - 1));
+            }
         }
-        if (allVisitors.get(visitor.getPhone()) != null) {
+        return new VisitBatchResult(accepted, rejections);
+    }
+
+    /**
+     * Adds the visitor and returns the instance the gym now holds. In a chain that is the
+     * chain's visitor for the phone, which absorbs {@code visitor} and may not be the same object.
+     */
+    public synchronized Visitor addVisitor(Visitor visitor) {
+        long started = System.nanoTime();
+        try {
+            checkCanAdd(visitor);
+        } catch (RuntimeException e) {
+            Metrics.ADD_VISITOR.failed();
+            throw e;
+        }
+        if (chain != null) {
+            visitor = chain.enroll(this, visitor);
+        }
+        allVisitors.add(visitor);
+        removedVisitors.remove(visitor.getPhone());
+        visitor.markModified();
+        Metrics.ADD_VISITOR.record(started);
+        return visitor;
+    }
+
+    public synchronized void addCoach(Coach coach) {
+        checkCanAdd(coach);
+        allCoaches.add(coach);
+        removedCoaches.remove(coach.getPhone());
+        coach.markModified();
+    }
+
+    void checkCanAdd(Visitor visitor) {
+        if (allVisitors.size() >= visitorLimit) {
+            throw new IllegalStateException("Max number of visitors is " + visitorLimit);
+        }
+        if (allVisitors.get(visitor.getPhoneId()) != null) {
             throw new IllegalArgumentException("Visitor with that phone " + visitor.getPhone() + " already exists");
         }
-        allVisitors.put(visitor.getPhone(), visitor);
     }
 
-    public void addCoach(Coach coach) {
-        if (allCoaches.size() >= MAX_COACHES) {
-            throw new IllegalStateException("Max number of coaches is " + MAX_VISITORS);
+    void checkCanAdd(Coach coach) {
+        if (allCoaches.size() >= coachLimit) {
+            throw new IllegalStateException("Max number of coaches is " + coachLimit);
         }
-        if (allCoaches.get(coach.getPhone()) != null) {
-            throw new IllegalArgumentException("Visitor with that phone " + coach.getPhone() + " already exists");
+        if (allCoaches.get(coach.getPhoneId()) != null) {
+            throw new IllegalArgumentException("Coach with that phone " + coach.getPhone() + " already exists");
         }
-        allCoaches.put(coach.getPhone(), coach);
+    }
+
+    boolean hasVisit(Visit visit) {
+        return visitHistory.contains(visit);
     }
 
     public void removeVisitor(String phone) {
+        phone = PhoneRegistry.canonicalize(phone);
         Visitor removed = allVisitors.remove(phone);
         if (removed == null) {
             throw new IllegalArgumentException("Visitor with that phone " + phone + " not found");
         }
+        ChainRegistry registry = chain;
+        if (registry != null) {
+            registry.leave(this, removed.getPhoneId());
+        }
+        removedVisitors.put(phone, ChangeTracker.current());
     }
 
     public void removeCoach(String phone) {
+        phone = PhoneRegistry.canonicalize(phone);
         Coach removed = allCoaches.remove(phone);
         if (removed == null) {
             throw new IllegalArgumentException("Coach with that phone " + phone + " not found");
         }
+        removedCoaches.put(phone, ChangeTracker.current());
+    }
+
+    public List<AvailableSlot> findAvailableSlots(LocalDateTime from, LocalDateTime to, Duration slotLength,
+                                                  String specialization) {
+        Stream<Coach> coaches = allCoaches.size() >= PARALLEL_SLOT_SEARCH_THRESHOLD
+                ? allCoaches.values().parallelStream()
+                : allCoaches.values().stream();
+        return coaches
+                .filter(c -> specialization == null || specialization.equalsIgnoreCase(c.getSpecialization()))
+                .map(c -> {
+                    List<AvailableSlot> slots = new ArrayList<>();
+                    c.forEachFreeSlot(from, to, slotLength,
+                            start -> slots.add(new AvailableSlot(c, start, slotLength)));
+                    return slots;
+                })
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+    }
+
+    public DeltaChunk.GymChanges changesSince(long watermark) {
+        List<Visitor> visitors = new ArrayList<>();
+        for (Visitor visitor : allVisitors.values()) {
+            if (visitor.getModified() >= watermark) {
+                visitors.add(visitor);
+            }
+        }
+        List<Coach> coaches = new ArrayList<>();
+        for (Coach coach : allCoaches.values()) {
+            if (coach.getModified() >= watermark) {
+                coaches.add(coach);
+            }
+        }
+        List<Visit> visits = new ArrayList<>();
+        visitHistory.forEachChangedSince(watermark, visits::add);
+        List<String> goneVisitors = removedSince(removedVisitors, watermark);
+        List<String> goneCoaches = removedSince(removedCoaches, watermark);
+
+        if (modified < watermark && visitors.isEmpty() && coaches.isEmpty() && visits.isEmpty()
+                && goneVisitors.isEmpty() && goneCoaches.isEmpty()) {
+            return null;
+        }
+        return new DeltaChunk.GymChanges(name, address, visitors, goneVisitors, coaches, goneCoaches, visits);
+    }
+
+    public synchronized void applyChanges(DeltaChunk.GymChanges changes) {
+        for (String phone : changes.getRemovedVisitors()) {
+            Visitor removed = allVisitors.remove(phone);
+            if (removed != null && chain != null) {
+                chain.leave(this, removed.getPhoneId());
+            }
+        }
+        for (String phone : changes.getRemovedCoaches()) {
+            allCoaches.remove(phone);
+        }
+        for (Visitor visitor : changes.getVisitors()) {
+            allVisitors.replace(chain == null ? visitor : chain.enroll(this, visitor));
+        }
+        for (Coach coach : changes.getCoaches()) {
+            allCoaches.replace(coach);
+        }
+        List<Visit> visits = changes.getVisits();
+        boolean[] added = visitHistory.addAll(visits);
+        for (int i = 0; i < added.length; i++) {
+            if (added[i]) {
+                Visit visit = visits.get(i);
+                occupancy.record(visit.getDateTime(), visit.getVisitorId());
+                logVisit(visit.getDateTime(), visit.getVisitorId());
+                if (chain != null) {
+                    chain.seen(visit.getVisitorId(), name, visit.getDateTime());
+                }
+            }
+        }
+    }
+
+    void attachVisitLog(VisitLog log) {
+        visitLog = log;
+    }
+
+    @JsonIgnore
+    public VisitLog getVisitLog() {
+        return visitLog;
+    }
+
+    private void logVisit(LocalDateTime dateTime, long visitorId) {
+        VisitLog log = visitLog;
+        if (log != null) {
+            log.append(name, dateTime, visitorId);
+        }
+    }
+
+    synchronized void joinChain(ChainRegistry registry) {
+        chain = registry;
+        for (Visitor visitor : new ArrayList<>(allVisitors.values())) {
+            Visitor canonical = registry.enroll(this, visitor);
+            if (canonical != visitor) {
+                allVisitors.replace(canonical);
+            }
+        }
+        for (Visit visit : visitHistory) {
+            registry.seen(visit.getVisitorId(), name, visit.getDateTime());
+        }
+    }
+
+    @JsonIgnore
+    public OccupancyStats getOccupancy() {
+        return occupancy;
+    }
+
+    @JsonIgnore
+    public ChainRegistry getChain() {
+        return chain;
+    }
+
+    private static List<String> removedSince(Map<String, Long> removed, long watermark) {
+        List<String> phones = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : removed.entrySet()) {
+            if (entry.getValue() >= watermark) {
+                phones.add(entry.getKey());
+            }
+        }
+        return phones;
     }
 
     @JsonProperty("visitors")
     public Map<String, String> getVisitorsPhonesNames() {
-        Map<String, String> map = new HashMap<>();
-        for (Map.Entry<String, Visitor> entry : allVisitors.entrySet()) {
-            map.put(entry.getKey(), entry.getValue().getName());
-        }
-        return map;
+        return allVisitors.names();
     }
 
     @JsonProperty("visitors")
@@ -83,17 +361,13 @@ public class Gym {
             String phone = entry.getKey();
             String name = entry.getValue();
             Visitor v = new Visitor(phone, name);
-            allVisitors.put(phone, v);
+            allVisitors.replace(v);
         }
     }
 
     @JsonProperty("coaches")
     public Map<String, String> getCoachesPhonesNames() {
-        Map<String, String> map = new HashMap<>();
-        for (Map.Entry<String, Coach> entry : allCoaches.entrySet()) {
-            map.put(entry.getKey(), entry.getValue().getName());
-        }
-        return map;
+        return allCoaches.names();
     }
 
     @JsonProperty("coaches")
@@ -102,10 +376,12 @@ public class Gym {
             String phone = entry.getKey();
             String name = entry.getValue();
             Coach c = new Coach(phone, name, "Unknown");
-            allCoaches.put(phone, c);
+            allCoaches.replace(c);
         }
     }
 
+    // Read-only views keyed by phone; addVisitor/removeVisitor and
+    // addCoach/removeCoach are the only way to change the members.
     public Map<String, Visitor> getAllVisitors() {
         return allVisitors;
     }
@@ -114,8 +390,121 @@ public class Gym {
         return allCoaches;
     }
 
+    public List<Visitor> findVisitorsByNamePrefix(String prefix) {
+        return allVisitors.findByNamePrefix(prefix);
+    }
+
+    public List<Visitor> findVisitorsByPhonePrefix(String prefix) {
+        return allVisitors.findByPhonePrefix(prefix);
+    }
+
+    public List<Visitor> findVisitorsByPhoneSuffix(String suffix) {
+        return allVisitors.findByPhoneSuffix(suffix);
+    }
+
+    public List<Coach> findCoachesByNamePrefix(String prefix) {
+        return allCoaches.findByNamePrefix(prefix);
+    }
+
+    public List<Visitor> searchVisitors(String query, int limit) {
+        return allVisitors.search(query, limit);
+    }
+
+    public List<Coach> searchCoaches(String query, int limit) {
+        return allCoaches.search(query, limit);
+    }
+
+    @JsonIgnore
+    public int getVisitorLimit() {
+        return visitorLimit;
+    }
+
+    public void setVisitorLimit(int visitorLimit) {
+        if (visitorLimit <= 0) {
+            throw new IllegalArgumentException("Visitor limit must be positive");
+        }
+        this.visitorLimit = visitorLimit;
+    }
+
+    @JsonIgnore
+    public int getCoachLimit() {
+        return coachLimit;
+    }
+
+    public void setCoachLimit(int coachLimit) {
+        if (coachLimit <= 0) {
+            throw new IllegalArgumentException("Coach limit must be positive");
+        }
+        this.coachLimit = coachLimit;
+    }
+
+    @JsonProperty("visitHistory")
     public List<Visit> getVisitHistory() {
-        return visitHistory;
+        return visitHistory.toList();
+    }
+
+    // Visits are stored to the second, so older exports may hold several check-ins
+    // of one visitor within a second; they collapse into one and are counted.
+    @JsonProperty("visitHistory")
+    public void setVisitHistory(List<Visit> visits) {
+        visitHistory.clear();
+        occupancy.clear();
+        int skipped = 0;
+        for (Visit visit : visits) {
+            if (!tryAddVisit(visit)) {
+                skipped++;
+            }
+        }
+        skippedDuplicateVisits = skipped;
+    }
+
+    @JsonIgnore
+    public int getSkippedDuplicateVisits() {
+        return skippedDuplicateVisits;
+    }
+
+    public List<Visit> getVisitsBetween(LocalDateTime from, LocalDateTime to) {
+        return visitHistory.between(from, to);
+    }
+
+    public Iterator<Visit> visitIterator() {
+        return visitHistory.iterator();
+    }
+
+    public static Iterator<Visit> visitIterator(Iterable<Gym> gyms) {
+        Iterator<Gym> gymIterator = gyms.iterator();
+        return new Iterator<>() {
+            private Iterator<Visit> current = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext() && gymIterator.hasNext()) {
+                    current = gymIterator.next().visitIterator();
+                }
+                return current.hasNext();
+            }
+
+            @Override
+            public Visit next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+        };
+    }
+
+    public void forEachVisit(Consumer<Visit> action) {
+        visitHistory.forEach(action);
+    }
+
+    public int countVisitsBetween(LocalDateTime from, LocalDateTime to) {
+        return visitHistory.countBetween(from, to);
+    }
+
+    @JsonIgnore
+    public int getVisitCount() {
+        return visitHistory.size();
     }
 
     public String getName() {
@@ -133,14 +522,14 @@ public class Gym {
 
     @Override
     public int hashCode() {
-        return Objects.hash(name, address);
+        return hash;
     }
 
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof Gym that)) return false;
-        return this.hashCode() == that.hashCode();
+        return hash == that.hash && Objects.equals(name, that.name) && Objects.equals(address, that.address);
     }
 
     @Override
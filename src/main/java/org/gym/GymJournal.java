@@ -0,0 +1,881 @@
+package org.gym;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+/**
+ * Validates mutations against the gyms, records each one as a line in an
+ * append-only journal and applies it only once that line is durable, so readers
+ * never see a change that a restart would lose. A background writer fsyncs
+ * queued entries in batches (group commit) and then applies the batch in
+ * sequence order under the exclusive lock; callers validate under the shared
+ * lock, hold no lock while they wait, and return once their change is applied.
+ * An entry that passed validation but conflicts with one still in flight fails
+ * on apply with the usual exception, and replay skips it the same way. After a
+ * failed write or fsync the journal refuses further mutations, because the file
+ * may end in a partial entry. Every {@code snapshotInterval} entries the writer
+ * serializes the state between two batches and archives the journal file at
+ * that sequence; a background task then writes and fsyncs the snapshot, which
+ * replaces the archived journal files it covers. Opening a journal restores the
+ * latest snapshot and replays the archived and current entries recorded after it.
+ * Without a directory mutations are validated and applied in place.
+ */
+public class GymJournal implements AutoCloseable {
+    private static final String JOURNAL_FILE = "journal.log";
+    private static final String ARCHIVE_PREFIX = "journal-";
+    private static final String ARCHIVE_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String TMP_SUFFIX = ".tmp";
+    private static final int MAX_BATCH = 1024;
+
+    private final List<Gym> gyms;
+    private final File directory;
+    private final int snapshotInterval;
+    private final ObjectMapper mapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final ReentrantReadWriteLock state = new ReentrantReadWriteLock();
+    private final Object snapshotLock = new Object();
+
+    private FileChannel channel;
+    private Thread writer;
+    private ExecutorService snapshotter;
+    private long sequence;
+    private int entriesSinceSnapshot;
+    private boolean snapshotScheduled;
+    private volatile IOException failure;
+    // Guarded by snapshotLock.
+    private long writtenSnapshot = -1;
+
+    public GymJournal(List<Gym> gyms) {
+        this(null, gyms, 0);
+    }
+
+    private GymJournal(File directory, List<Gym> gyms, int snapshotInterval) {
+        this.directory = directory;
+        this.gyms = gyms;
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    public static GymJournal open(File directory, List<Gym> gyms, int snapshotInterval) throws IOException {
+        if (snapshotInterval <= 0) {
+            throw new IllegalArgumentException("Snapshot interval must be positive");
+        }
+        GymJournal journal = new GymJournal(directory, gyms, snapshotInterval);
+        journal.recover();
+        journal.channel = journal.openJournal();
+        journal.writer = new Thread(journal::writeLoop, "gym-journal-writer");
+        journal.writer.setDaemon(true);
+        journal.writer.start();
+        journal.snapshotter = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "gym-journal-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        return journal;
+    }
+
+    public Gym createGym(String name, String address) {
+        validate(() -> requireNewGym(name));
+        return commit(entry(JournalEntry.Type.CREATE_GYM, name, null, null, address, null, null, null),
+                () -> addGym(new Gym(name, address)));
+    }
+
+    public Visitor addVisitor(Gym gym, Visitor visitor) {
+        validate(() -> gym.checkCanAdd(visitor));
+        return commit(entry(JournalEntry.Type.ADD_VISITOR, gym.getName(), visitor.getPhone(), visitor.getName(),
+                null, null, null, null), () -> gym.addVisitor(visitor));
+    }
+
+    public void removeVisitor(Gym gym, String phone) {
+        validate(() -> {
+            if (!gym.getAllVisitors().containsKey(PhoneRegistry.canonicalize(phone))) {
+                throw new IllegalArgumentException("Visitor with that phone " + phone + " not found");
+            }
+        });
+        commit(entry(JournalEntry.Type.REMOVE_VISITOR, gym.getName(), phone, null, null, null, null, null),
+                () -> gym.removeVisitor(phone));
+    }
+
+    public void addCoach(Gym gym, Coach coach) {
+        validate(() -> gym.checkCanAdd(coach));
+        commit(entry(JournalEntry.Type.ADD_COACH, gym.getName(), coach.getPhone(), coach.getName(),
+                coach.getSpecialization(), null, null, null), () -> gym.addCoach(coach));
+    }
+
+    public void removeCoach(Gym gym, String phone) {
+        validate(() -> {
+            if (!gym.getAllCoaches().containsKey(PhoneRegistry.canonicalize(phone))) {
+                throw new IllegalArgumentException("Coach with that phone " + phone + " not found");
+            }
+        });
+        commit(entry(JournalEntry.Type.REMOVE_COACH, gym.getName(), phone, null, null, null, null, null),
+                () -> gym.removeCoach(phone));
+    }
+
+    public Membership addMembership(Gym gym, Visitor visitor, String durationLabel, LocalDate startDate) {
+        MembershipDuration duration = MembershipDuration.fromLabel(durationLabel);
+        validate(() -> {
+            if (visitor.getMemberships().contains(
+                    new Membership(visitor.getPhone(), gym.getName(), durationLabel, startDate))) {
+                throw new IllegalArgumentException("This membership already exists.");
+            }
+        });
+        return commit(entry(JournalEntry.Type.ADD_MEMBERSHIP, gym.getName(), visitor.getPhone(), null,
+                duration.name(), null, null, startDate),
+                () -> new Membership(visitor, gym, durationLabel, startDate));
+    }
+
+    public void addVisit(Gym gym, Visit visit) {
+        validate(() -> {
+            if (gym.hasVisit(visit)) {
+                throw new IllegalArgumentException("You cannot add the same visit twice");
+            }
+        });
+        commit(entry(JournalEntry.Type.ADD_VISIT, gym.getName(), visit.getVisitorPhone(), null,
+                null, null, visit.getDateTime(), null), () -> gym.addVisit(visit));
+    }
+
+    /** Journals the whole batch; replay re-derives the same per-event rejections. */
+    public VisitBatchResult recordVisits(Gym gym, Collection<Visit> events) {
+        List<Visit> batch = List.copyOf(events);
+        if (batch.isEmpty()) {
+            return gym.recordVisits(batch);
+        }
+        return commit(number -> new JournalEntry(number, JournalEntry.Type.RECORD_VISITS, gym.getName(),
+                null, null, null, null, null, null, batch), () -> gym.recordVisits(batch));
+    }
+
+    public Visit visitGym(Gym gym, Visitor visitor) {
+        long started = System.nanoTime();
+        Visit visit;
+        try {
+            validate(() -> {
+                if (!visitor.hasActiveMembership(gym.getName())) {
+                    throw new IllegalStateException("Visitor does not have an active membership in this gym.");
+                }
+            });
+            visit = new Visit(visitor);
+            commit(entry(JournalEntry.Type.VISIT_GYM, gym.getName(), visitor.getPhone(), null,
+                    null, null, visit.getDateTime(), null), () -> {
+                gym.addVisit(visit);
+                visitor.recordVisits(List.of(visit.getDateTime()));
+            });
+        } catch (RuntimeException e) {
+            Metrics.VISIT_GYM.failed();
+            throw e;
+        }
+        Metrics.VISIT_GYM.record(started);
+        return visit;
+    }
+
+    public void bookSession(Gym gym, Visitor visitor, Coach coach, LocalDateTime dateTime) {
+        validate(() -> visitor.checkCanBook(coach, dateTime));
+        commit(entry(JournalEntry.Type.BOOK_SESSION, gym.getName(), visitor.getPhone(), null,
+                null, coach.getPhone(), dateTime, null), () -> visitor.bookSession(coach, dateTime));
+    }
+
+    public void removeSession(Gym gym, Visitor visitor, Coach coach, LocalDateTime dateTime) {
+        validate(() -> visitor.checkCanRemoveSession(coach, dateTime));
+        commit(entry(JournalEntry.Type.REMOVE_SESSION, gym.getName(), visitor.getPhone(), null,
+                null, coach.getPhone(), dateTime, null), () -> visitor.removeSession(coach, dateTime));
+    }
+
+    public void cancelSession(Gym gym, Coach coach, LocalDateTime dateTime) {
+        validate(() -> {
+            if (!coach.hasSession(dateTime)) {
+                throw new IllegalArgumentException("There is no training session at this time.");
+            }
+        });
+        commit(entry(JournalEntry.Type.CANCEL_SESSION, gym.getName(), null, null,
+                null, coach.getPhone(), dateTime, null), () -> coach.cancelSession(dateTime));
+    }
+
+    /** Adds the gyms as one entry; a name that is already taken rejects the whole import. */
+    public List<Gym> importGyms(List<Gym> imported) {
+        validate(() -> requireNewGyms(imported));
+        JsonNode payload = directory == null ? null : mapper.valueToTree(imported);
+        commit(number -> new JournalEntry(number, JournalEntry.Type.IMPORT_GYMS, null, null, null, null, null,
+                null, null, null, payload), () -> addGyms(imported));
+        return imported;
+    }
+
+    /**
+     * Adds the visitors to the gym as one entry; any phone that is already taken rejects them all.
+     * Returns the visitors the gym holds, which are the chain's instances for phones it already knows.
+     */
+    public List<Visitor> importVisitors(Gym gym, List<Visitor> imported) {
+        validate(() -> checkNewVisitors(gym, imported));
+        JsonNode payload = directory == null ? null : mapper.valueToTree(imported);
+        return commit(number -> new JournalEntry(number, JournalEntry.Type.IMPORT_VISITORS, gym.getName(), null,
+                null, null, null, null, null, null, payload), () -> addVisitors(gym, imported));
+    }
+
+    /** Adds the coaches to the gym as one entry; any phone that is already taken rejects them all. */
+    public void importCoaches(Gym gym, List<Coach> imported) {
+        validate(() -> checkNewCoaches(gym, imported));
+        JsonNode payload = directory == null ? null : mapper.valueToTree(imported);
+        commit(number -> new JournalEntry(number, JournalEntry.Type.IMPORT_COACHES, gym.getName(), null, null,
+                null, null, null, null, null, payload), () -> addCoaches(gym, imported));
+    }
+
+    /** Adds the visits to the gym as one entry; any visit it already holds rejects them all. */
+    public void importVisits(Gym gym, List<Visit> imported) {
+        validate(() -> checkNewVisits(gym, imported));
+        commit(number -> new JournalEntry(number, JournalEntry.Type.IMPORT_VISITS, gym.getName(), null, null,
+                null, null, null, null, imported), () -> addVisits(gym, imported));
+    }
+
+    public void snapshot() throws IOException {
+        if (directory == null) {
+            return;
+        }
+        CompletableFuture<Object> captured;
+        synchronized (this) {
+            if (failure != null) {
+                throw new IOException("Journal stopped after a failed write", failure);
+            }
+            entriesSinceSnapshot = 0;
+            captured = enqueue(Pending.snapshot(sequence));
+        }
+        writeSnapshot((Snapshot) awaitChecked(captured));
+    }
+
+    // Runs on the writer between batches, when every earlier entry is applied.
+    private Snapshot captureAndArchive(long sequence) throws IOException {
+        Snapshot image;
+        state.readLock().lock();
+        try {
+            image = capture(sequence);
+        } finally {
+            state.readLock().unlock();
+        }
+        archive(sequence);
+        return image;
+    }
+
+    private Snapshot capture(long sequence) throws IOException {
+        Map<String, Visitor> visitors = new LinkedHashMap<>();
+        Map<String, Coach> coaches = new LinkedHashMap<>();
+        for (Gym gym : gyms) {
+            gym.getAllVisitors().values().forEach(v -> visitors.putIfAbsent(v.getPhone(), v));
+            gym.getAllCoaches().values().forEach(c -> coaches.putIfAbsent(c.getPhone(), c));
+        }
+        return new Snapshot(sequence, mapper.writeValueAsBytes(gyms), mapper.writeValueAsBytes(visitors.values()),
+                mapper.writeValueAsBytes(coaches.values()));
+    }
+
+    // Snapshots may finish out of order; an older one never replaces a newer one.
+    private void writeSnapshot(Snapshot image) throws IOException {
+        synchronized (snapshotLock) {
+            if (image.sequence <= writtenSnapshot) {
+                return;
+            }
+            File target = new File(directory, SNAPSHOT_PREFIX + image.sequence);
+            if (!target.exists()) {
+                File tmp = new File(directory, SNAPSHOT_PREFIX + image.sequence + TMP_SUFFIX);
+                deleteRecursively(tmp);
+                if (!tmp.mkdirs()) {
+                    throw new IOException("Cannot create snapshot directory " + tmp);
+                }
+                writeSynced(new File(tmp, "gyms.json"), image.gyms);
+                writeSynced(new File(tmp, "visitors.json"), image.visitors);
+                writeSynced(new File(tmp, "coaches.json"), image.coaches);
+                fsyncDirectory(tmp.toPath());
+                Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                fsyncDirectory(directory.toPath());
+            }
+            writtenSnapshot = image.sequence;
+
+            for (File file : listFiles(directory)) {
+                long snapshotSequence = sequenceIn(file, SNAPSHOT_PREFIX, "");
+                long archiveSequence = sequenceIn(file, ARCHIVE_PREFIX, ARCHIVE_SUFFIX);
+                if ((snapshotSequence >= 0 && snapshotSequence < image.sequence)
+                        || (archiveSequence >= 0 && archiveSequence <= image.sequence)) {
+                    deleteRecursively(file);
+                }
+            }
+        }
+    }
+
+    public synchronized long getSequence() {
+        return sequence;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (writer == null) {
+            return;
+        }
+        snapshotter.shutdown();
+        try {
+            snapshotter.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        CompletableFuture<Object> closed;
+        synchronized (this) {
+            closed = enqueue(Pending.close());
+        }
+        try {
+            awaitChecked(closed);
+        } finally {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            channel.close();
+        }
+    }
+
+    private static LongFunction<JournalEntry> entry(JournalEntry.Type type, String gym, String phone, String name,
+                                                    String detail, String coachPhone, LocalDateTime dateTime,
+                                                    LocalDate startDate) {
+        return number -> new JournalEntry(number, type, gym, phone, name, detail, coachPhone, dateTime, startDate);
+    }
+
+    private void validate(Runnable check) {
+        state.readLock().lock();
+        try {
+            check.run();
+        } finally {
+            state.readLock().unlock();
+        }
+    }
+
+    private void commit(LongFunction<JournalEntry> entryAt, Runnable action) {
+        commit(entryAt, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T commit(LongFunction<JournalEntry> entryAt, Supplier<T> action) {
+        if (directory == null) {
+            T result;
+            state.writeLock().lock();
+            try {
+                result = action.get();
+            } finally {
+                state.writeLock().unlock();
+            }
+            synchronized (this) {
+                sequence++;
+            }
+            return result;
+        }
+        CompletableFuture<Object> applied;
+        synchronized (this) {
+            if (failure != null) {
+                throw new UncheckedIOException("Journal stopped after a failed write", failure);
+            }
+            applied = enqueue(new Pending(line(entryAt.apply(sequence + 1)), action));
+            sequence++;
+            if (++entriesSinceSnapshot >= snapshotInterval && !snapshotScheduled) {
+                snapshotScheduled = true;
+                snapshotter.execute(this::backgroundSnapshot);
+            }
+        }
+        return (T) await(applied);
+    }
+
+    private byte[] line(JournalEntry entry) {
+        try {
+            byte[] json = mapper.writeValueAsBytes(entry);
+            byte[] line = Arrays.copyOf(json, json.length + 1);
+            line[json.length] = '\n';
+            return line;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // A failed snapshot leaves the journal intact; the next interval retries.
+    private void backgroundSnapshot() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Journal snapshot failed: " + e.getMessage());
+        } finally {
+            synchronized (this) {
+                snapshotScheduled = false;
+            }
+        }
+    }
+
+    private CompletableFuture<Object> enqueue(Pending pending) {
+        queue.add(pending);
+        return pending.done;
+    }
+
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>();
+        List<Pending> written = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            boolean closing = false;
+            for (Pending pending : batch) {
+                closing |= pending.close;
+                if (pending.snapshotAt < 0) {
+                    written.add(pending);
+                    continue;
+                }
+                flush(written);
+                if (failure != null) {
+                    pending.done.completeExceptionally(failure);
+                    continue;
+                }
+                try {
+                    pending.done.complete(captureAndArchive(pending.snapshotAt));
+                } catch (IOException | RuntimeException e) {
+                    pending.done.completeExceptionally(e);
+                }
+            }
+            flush(written);
+            batch.clear();
+            if (closing) {
+                return;
+            }
+        }
+    }
+
+    // Writes and fsyncs the entries, then applies them in order; nothing is applied after a failed write.
+    private void flush(List<Pending> written) {
+        if (written.isEmpty()) {
+            return;
+        }
+        if (failure == null) {
+            try {
+                for (Pending pending : written) {
+                    if (pending.line != null) {
+                        ByteBuffer buffer = ByteBuffer.wrap(pending.line);
+                        while (buffer.hasRemaining()) {
+                            channel.write(buffer);
+                        }
+                    }
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                synchronized (this) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            written.forEach(pending -> pending.done.completeExceptionally(failure));
+            written.clear();
+            return;
+        }
+        state.writeLock().lock();
+        try {
+            for (Pending pending : written) {
+                try {
+                    pending.done.complete(pending.action == null ? null : pending.action.get());
+                } catch (RuntimeException e) {
+                    pending.done.completeExceptionally(e);
+                }
+            }
+        } finally {
+            state.writeLock().unlock();
+        }
+        written.clear();
+    }
+
+    // Entries up to the sequence move to an archive file that the next snapshot replaces.
+    private void archive(long sequence) throws IOException {
+        // An empty journal has nothing to archive, and may share its sequence with an earlier archive.
+        if (channel.size() == 0) {
+            return;
+        }
+        channel.close();
+        try {
+            Files.move(new File(directory, JOURNAL_FILE).toPath(),
+                    new File(directory, ARCHIVE_PREFIX + sequence + ARCHIVE_SUFFIX).toPath(),
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            channel = openJournal();
+        }
+        fsyncDirectory(directory.toPath());
+    }
+
+    private FileChannel openJournal() throws IOException {
+        return FileChannel.open(new File(directory, JOURNAL_FILE).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void recover() throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create journal directory " + directory);
+        }
+        File latest = null;
+        long latestSequence = -1;
+        for (File file : listFiles(directory)) {
+            String name = file.getName();
+            if (!name.startsWith(SNAPSHOT_PREFIX)) {
+                continue;
+            }
+            if (name.endsWith(TMP_SUFFIX)) {
+                deleteRecursively(file);
+                continue;
+            }
+            long snapshotSequence = Long.parseLong(name.substring(SNAPSHOT_PREFIX.length()));
+            if (snapshotSequence > latestSequence) {
+                latest = file;
+                latestSequence = snapshotSequence;
+            }
+        }
+        if (latest != null) {
+            new ShardedLoader().load(latest, gyms);
+            sequence = latestSequence;
+        }
+        writtenSnapshot = latestSequence;
+        TreeMap<Long, File> archives = new TreeMap<>();
+        for (File file : listFiles(directory)) {
+            long archiveSequence = sequenceIn(file, ARCHIVE_PREFIX, ARCHIVE_SUFFIX);
+            if (archiveSequence > latestSequence) {
+                archives.put(archiveSequence, file);
+            } else if (archiveSequence >= 0) {
+                deleteRecursively(file);
+            }
+        }
+        for (File archive : archives.values()) {
+            replay(archive);
+        }
+        replay(new File(directory, JOURNAL_FILE));
+    }
+
+    private void replay(File journalFile) throws IOException {
+        if (!journalFile.exists()) {
+            return;
+        }
+        long validLength = 0;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(journalFile))) {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+                JournalEntry entry;
+                try {
+                    entry = mapper.readValue(line.toByteArray(), JournalEntry.class);
+                } catch (IOException e) {
+                    throw new IOException("Corrupt journal entry at offset " + validLength + " in " + journalFile, e);
+                }
+                validLength += line.size() + 1;
+                line.reset();
+                if (entry.getSequence() > sequence) {
+                    try {
+                        apply(entry);
+                    } catch (IllegalArgumentException | IllegalStateException e) {
+                        // Rejected when it was first applied as well.
+                    }
+                    sequence = entry.getSequence();
+                    entriesSinceSnapshot++;
+                }
+            }
+        }
+        // Only an unterminated last line can be a write torn by a crash.
+        if (validLength < journalFile.length()) {
+            try (FileChannel torn = FileChannel.open(journalFile.toPath(), StandardOpenOption.WRITE)) {
+                torn.truncate(validLength);
+            }
+        }
+    }
+
+    private void apply(JournalEntry entry) {
+        if (entry.getType() == JournalEntry.Type.CREATE_GYM) {
+            addGym(new Gym(entry.getGym(), entry.getDetail()));
+            return;
+        }
+        if (entry.getType() == JournalEntry.Type.IMPORT_GYMS) {
+            addGyms(payload(entry, Gym[].class));
+            return;
+        }
+        Gym gym = findGym(entry.getGym());
+        switch (entry.getType()) {
+            case ADD_VISITOR -> gym.addVisitor(new Visitor(entry.getPhone(), entry.getName()));
+            case REMOVE_VISITOR -> gym.removeVisitor(entry.getPhone());
+            case ADD_COACH -> gym.addCoach(new Coach(entry.getPhone(), entry.getName(), entry.getDetail()));
+            case REMOVE_COACH -> gym.removeCoach(entry.getPhone());
+            case ADD_MEMBERSHIP -> new Membership(findVisitor(gym, entry.getPhone()), gym, entry.getDetail(),
+                    entry.getStartDate());
+            case ADD_VISIT -> gym.addVisit(new Visit(entry.getDateTime(), entry.getPhone()));
+            case VISIT_GYM -> {
+                gym.addVisit(new Visit(entry.getDateTime(), entry.getPhone()));
+                findVisitor(gym, entry.getPhone()).recordVisits(List.of(entry.getDateTime()));
+            }
+            case BOOK_SESSION -> findVisitor(gym, entry.getPhone())
+                    .bookSession(findCoach(gym, entry.getCoachPhone()), entry.getDateTime());
+            case REMOVE_SESSION -> findVisitor(gym, entry.getPhone())
+                    .removeSession(findCoach(gym, entry.getCoachPhone()), entry.getDateTime());
+            case CANCEL_SESSION -> findCoach(gym, entry.getCoachPhone()).cancelSession(entry.getDateTime());
+            case RECORD_VISITS -> gym.recordVisits(entry.getVisits());
+            case IMPORT_VISITORS -> addVisitors(gym, payload(entry, Visitor[].class));
+            case IMPORT_COACHES -> addCoaches(gym, payload(entry, Coach[].class));
+            case IMPORT_VISITS -> addVisits(gym, entry.getVisits());
+            default -> throw new IllegalStateException("Unexpected journal entry " + entry);
+        }
+    }
+
+    private Gym addGym(Gym gym) {
+        requireNewGym(gym.getName());
+        gyms.add(gym);
+        return gym;
+    }
+
+    private void addGyms(List<Gym> imported) {
+        requireNewGyms(imported);
+        gyms.addAll(imported);
+    }
+
+    private void requireNewGyms(List<Gym> imported) {
+        Set<String> names = new HashSet<>();
+        for (Gym gym : imported) {
+            requireNewGym(gym.getName());
+            if (!names.add(gym.getName())) {
+                throw new IllegalArgumentException("Gym " + gym.getName() + " appears twice in the import");
+            }
+        }
+    }
+
+    private static List<Visitor> addVisitors(Gym gym, List<Visitor> imported) {
+        checkNewVisitors(gym, imported);
+        List<Visitor> added = new ArrayList<>(imported.size());
+        for (Visitor visitor : imported) {
+            added.add(gym.addVisitor(visitor));
+        }
+        return added;
+    }
+
+    private static void checkNewVisitors(Gym gym, List<Visitor> imported) {
+        Set<Long> phones = new HashSet<>();
+        for (Visitor visitor : imported) {
+            gym.checkCanAdd(visitor);
+            if (!phones.add(visitor.getPhoneId())) {
+                throw new IllegalArgumentException("Visitor " + visitor.getPhone() + " appears twice in the import");
+            }
+        }
+    }
+
+    private static void addCoaches(Gym gym, List<Coach> imported) {
+        checkNewCoaches(gym, imported);
+        imported.forEach(gym::addCoach);
+    }
+
+    private static void checkNewCoaches(Gym gym, List<Coach> imported) {
+        Set<Long> phones = new HashSet<>();
+        for (Coach coach : imported) {
+            gym.checkCanAdd(coach);
+            if (!phones.add(coach.getPhoneId())) {
+                throw new IllegalArgumentException("Coach " + coach.getPhone() + " appears twice in the import");
+            }
+        }
+    }
+
+    private static void addVisits(Gym gym, List<Visit> imported) {
+        checkNewVisits(gym, imported);
+        imported.forEach(gym::addVisit);
+    }
+
+    private static void checkNewVisits(Gym gym, List<Visit> imported) {
+        Set<Visit> seen = new HashSet<>();
+        for (Visit visit : imported) {
+            if (gym.hasVisit(visit) || !seen.add(visit)) {
+                throw new IllegalArgumentException("You cannot add the same visit twice: " + visit);
+            }
+        }
+    }
+
+    private <T> List<T> payload(JournalEntry entry, Class<T[]> type) {
+        try {
+            return List.of(mapper.treeToValue(entry.getPayload(), type));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unreadable payload in journal entry " + entry.getSequence(), e);
+        }
+    }
+
+    private void requireNewGym(String name) {
+        for (Gym gym : gyms) {
+            if (Objects.equals(gym.getName(), name)) {
+                throw new IllegalArgumentException("Gym " + name + " already exists");
+            }
+        }
+    }
+
+    private Gym findGym(String name) {
+        for (Gym gym : gyms) {
+            if (Objects.equals(gym.getName(), name)) {
+                return gym;
+            }
+        }
+        throw new IllegalStateException("Journal refers to unknown gym " + name);
+    }
+
+    private static Visitor findVisitor(Gym gym, String phone) {
+        Visitor visitor = gym.getAllVisitors().get(phone);
+        if (visitor == null) {
+            throw new IllegalStateException("Journal refers to unknown visitor " + phone);
+        }
+        return visitor;
+    }
+
+    private static Coach findCoach(Gym gym, String phone) {
+        Coach coach = gym.getAllCoaches().get(phone);
+        if (coach == null) {
+            throw new IllegalStateException("Journal refers to unknown coach " + phone);
+        }
+        return coach;
+    }
+
+    private static File[] listFiles(File dir) throws IOException {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            throw new IOException("Cannot list directory " + dir);
+        }
+        return files;
+    }
+
+    private static long sequenceIn(File file, String prefix, String suffix) {
+        String name = file.getName();
+        if (!name.startsWith(prefix) || !name.endsWith(suffix)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void writeSynced(File file, byte[] data) throws IOException {
+        try (FileChannel out = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(true);
+        }
+    }
+
+    // Makes created and renamed entries durable. Some platforms (Windows) cannot
+    // open a directory as a channel; there the rename is as durable as it gets.
+    private static void fsyncDirectory(Path dir) throws IOException {
+        FileChannel synced;
+        try {
+            synced = FileChannel.open(dir, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return;
+        }
+        try (synced) {
+            synced.force(true);
+        }
+    }
+
+    private static void deleteRecursively(File file) throws IOException {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        Files.deleteIfExists(file.toPath());
+    }
+
+    private static Object await(CompletableFuture<Object> applied) {
+        try {
+            return awaitChecked(applied);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Object awaitChecked(CompletableFuture<Object> applied) throws IOException {
+        try {
+            return applied.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw e;
+        }
+    }
+
+    private static final class Pending {
+        private final byte[] line;
+        private final Supplier<?> action;
+        private final boolean close;
+        private final long snapshotAt;
+        private final CompletableFuture<Object> done = new CompletableFuture<>();
+
+        private Pending(byte[] line, Supplier<?> action) {
+            this(line, action, false, -1);
+        }
+
+        private Pending(byte[] line, Supplier<?> action, boolean close, long snapshotAt) {
+            this.line = line;
+            this.action = action;
+            this.close = close;
+            this.snapshotAt = snapshotAt;
+        }
+
+        static Pending close() {
+            return new Pending(null, null, true, -1);
+        }
+
+        static Pending snapshot(long sequence) {
+            return new Pending(null, null, false, sequence);
+        }
+    }
+
+    private static final class Snapshot {
+        private final long sequence;
+        private final byte[] gyms;
+        private final byte[] visitors;
+        private final byte[] coaches;
+
+        private Snapshot(long sequence, byte[] gyms, byte[] visitors, byte[] coaches) {
+            this.sequence = sequence;
+            this.gyms = gyms;
+            this.visitors = visitors;
+            this.coaches = coaches;
+        }
+    }
+}
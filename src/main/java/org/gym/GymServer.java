@@ -0,0 +1,297 @@
+package org.gym;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Line-based JSON server over a loopback socket. Every request line is an object
+ * with an {@code op} field and is answered with one line {@code {"ok":true,...}}
+ * or {@code {"ok":false,"error":...}}. Each connection runs on its own task of
+ * the given executor; mutations go through the shared {@link GymJournal}.
+ * Export and import name files relative to a configured data directory; absolute
+ * paths and {@code ..} are refused, and without a data directory both are off.
+ * An import is journaled as one entry and rejected whole if it clashes with an
+ * existing gym name, member phone or visit.
+ */
+public class GymServer implements AutoCloseable {
+    private final GymJournal journal;
+    private final List<Gym> gyms;
+    private final ChainRegistry chain;
+    private final VisitLog visitLog;
+    private final Path dataDirectory;
+    private final ExecutorService executor;
+    private final ObjectMapper mapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final JsonDataIO<Gym> gymIO = new JsonDataIO<>(Gym[].class);
+    private final JsonDataIO<Visitor> visitorIO = new JsonDataIO<>(Visitor[].class);
+    private final JsonDataIO<Coach> coachIO = new JsonDataIO<>(Coach[].class);
+    private final JsonDataIO<Visit> visitIO = new JsonDataIO<>(Visit[].class);
+
+    private ServerSocket serverSocket;
+    private Thread acceptor;
+
+    public GymServer(GymJournal journal, List<Gym> gyms, ExecutorService executor) {
+        this(journal, gyms, new ChainRegistry(), executor);
+    }
+
+    public GymServer(GymJournal journal, List<Gym> gyms, ChainRegistry chain, ExecutorService executor) {
+        this(journal, gyms, chain, null, executor);
+    }
+
+    public GymServer(GymJournal journal, List<Gym> gyms, ChainRegistry chain, VisitLog visitLog,
+                     ExecutorService executor) {
+        this(journal, gyms, chain, visitLog, null, executor);
+    }
+
+    public GymServer(GymJournal journal, List<Gym> gyms, ChainRegistry chain, VisitLog visitLog,
+                     File dataDirectory, ExecutorService executor) {
+        this.journal = journal;
+        this.gyms = gyms;
+        this.chain = chain;
+        this.visitLog = visitLog;
+        this.dataDirectory = dataDirectory == null ? null : dataDirectory.toPath().toAbsolutePath().normalize();
+        this.executor = executor;
+        joinAll();
+    }
+
+    private void joinAll() {
+        chain.joinAll(gyms);
+        if (visitLog != null) {
+            visitLog.attachAll(gyms);
+        }
+    }
+
+    public void start(int port) throws IOException {
+        serverSocket = new ServerSocket(port, 128, InetAddress.getLoopbackAddress());
+        acceptor = new Thread(this::acceptLoop, "gym-server-acceptor");
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public void awaitTermination() throws InterruptedException {
+        acceptor.join();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        executor.shutdownNow();
+        try {
+            acceptor.join();
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                executor.execute(() -> serve(socket));
+            } catch (SocketException e) {
+                return;
+            } catch (IOException e) {
+                System.out.println("Accept failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(
+                     new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                out.write(handle(line));
+                out.write('\n');
+                out.flush();
+            }
+        } catch (IOException e) {
+            // the client went away; nothing left to answer
+        }
+    }
+
+    String handle(String line) {
+        ObjectNode response = mapper.createObjectNode();
+        try {
+            JsonNode request = mapper.readTree(line);
+            Object result = dispatch(request);
+            response.put("ok", true);
+            if (result != null) {
+                response.set("result", mapper.valueToTree(result));
+            }
+        } catch (IOException | RuntimeException e) {
+            response.put("ok", false);
+            response.put("error", String.valueOf(e.getMessage()));
+        }
+        try {
+            return mapper.writeValueAsString(response);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Object dispatch(JsonNode request) throws IOException {
+        String op = text(request, "op");
+        switch (op) {
+            case "createGym" -> {
+                join(journal.createGym(text(request, "gym"), text(request, "address")));
+            }
+            case "addVisitor" -> journal.addVisitor(gym(request),
+                    new Visitor(text(request, "phone"), text(request, "name")));
+            case "addCoach" -> journal.addCoach(gym(request),
+                    new Coach(text(request, "phone"), text(request, "name"), text(request, "specialization")));
+            case "addMembership" -> {
+                Gym gym = gym(request);
+                journal.addMembership(gym, visitor(gym, text(request, "phone")),
+                        text(request, "duration"), TimeSource.today());
+            }
+            case "visit" -> {
+                Gym gym = gym(request);
+                return journal.visitGym(gym, visitor(gym, text(request, "phone"))).getDateTime();
+            }
+            case "recordVisits" -> {
+                Visit[] visits = mapper.treeToValue(request.get("visits"), Visit[].class);
+                if (visits == null) {
+                    throw new IllegalArgumentException("Missing field visits");
+                }
+                return journal.recordVisits(gym(request), Arrays.asList(visits));
+            }
+            case "book" -> {
+                Gym gym = gym(request);
+                journal.bookSession(gym, visitor(gym, text(request, "phone")),
+                        coach(gym, text(request, "coachPhone")), dateTime(request));
+            }
+            case "cancel" -> {
+                Gym gym = gym(request);
+                journal.cancelSession(gym, coach(gym, text(request, "coachPhone")), dateTime(request));
+            }
+            case "export" -> exportData(text(request, "what"), dataFile(text(request, "file")));
+            case "import" -> importData(request, text(request, "what"), dataFile(text(request, "file")));
+            default -> throw new IllegalArgumentException("Unknown operation " + op);
+        }
+        return null;
+    }
+
+    private void exportData(String what, File file) throws IOException {
+        Files.createDirectories(file.toPath().getParent());
+        switch (what) {
+            case "gyms" -> gymIO.exportData(gyms, file);
+            case "visitors" -> visitorIO.exportStream(chain.getVisitors().iterator(), file);
+            case "coaches" -> coachIO.exportStream(gyms.stream()
+                    .flatMap(gym -> gym.getAllCoaches().values().stream()).iterator(), file);
+            case "visits" -> visitIO.exportStream(Gym.visitIterator(gyms), file);
+            default -> throw new IllegalArgumentException("Cannot export " + what);
+        }
+    }
+
+    private void importData(JsonNode request, String what, File file) throws IOException {
+        switch (what) {
+            case "gyms" -> journal.importGyms(gymIO.importData(file)).forEach(this::join);
+            case "visitors" -> journal.importVisitors(gym(request), visitorIO.importData(file));
+            case "coaches" -> journal.importCoaches(gym(request), coachIO.importData(file));
+            case "visits" -> journal.importVisits(gym(request), visitIO.importData(file));
+            default -> throw new IllegalArgumentException("Cannot import " + what);
+        }
+    }
+
+    private void join(Gym gym) {
+        chain.join(gym);
+        if (visitLog != null) {
+            visitLog.attach(gym);
+        }
+    }
+
+    private File dataFile(String name) {
+        if (dataDirectory == null) {
+            throw new IllegalArgumentException("File transfer is disabled: no data directory configured");
+        }
+        Path relative;
+        try {
+            relative = Path.of(name);
+        } catch (InvalidPathException e) {
+            throw new IllegalArgumentException("Invalid file name " + name);
+        }
+        if (relative.isAbsolute() || relative.getRoot() != null) {
+            throw new IllegalArgumentException("File must be relative to the data directory: " + name);
+        }
+        for (Path part : relative) {
+            if (part.toString().equals("..")) {
+                throw new IllegalArgumentException("File must stay inside the data directory: " + name);
+            }
+        }
+        Path resolved = dataDirectory.resolve(relative).normalize();
+        if (!resolved.startsWith(dataDirectory) || resolved.equals(dataDirectory)) {
+            throw new IllegalArgumentException("File must stay inside the data directory: " + name);
+        }
+        return resolved.toFile();
+    }
+
+    private Gym gym(JsonNode request) {
+        String name = text(request, "gym");
+        for (Gym gym : gyms) {
+            if (Objects.equals(gym.getName(), name)) {
+                return gym;
+            }
+        }
+        throw new IllegalArgumentException("Gym " + name + " not found");
+    }
+
+    private static Visitor visitor(Gym gym, String phone) {
+        Visitor visitor = gym.getAllVisitors().get(PhoneRegistry.canonicalize(phone));
+        if (visitor == null) {
+            throw new IllegalArgumentException("Visitor " + phone + " not found");
+        }
+        return visitor;
+    }
+
+    private static Coach coach(Gym gym, String phone) {
+        Coach coach = gym.getAllCoaches().get(PhoneRegistry.canonicalize(phone));
+        if (coach == null) {
+            throw new IllegalArgumentException("Coach " + phone + " not found");
+        }
+        return coach;
+    }
+
+    private static LocalDateTime dateTime(JsonNode request) {
+        return LocalDateTime.parse(text(request, "dateTime"));
+    }
+
+    private static String text(JsonNode request, String field) {
+        JsonNode node = request.get(field);
+        if (node == null || node.isNull()) {
+            throw new IllegalArgumentException("Missing field " + field);
+        }
+        return node.asText();
+    }
+}
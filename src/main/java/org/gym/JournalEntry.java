@@ -0,0 +1,119 @@
+package org.gym;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class JournalEntry {
+    public enum Type {
+        CREATE_GYM, ADD_VISITOR, REMOVE_VISITOR, ADD_COACH, REMOVE_COACH, ADD_MEMBERSHIP,
+        ADD_VISIT, VISIT_GYM, BOOK_SESSION, REMOVE_SESSION, CANCEL_SESSION, RECORD_VISITS,
+        IMPORT_GYMS, IMPORT_VISITORS, IMPORT_COACHES, IMPORT_VISITS
+    }
+
+    private final long sequence;
+    private final Type type;
+    private final String gym;
+    private final String phone;
+    private final String name;
+    private final String detail;
+    private final String coachPhone;
+    private final LocalDateTime dateTime;
+    private final LocalDate startDate;
+    private final List<Visit> visits;
+    private final JsonNode payload;
+
+    public JournalEntry(long sequence, Type type, String gym, String phone, String name, String detail,
+                        String coachPhone, LocalDateTime dateTime, LocalDate startDate) {
+        this(sequence, type, gym, phone, name, detail, coachPhone, dateTime, startDate, null);
+    }
+
+    public JournalEntry(long sequence, Type type, String gym, String phone, String name, String detail,
+                        String coachPhone, LocalDateTime dateTime, LocalDate startDate, List<Visit> visits) {
+        this(sequence, type, gym, phone, name, detail, coachPhone, dateTime, startDate, visits, null);
+    }
+
+    @JsonCreator
+    public JournalEntry(@JsonProperty("sequence") long sequence,
+                        @JsonProperty("type") Type type,
+                        @JsonProperty("gym") String gym,
+                        @JsonProperty("phone") String phone,
+                        @JsonProperty("name") String name,
+                        @JsonProperty("detail") String detail,
+                        @JsonProperty("coachPhone") String coachPhone,
+                        @JsonProperty("dateTime") LocalDateTime dateTime,
+                        @JsonProperty("startDate") LocalDate startDate,
+                        @JsonProperty("visits") List<Visit> visits,
+                        @JsonProperty("payload") JsonNode payload) {
+        this.sequence = sequence;
+        this.type = type;
+        this.gym = gym;
+        this.phone = phone;
+        this.name = name;
+        this.detail = detail;
+        this.coachPhone = coachPhone;
+        this.dateTime = dateTime;
+        this.startDate = startDate;
+        this.visits = visits;
+        this.payload = payload;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getGym() {
+        return gym;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDetail() {
+        return detail;
+    }
+
+    public String getCoachPhone() {
+        return coachPhone;
+    }
+
+    public LocalDateTime getDateTime() {
+        return dateTime;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public List<Visit> getVisits() {
+        return visits;
+    }
+
+    public JsonNode getPayload() {
+        return payload;
+    }
+
+    @Override
+    public String toString() {
+        return "JournalEntry {sequence=" + sequence
+                + ", type=" + type
+                + ", gym='" + gym + '\''
+                + ", phone='" + phone + '\''
+                + '}';
+    }
+}
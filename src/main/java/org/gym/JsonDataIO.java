@@ -1,13 +1,19 @@
 package org.gym;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class JsonDataIO<T> implements DataIO<T> {
     private final ObjectMapper mapper;
@@ -28,17 +34,72 @@ public class JsonDataIO<T> implements DataIO<T> {
     @Override
     public void exportData(List<T> data, File file, Comparator<T> sorter) throws IOException {
         data.sort(sorter);
-        mapper.writeValue(file, data);
+        exportData(data, file);
     }
 
     @Override
     public void exportData(List<T> data, File file) throws IOException {
-        mapper.writeValue(file, data);
+        long started = System.nanoTime();
+        try {
+            mapper.writeValue(file, data);
+        } catch (IOException | RuntimeException e) {
+            Metrics.JSON_EXPORT.failed();
+            throw e;
+        }
+        Metrics.JSON_EXPORT.record(started);
     }
 
     @Override
     public List<T> importData(File file) throws IOException {
-        T[] array = mapper.readValue(file, typeArray);
+        long started = System.nanoTime();
+        T[] array;
+        try {
+            array = mapper.readValue(file, typeArray);
+        } catch (IOException | RuntimeException e) {
+            Metrics.JSON_IMPORT.failed();
+            throw e;
+        }
+        Metrics.JSON_IMPORT.record(started);
         return List.of(array);
     }
+
+    @Override
+    public void exportStream(Iterator<T> data, File file) throws IOException {
+        long started = System.nanoTime();
+        try (SequenceWriter writer = mapper.writerFor(elementType()).writeValuesAsArray(file)) {
+            while (data.hasNext()) {
+                writer.write(data.next());
+            }
+        } catch (IOException | RuntimeException e) {
+            Metrics.JSON_EXPORT.failed();
+            throw e;
+        }
+        Metrics.JSON_EXPORT.record(started);
+    }
+
+    @Override
+    public void importStream(File file, Consumer<T> consumer) throws IOException {
+        long started = System.nanoTime();
+        try (JsonParser parser = mapper.createParser(file)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array in " + file);
+            }
+            if (parser.nextToken() != JsonToken.END_ARRAY) {
+                try (MappingIterator<T> iterator = mapper.readerFor(elementType()).readValues(parser)) {
+                    while (iterator.hasNextValue()) {
+                        consumer.accept(iterator.nextValue());
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            Metrics.JSON_IMPORT.failed();
+            throw e;
+        }
+        Metrics.JSON_IMPORT.record(started);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Class<T> elementType() {
+        return (Class<T>) typeArray.getComponentType();
+    }
 }
@@ -4,20 +4,81 @@ import java.io.File;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
 
 public class Main {
 
     private static final Scanner scanner = new Scanner(System.in);
-    private static final List<Gym> gyms = new ArrayList<>();
+    private static final List<Gym> gyms = new CopyOnWriteArrayList<>();
     private static final JsonDataIO<Gym> gymIO = new JsonDataIO<>(Gym[].class);
     private static final JsonDataIO<Visitor> visitorIO = new JsonDataIO<>(Visitor[].class);
     private static final JsonDataIO<Coach> coachIO = new JsonDataIO<>(Coach[].class);
     private static final JsonDataIO<Visit> visitIO = new JsonDataIO<>(Visit[].class);
     private static final JsonDataIO<Membership> membershipIO = new JsonDataIO<>(Membership[].class);
+    private static final ShardedLoader shardedLoader = new ShardedLoader();
+    private static final int SNAPSHOT_INTERVAL = 10_000;
+    private static final int SEARCH_RESULTS = 20;
+    private static final DeltaExport deltaExport = new DeltaExport();
+    private static final ChainRegistry chain = new ChainRegistry();
+    private static final ChainReports chainReports = new ChainReports();
+    private static final int REPORT_WINDOW_DAYS = 30;
+    private static GymJournal journal = new GymJournal(gyms);
+    private static VisitLog visitLog;
+    private static File serverDataDirectory;
+    private static long deltaWatermark;
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int serverPort = -1;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--serve") && i + 1 < args.length) {
+                serverPort = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--jmx")) {
+                Metrics.registerMBean();
+            } else if (args[i].equals("--visit-log") && i + 1 < args.length) {
+                visitLog = VisitLog.open(new File(args[++i]));
+            } else if (args[i].equals("--data-dir") && i + 1 < args.length) {
+                serverDataDirectory = new File(args[++i]);
+            } else {
+                journal = GymJournal.open(new File(args[i]), gyms, SNAPSHOT_INTERVAL);
+            }
+        }
+        joinAll();
+        deltaWatermark = DeltaExport.watermark();
+        try {
+            if (serverPort >= 0) {
+                serve(serverPort);
+            } else {
+                run();
+            }
+        } finally {
+            journal.close();
+            if (visitLog != null) {
+                visitLog.close();
+            }
+        }
+    }
+
+    private static void joinAll() {
+        chain.joinAll(gyms);
+        if (visitLog != null) {
+            visitLog.attachAll(gyms);
+        }
+    }
+
+    private static void serve(int port) throws IOException, InterruptedException {
+        GymServer server = new GymServer(journal, gyms, chain, visitLog, serverDataDirectory,
+                Executors.newCachedThreadPool());
+        server.start(port);
+        System.out.println("Gym server listening on port " + server.getPort());
+        server.awaitTermination();
+    }
+
+    private static void run() {
         System.out.println("Welcome to the Gym Management Console App!");
 
         while (true) {
@@ -43,6 +104,12 @@ public class Main {
             System.out.println("19. Check Active Membership (Visitor)");
             System.out.println("20. Export to JSON");
             System.out.println("21. Import from JSON");
+            System.out.println("22. Search Members");
+            System.out.println("23. Show Chain Activity");
+            System.out.println("24. Show Occupancy (Gym)");
+            System.out.println("25. Chain Report");
+            System.out.println("26. Show Metrics");
+            System.out.println("27. Query Visit Log");
             System.out.println("0. Exit");
 
             String choice = input("Enter your choice: ");
@@ -69,6 +136,12 @@ public class Main {
                 case "19" -> checkActiveMembership();
                 case "20" -> exportData();
                 case "21" -> importData();
+                case "22" -> searchMembers();
+                case "23" -> showChainActivity();
+                case "24" -> showOccupancy();
+                case "25" -> showChainReport();
+                case "26" -> showMetrics();
+                case "27" -> queryVisitLog();
                 case "0" -> {
                     System.out.println("Goodbye!");
                     return;
@@ -88,6 +161,11 @@ public class Main {
         return value;
     }
 
+    private static String inputPhone(String prompt) {
+        String phone = input(prompt);
+        return phone == null ? null : PhoneRegistry.canonicalize(phone);
+    }
+
     private static LocalDateTime inputDateTime(String prompt) {
         String dateStr = input(prompt);
         if (dateStr == null) return null;
@@ -131,38 +209,46 @@ public class Main {
         String name = input("Gym name: ");
         String address = input("Address: ");
         if (name == null || address == null) return;
-        gyms.add(new Gym(name, address));
+        Gym gym = journal.createGym(name, address);
+        chain.join(gym);
+        if (visitLog != null) {
+            visitLog.attach(gym);
+        }
         System.out.println("Gym created.");
     }
 
     private static void addVisitor() {
         Gym gym = selectGym();
         if (gym == null) return;
-        String phone = input("Visitor phone: ");
+        String phone = inputPhone("Visitor phone: ");
         String name = input("Visitor name: ");
         if (phone == null || name == null) return;
-        gym.addVisitor(new Visitor(phone, name));
-        System.out.println("Visitor added.");
+        Visitor visitor = new Visitor(phone, name);
+        if (journal.addVisitor(gym, visitor) == visitor) {
+            System.out.println("Visitor added.");
+        } else {
+            System.out.println("Visitor added and linked to the existing chain member.");
+        }
     }
 
     private static void addCoach() {
         Gym gym = selectGym();
         if (gym == null) return;
-        String phone = input("Coach phone: ");
+        String phone = inputPhone("Coach phone: ");
         String name = input("Coach name: ");
         String spec = input("Specialization: ");
         if (phone == null || name == null || spec == null) return;
-        gym.addCoach(new Coach(phone, name, spec));
+        journal.addCoach(gym, new Coach(phone, name, spec));
         System.out.println("Coach added.");
     }
 
     private static void removeVisitor() {
         Gym gym = selectGym();
         if (gym == null) return;
-        String phone = input("Visitor phone to remove: ");
+        String phone = inputPhone("Visitor phone to remove: ");
         if (phone == null) return;
         try {
-            gym.removeVisitor(phone);
+            journal.removeVisitor(gym, phone);
             System.out.println("Visitor removed.");
         } catch (Exception e) {
             System.out.println("Error: " + e.getMessage());
@@ -172,10 +258,10 @@ public class Main {
     private static void removeCoach() {
         Gym gym = selectGym();
         if (gym == null) return;
-        String phone = input("Coach phone to remove: ");
+        String phone = inputPhone("Coach phone to remove: ");
         if (phone == null) return;
         try {
-            gym.removeCoach(phone);
+            journal.removeCoach(gym, phone);
             System.out.println("Coach removed.");
         } catch (Exception e) {
             System.out.println("Error: " + e.getMessage());
@@ -185,7 +271,7 @@ public class Main {
     private static void addMembership() {
         Gym gym = selectGym();
         if (gym == null) return;
-        String phone = input("Visitor phone: ");
+        String phone = inputPhone("Visitor phone: ");
         String duration = input("Membership duration (e.g. 1 month): ");
         if (phone == null || duration == null) return;
         Visitor v = gym.getAllVisitors().get(phone);
@@ -193,14 +279,14 @@ public class Main {
             System.out.println("Visitor not found.");
             return;
         }
-        new Membership(v, gym, duration, LocalDate.now());
+        journal.addMembership(gym, v, duration, TimeSource.today());
         System.out.println("Membership added.");
     }
 
     private static void visitGym() {
         Gym gym = selectGym();
         if (gym == null) return;
-        String phone = input("Visitor phone: ");
+        String phone = inputPhone("Visitor phone: ");
         if (phone == null) return;
         Visitor v = gym.getAllVisitors().get(phone);
         if (v == null) {
@@ -208,7 +294,7 @@ public class Main {
             return;
         }
         try {
-            v.visitGym(gym);
+            journal.visitGym(gym, v);
             System.out.println("Visit recorded.");
         } catch (Exception e) {
             System.out.println("Error: " + e.getMessage());
@@ -218,8 +304,8 @@ public class Main {
     private static void bookSession() {
         Gym gym = selectGym();
         if (gym == null) return;
-        String vPhone = input("Visitor phone: ");
-        String cPhone = input("Coach phone: ");
+        String vPhone = inputPhone("Visitor phone: ");
+        String cPhone = inputPhone("Coach phone: ");
         LocalDateTime dt = inputDateTime("Session datetime (e.g. 2025-04-07T15:00): ");
         if (vPhone == null || cPhone == null || dt == null) return;
         Visitor v = gym.getAllVisitors().get(vPhone);
@@ -228,14 +314,14 @@ public class Main {
             System.out.println("Visitor or Coach not found.");
             return;
         }
-        v.bookSession(c, dt);
+        journal.bookSession(gym, v, c, dt);
         System.out.println("Session booked.");
     }
 
     private static void cancelSession() {
         Gym gym = selectGym();
         if (gym == null) return;
-        String cPhone = input("Coach phone: ");
+        String cPhone = inputPhone("Coach phone: ");
         LocalDateTime dt = inputDateTime("Session datetime: ");
         if (cPhone == null || dt == null) return;
         Coach c = gym.getAllCoaches().get(cPhone);
@@ -243,15 +329,15 @@ public class Main {
             System.out.println("Coach not found.");
             return;
         }
-        c.cancelSession(dt);
+        journal.cancelSession(gym, c, dt);
         System.out.println("Session canceled.");
     }
 
     private static void removeSession() {
         Gym gym = selectGym();
         if (gym == null) return;
-        String vPhone = input("Visitor phone: ");
-        String cPhone = input("Coach phone: ");
+        String vPhone = inputPhone("Visitor phone: ");
+        String cPhone = inputPhone("Coach phone: ");
         LocalDateTime dt = inputDateTime("Session datetime: ");
         if (vPhone == null || cPhone == null || dt == null) return;
         Visitor v = gym.getAllVisitors().get(vPhone);
@@ -260,7 +346,7 @@ public class Main {
             System.out.println("Visitor or Coach not found.");
             return;
         }
-        v.removeSession(c, dt);
+        journal.removeSession(gym, v, c, dt);
         System.out.println("Session removed.");
     }
 
@@ -276,16 +362,95 @@ public class Main {
         gym.getAllCoaches().values().forEach(System.out::println);
     }
 
+    private static void searchMembers() {
+        Gym gym = selectGym();
+        if (gym == null) return;
+        String query = input("Name or phone digits: ");
+        if (query == null) return;
+        System.out.println("Visitors:");
+        gym.searchVisitors(query, SEARCH_RESULTS).forEach(System.out::println);
+        System.out.println("Coaches:");
+        gym.searchCoaches(query, SEARCH_RESULTS).forEach(System.out::println);
+    }
+
+    private static void showChainActivity() {
+        int clubs = inputInt("Minimum number of clubs visited this week: ", 1, Math.max(1, gyms.size()));
+        if (clubs == -1) return;
+        System.out.println("Members with an active membership chain-wide: " + chain.activeMembers().size()
+                + " of " + chain.size());
+        System.out.println("Seen at " + clubs + "+ clubs in the last 7 days:");
+        chain.seenAtClubs(clubs, TimeSource.now().minusDays(7)).forEach(System.out::println);
+    }
+
+    private static void showOccupancy() {
+        Gym gym = selectGym();
+        if (gym == null) return;
+        OccupancyStats occupancy = gym.getOccupancy();
+        LocalDateTime now = TimeSource.now();
+        LocalDate today = now.toLocalDate();
+        System.out.println("Check-ins per hour, last 24 hours:");
+        occupancy.hourlyCheckIns(now.minusHours(24), now)
+                .forEach((hour, count) -> System.out.println("- " + hour + ": " + count));
+        System.out.println("Check-ins per day, last 7 days:");
+        occupancy.dailyCheckIns(today.minusDays(6), today.plusDays(1))
+                .forEach((day, count) -> System.out.println("- " + day + ": " + count));
+        OccupancyStats.Peak peak = occupancy.peakHour(now.minusDays(7), now);
+        System.out.println("Peak hour this week: " + (peak == null ? "none" : peak));
+        System.out.printf("Average visits per member this month: %.2f%n",
+                occupancy.averageVisitsPerMember(YearMonth.from(today)));
+    }
+
+    private static void showChainReport() {
+        ChainReport report = chainReports.generate(gyms, TimeSource.today(), REPORT_WINDOW_DAYS);
+        System.out.println("Active memberships by duration: " + report.getActiveByDuration());
+        System.out.println("Coach utilization over the last " + REPORT_WINDOW_DAYS + " days:");
+        report.getCoachUtilization().forEach((coach, share) ->
+                System.out.printf("- %s: %.1f%%%n", coach, share * 100));
+        System.out.printf("Churn: %d of %d ended memberships not renewed (%.1f%%), by gym %s%n",
+                report.getChurnedMemberships(), report.getEndedMemberships(),
+                report.getChurnRate() * 100, report.getChurnByGym());
+    }
+
+    private static void showMetrics() {
+        for (OperationStats stats : Metrics.snapshot()) {
+            System.out.println(stats);
+        }
+        String reset = input("Reset metrics? (y/n): ");
+        if (reset != null && reset.equalsIgnoreCase("y")) {
+            Metrics.reset();
+        }
+    }
+
+    private static void queryVisitLog() {
+        if (visitLog == null) {
+            System.out.println("No visit log. Start with --visit-log <file> to keep one.");
+            return;
+        }
+        LocalDateTime from = inputDateTime("From (e.g. 2025-01-01T00:00): ");
+        if (from == null) return;
+        LocalDateTime to = inputDateTime("To (e.g. 2025-02-01T00:00): ");
+        if (to == null) return;
+        Map<String, Long> byGym = new TreeMap<>();
+        visitLog.forEachBetween(from, to,
+                (second, gymId, visitorId) -> byGym.merge(visitLog.gymName(gymId), 1L, Long::sum));
+        System.out.println("Check-ins by gym: " + byGym);
+        String phone = inputPhone("Visitor phone for their check-ins: ");
+        if (phone == null) return;
+        visitLog.forEachOfVisitor(phone, (second, gymId, visitorId) ->
+                System.out.println("- " + LocalDateTime.ofEpochSecond(second, 0, ZoneOffset.UTC)
+                        + " at " + visitLog.gymName(gymId)));
+    }
+
     private static void showVisitHistory() {
         Gym gym = selectGym();
         if (gym == null) return;
-        gym.getVisitHistory().forEach(System.out::println);
+        gym.forEachVisit(System.out::println);
     }
 
     private static void showCoachSchedule() {
         Gym gym = selectGym();
         if (gym == null) return;
-        String phone = input("Coach phone: ");
+        String phone = inputPhone("Coach phone: ");
         if (phone == null) return;
         Coach c = gym.getAllCoaches().get(phone);
         if (c == null) {
@@ -298,7 +463,7 @@ public class Main {
     private static void showVisitorSessions() {
         Gym gym = selectGym();
         if (gym == null) return;
-        String phone = input("Visitor phone: ");
+        String phone = inputPhone("Visitor phone: ");
         if (phone == null) return;
         Visitor v = gym.getAllVisitors().get(phone);
         if (v == null) {
@@ -311,7 +476,7 @@ public class Main {
     private static void showVisitorVisitHistory() {
         Gym gym = selectGym();
         if (gym == null) return;
-        String phone = input("Visitor phone: ");
+        String phone = inputPhone("Visitor phone: ");
         if (phone == null) return;
         Visitor v = gym.getAllVisitors().get(phone);
         if (v == null) {
@@ -324,7 +489,7 @@ public class Main {
     private static void showActiveMemberships() {
         Gym gym = selectGym();
         if (gym == null) return;
-        String phone = input("Visitor phone: ");
+        String phone = inputPhone("Visitor phone: ");
         if (phone == null) return;
         Visitor v = gym.getAllVisitors().get(phone);
         if (v == null) {
@@ -337,7 +502,7 @@ public class Main {
     private static void checkActiveMembership() {
         Gym gym = selectGym();
         if (gym == null) return;
-        String phone = input("Visitor phone: ");
+        String phone = inputPhone("Visitor phone: ");
         if (phone == null) return;
         Visitor v = gym.getAllVisitors().get(phone);
         if (v == null) {
@@ -353,6 +518,7 @@ public class Main {
         System.out.println("2. Visitors");
         System.out.println("3. Coaches");
         System.out.println("4. Visits");
+        System.out.println("5. Changes since last delta export");
         String choice = input("Enter choice: ");
         if (choice == null) return;
         String fileName = input("Enter file name: ");
@@ -361,27 +527,11 @@ public class Main {
         try {
             switch (choice) {
                 case "1" -> gymIO.exportData(gyms, file);
-                case "2" -> {
-                    List<Visitor> allVisitors = new ArrayList<>();
-                    for (Gym gym : gyms) {
-                        allVisitors.addAll(gym.getAllVisitors().values());
-                    }
-                    visitorIO.exportData(allVisitors, file);
-                }
-                case "3" -> {
-                    List<Coach> allCoaches = new ArrayList<>();
-                    for (Gym gym : gyms) {
-                        allCoaches.addAll(gym.getAllCoaches().values());
-                    }
-                    coachIO.exportData(allCoaches, file);
-                }
-                case "4" -> {
-                    List<Visit> allVisits = new ArrayList<>();
-                    for (Gym gym : gyms) {
-                        allVisits.addAll(gym.getVisitHistory());
-                    }
-                    visitIO.exportData(allVisits, file);
-                }
+                case "2" -> visitorIO.exportStream(chain.getVisitors().iterator(), file);
+                case "3" -> coachIO.exportStream(gyms.stream()
+                        .flatMap(gym -> gym.getAllCoaches().values().stream()).iterator(), file);
+                case "4" -> visitIO.exportStream(Gym.visitIterator(gyms), file);
+                case "5" -> deltaWatermark = deltaExport.exportSince(gyms, deltaWatermark, file);
                 default -> System.out.println("Invalid choice.");
             }
             System.out.println("Export successful.");
@@ -396,6 +546,8 @@ public class Main {
         System.out.println("2. Visitors");
         System.out.println("3. Coaches");
         System.out.println("4. Visits");
+        System.out.println("5. Directory of shards");
+        System.out.println("6. Delta chunk");
         String choice = input("Enter choice: ");
         if (choice == null) return;
         String fileName = input("Enter file name: ");
@@ -404,28 +556,41 @@ public class Main {
         try {
             switch (choice) {
                 case "1" -> {
-                    gyms.addAll(gymIO.importData(file));
+                    List<Gym> imported = gymIO.importData(file);
+                    int skipped = imported.stream().mapToInt(Gym::getSkippedDuplicateVisits).sum();
+                    if (skipped > 0) {
+                        System.out.println("Skipped duplicate visits: " + skipped);
+                    }
+                    gyms.addAll(imported);
                 }
                 case "2" -> {
-                    List<Visitor> vList = visitorIO.importData(file);
-                    for (Visitor v : vList) {
-                        gyms.get(0).addVisitor(v);
+                    Gym gym = gyms.get(0);
+                    int[] linked = new int[1];
+                    visitorIO.importStream(file, visitor -> {
+                        if (gym.addVisitor(visitor) != visitor) {
+                            linked[0]++;
+                        }
+                    });
+                    if (linked[0] > 0) {
+                        System.out.println("Linked to existing chain members: " + linked[0]);
                     }
                 }
-                case "3" -> {
-                    List<Coach> cList = coachIO.importData(file);
-                    for (Coach c : cList) {
-                        gyms.get(0).addCoach(c);
-                    }
+                case "3" -> coachIO.importStream(file, gyms.get(0)::addCoach);
+                case "4" -> visitIO.importStream(file, gyms.get(0)::addVisit);
+                case "5" -> {
+                    ShardedLoader.Result result = shardedLoader.load(file, gyms);
+                    System.out.println("Unassigned visitors: " + result.getUnassignedVisitors().size()
+                            + ", unassigned coaches: " + result.getUnassignedCoaches().size()
+                            + ", duplicate visits: " + result.getDuplicateVisits());
                 }
-                case "4" -> {
-                    List<Visit> vList = visitIO.importData(file);
-                    for (Visit v : vList) {
-                        gyms.get(0).addVisit(v);
-                    }
+                case "6" -> {
+                    DeltaChunk chunk = deltaExport.importInto(file, gyms);
+                    System.out.println("Applied changes for " + chunk.getGyms().size() + " gyms.");
                 }
                 default -> System.out.println("Invalid choice.");
             }
+            joinAll();
+            journal.snapshot();
             System.out.println("Import successful.");
         } catch (IOException | IndexOutOfBoundsException e) {
             System.out.println("Import failed: " + e.getMessage());
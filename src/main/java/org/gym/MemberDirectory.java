@@ -0,0 +1,333 @@
+package org.gym;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Members of a gym keyed by {@link PhoneRegistry} id in an open-addressing table
+ * (linear probing, load factor at most 1/2, tombstones on removal so entries never
+ * move while readers probe). Writers are serialized; readers are lock-free and
+ * weakly consistent. As a {@code Map} it is a read-only view keyed by phone text.
+ * A {@link MemberSearchIndex} kept in step with every write answers name and phone
+ * typeahead queries.
+ */
+public class MemberDirectory<V> extends AbstractMap<String, V> {
+    private static final Object TOMBSTONE = new Object();
+    private static final int MIN_CAPACITY = 16;
+
+    private final ToLongFunction<V> phoneId;
+    private final Function<V, String> name;
+    private final MemberSearchIndex<V> index;
+
+    private volatile AtomicReferenceArray<Object> table;
+    private volatile int size;
+    private int used;
+
+    public MemberDirectory(int expectedSize, ToLongFunction<V> phoneId, Function<V, String> name) {
+        this.phoneId = phoneId;
+        this.name = name;
+        this.index = new MemberSearchIndex<>(name);
+        this.table = new AtomicReferenceArray<>(capacityFor(expectedSize));
+    }
+
+    public V get(long id) {
+        AtomicReferenceArray<Object> slots = table;
+        int mask = slots.length() - 1;
+        for (int i = mix(id) & mask; ; i = (i + 1) & mask) {
+            Object slot = slots.get(i);
+            if (slot == null) {
+                return null;
+            }
+            if (slot != TOMBSTONE && ((Slot<?>) slot).id == id) {
+                return MemberDirectory.<V>cast(slot).value;
+            }
+        }
+    }
+
+    @Override
+    public V get(Object phone) {
+        if (!(phone instanceof String text)) {
+            return null;
+        }
+        long id = PhoneRegistry.find(text);
+        return id == PhoneRegistry.NONE ? null : get(id);
+    }
+
+    @Override
+    public boolean containsKey(Object phone) {
+        return get(phone) != null;
+    }
+
+    public synchronized boolean add(V member) {
+        long id = phoneId.applyAsLong(member);
+        if (get(id) != null) {
+            return false;
+        }
+        insert(id, member);
+        return true;
+    }
+
+    public synchronized V replace(V member) {
+        long id = phoneId.applyAsLong(member);
+        AtomicReferenceArray<Object> slots = table;
+        int mask = slots.length() - 1;
+        for (int i = mix(id) & mask; ; i = (i + 1) & mask) {
+            Object slot = slots.get(i);
+            if (slot == null) {
+                insert(id, member);
+                return null;
+            }
+            if (slot != TOMBSTONE && ((Slot<?>) slot).id == id) {
+                V previous = MemberDirectory.<V>cast(slot).value;
+                slots.set(i, new Slot<>(id, member));
+                index.remove(id, previous);
+                index.add(id, member);
+                return previous;
+            }
+        }
+    }
+
+    public synchronized V remove(long id) {
+        AtomicReferenceArray<Object> slots = table;
+        int mask = slots.length() - 1;
+        for (int i = mix(id) & mask; ; i = (i + 1) & mask) {
+            Object slot = slots.get(i);
+            if (slot == null) {
+                return null;
+            }
+            if (slot != TOMBSTONE && ((Slot<?>) slot).id == id) {
+                V removed = MemberDirectory.<V>cast(slot).value;
+                slots.set(i, TOMBSTONE);
+                size--;
+                index.remove(id, removed);
+                return removed;
+            }
+        }
+    }
+
+    public V remove(String phone) {
+        long id = PhoneRegistry.find(phone);
+        return id == PhoneRegistry.NONE ? null : remove(id);
+    }
+
+    public List<V> findByNamePrefix(String prefix) {
+        return index.byNamePrefix(prefix, Integer.MAX_VALUE);
+    }
+
+    public List<V> findByPhonePrefix(String prefix) {
+        return index.byPhonePrefix(prefix, Integer.MAX_VALUE);
+    }
+
+    public List<V> findByPhoneSuffix(String suffix) {
+        return index.byPhoneSuffix(suffix, Integer.MAX_VALUE);
+    }
+
+    public List<V> search(String query, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        return index.search(query, limit);
+    }
+
+    public Map<String, String> names() {
+        return new AbstractMap<>() {
+            @Override
+            public Set<Entry<String, String>> entrySet() {
+                return new SlotSet<>(slot -> new SimpleImmutableEntry<>(
+                        PhoneRegistry.phone(slot.id), name.apply(slot.value)));
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<Entry<String, V>> entrySet() {
+        return new SlotSet<>(slot -> new SimpleImmutableEntry<>(PhoneRegistry.phone(slot.id), slot.value));
+    }
+
+    @Override
+    public Collection<V> values() {
+        return new SlotSet<>(slot -> slot.value);
+    }
+
+    private void insert(long id, V member) {
+        if ((used + 1) * 2 > table.length()) {
+            rehash(size + 1);
+        }
+        AtomicReferenceArray<Object> slots = table;
+        int mask = slots.length() - 1;
+        int i = mix(id) & mask;
+        while (slots.get(i) != null && slots.get(i) != TOMBSTONE) {
+            i = (i + 1) & mask;
+        }
+        if (slots.get(i) == null) {
+            used++;
+        }
+        slots.set(i, new Slot<>(id, member));
+        size++;
+        index.add(id, member);
+    }
+
+    private void rehash(int minSize) {
+        AtomicReferenceArray<Object> old = table;
+        AtomicReferenceArray<Object> resized = new AtomicReferenceArray<>(
+                Math.max(old.length(), capacityFor(minSize)));
+        int mask = resized.length() - 1;
+        for (int j = 0; j < old.length(); j++) {
+            Object slot = old.get(j);
+            if (slot != null && slot != TOMBSTONE) {
+                int i = mix(((Slot<?>) slot).id) & mask;
+                while (resized.get(i) != null) {
+                    i = (i + 1) & mask;
+                }
+                resized.set(i, slot);
+            }
+        }
+        used = size;
+        table = resized;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2L + 2 && capacity < (1 << 30)) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    static int mix(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> Slot<V> cast(Object slot) {
+        return (Slot<V>) slot;
+    }
+
+    private static final class Slot<V> {
+        final long id;
+        final V value;
+
+        Slot(long id, V value) {
+            this.id = id;
+            this.value = value;
+        }
+    }
+
+    private class SlotSet<T> extends AbstractSet<T> {
+        private final Function<Slot<V>, T> view;
+
+        SlotSet(Function<Slot<V>, T> view) {
+            this.view = view;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            AtomicReferenceArray<Object> slots = table;
+            return new Iterator<>() {
+                private int index;
+                private Slot<V> next = advance();
+
+                private Slot<V> advance() {
+                    while (index < slots.length()) {
+                        Object slot = slots.get(index++);
+                        if (slot instanceof Slot) {
+                            return cast(slot);
+                        }
+                    }
+                    return null;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next != null;
+                }
+
+                @Override
+                public T next() {
+                    if (next == null) {
+                        throw new NoSuchElementException();
+                    }
+                    Slot<V> current = next;
+                    next = advance();
+                    return view.apply(current);
+                }
+            };
+        }
+
+        @Override
+        public Spliterator<T> spliterator() {
+            AtomicReferenceArray<Object> slots = table;
+            return new SlotSpliterator<>(slots, 0, slots.length(), view);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Splits by halving the slot range, so parallel passes over a directory need
+     * no copy of its members.
+     */
+    private class SlotSpliterator<T> implements Spliterator<T> {
+        private final AtomicReferenceArray<Object> slots;
+        private final Function<Slot<V>, T> view;
+        private int index;
+        private final int end;
+
+        SlotSpliterator(AtomicReferenceArray<Object> slots, int index, int end, Function<Slot<V>, T> view) {
+            this.slots = slots;
+            this.index = index;
+            this.end = end;
+            this.view = view;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            while (index < end) {
+                Object slot = slots.get(index++);
+                if (slot instanceof Slot) {
+                    action.accept(view.apply(cast(slot)));
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            int middle = (index + end) >>> 1;
+            if (middle - index < MIN_CAPACITY) {
+                return null;
+            }
+            Spliterator<T> prefix = new SlotSpliterator<>(slots, index, middle, view);
+            index = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return (long) size * (end - index) / slots.length();
+        }
+
+        @Override
+        public int characteristics() {
+            return DISTINCT | NONNULL | CONCURRENT;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package org.gym;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+
+/**
+ * Typeahead index over member names and phones, maintained by {@link MemberDirectory}
+ * under its write lock. Every key is {@code term + '\0' + id} in a sorted map, so a
+ * prefix query is one range scan:
+ * <ul>
+ *   <li>names: the lower-cased full name and every suffix starting at a word, so
+ *       "shev" and "taras shev" both find "Taras Shevchenko";</li>
+ *   <li>phones: the digits, for prefix matches;</li>
+ *   <li>phones reversed: the digits back to front, so the last digits of a number
+ *       are a prefix too.</li>
+ * </ul>
+ */
+final class MemberSearchIndex<V> {
+    private static final char SEPARATOR = '\0';
+
+    private final Function<V, String> name;
+    private final ConcurrentNavigableMap<String, V> byName = new ConcurrentSkipListMap<>();
+    private final ConcurrentNavigableMap<String, V> byPhone = new ConcurrentSkipListMap<>();
+    private final ConcurrentNavigableMap<String, V> byPhoneReversed = new ConcurrentSkipListMap<>();
+
+    MemberSearchIndex(Function<V, String> name) {
+        this.name = name;
+    }
+
+    void add(long id, V member) {
+        for (String term : nameTerms(name.apply(member))) {
+            byName.put(key(term, id), member);
+        }
+        String digits = digits(PhoneRegistry.phone(id));
+        if (!digits.isEmpty()) {
+            byPhone.put(key(digits, id), member);
+            byPhoneReversed.put(key(reverse(digits), id), member);
+        }
+    }
+
+    void remove(long id, V member) {
+        for (String term : nameTerms(name.apply(member))) {
+            byName.remove(key(term, id));
+        }
+        String digits = digits(PhoneRegistry.phone(id));
+        if (!digits.isEmpty()) {
+            byPhone.remove(key(digits, id));
+            byPhoneReversed.remove(key(reverse(digits), id));
+        }
+    }
+
+    List<V> byNamePrefix(String prefix, int limit) {
+        Collection<V> found = new LinkedHashSet<>();
+        collect(byName, normalize(prefix), found, limit);
+        return new ArrayList<>(found);
+    }
+
+    List<V> byPhonePrefix(String prefix, int limit) {
+        Collection<V> found = new LinkedHashSet<>();
+        String digits = digits(prefix);
+        if (!digits.isEmpty()) {
+            collect(byPhone, digits, found, limit);
+        }
+        return new ArrayList<>(found);
+    }
+
+    List<V> byPhoneSuffix(String suffix, int limit) {
+        Collection<V> found = new LinkedHashSet<>();
+        String digits = digits(suffix);
+        if (!digits.isEmpty()) {
+            collect(byPhoneReversed, reverse(digits), found, limit);
+        }
+        return new ArrayList<>(found);
+    }
+
+    /**
+     * Name matches for text; for a query of digits (optionally with {@code +} and
+     * separators) phone prefix matches first, then phone suffix matches.
+     */
+    List<V> search(String query, int limit) {
+        Collection<V> found = new LinkedHashSet<>();
+        String trimmed = query.trim();
+        if (trimmed.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String digits = digits(trimmed);
+        if (!digits.isEmpty() && isPhoneLike(trimmed)) {
+            collect(byPhone, digits, found, limit);
+            collect(byPhoneReversed, reverse(digits), found, limit);
+        } else {
+            collect(byName, normalize(trimmed), found, limit);
+        }
+        return new ArrayList<>(found);
+    }
+
+    private static <V> void collect(ConcurrentNavigableMap<String, V> index, String prefix,
+                                    Collection<V> found, int limit) {
+        for (V member : index.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            if (found.size() >= limit) {
+                return;
+            }
+            found.add(member);
+        }
+    }
+
+    private static List<String> nameTerms(String memberName) {
+        String normalized = normalize(memberName == null ? "" : memberName);
+        List<String> terms = new ArrayList<>();
+        terms.add(normalized);
+        for (int i = normalized.indexOf(' '); i >= 0; i = normalized.indexOf(' ', i + 1)) {
+            terms.add(normalized.substring(i + 1));
+        }
+        return terms;
+    }
+
+    private static String normalize(String text) {
+        return text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isPhoneLike(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (!(c >= '0' && c <= '9') && c != '+' && c != ' ' && c != '-' && c != '(' && c != ')' && c != '.') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String digits(String phone) {
+        if (phone == null) {
+            return "";
+        }
+        StringBuilder digits = new StringBuilder(phone.length());
+        for (int i = 0; i < phone.length(); i++) {
+            char c = phone.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        return digits.toString();
+    }
+
+    private static String reverse(String digits) {
+        return new StringBuilder(digits).reverse().toString();
+    }
+
+    private static String key(String term, long id) {
+        return term + SEPARATOR + id;
+    }
+}
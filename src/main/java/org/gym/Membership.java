@@ -1,6 +1,8 @@
 package org.gym;
 
+import com.fasterxml.jackson.annotation.JsonAlias;
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
@@ -8,39 +10,47 @@ import java.time.LocalDate;
 import java.util.Objects;
 
 
+@JsonIgnoreProperties(value = "active", allowGetters = true)
 public class Membership {
-    private String visitorPhone;
-    private String gymName;
+    private final long visitorId;
+    private final String gymName;
 
-    private MembershipDuration duration;
-    private LocalDate startDate;
-    private LocalDate endDate;
+    private final MembershipDuration duration;
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    @JsonIgnore
+    private final int hash;
 
     @JsonIgnore
     public Membership(Visitor visitor, Gym gym, String durationLabel, LocalDate startDate) {
-        this.visitorPhone = visitor.getPhone();
-        this.gymName = gym.getName();
-        this.duration = MembershipDuration.fromLabel(durationLabel);
-        this.startDate = startDate;
-        this.endDate = startDate.plusDays(this.duration.getDurationDays());
-
+        this(visitor.getPhoneId(), gym.getName(), durationLabel, startDate);
         visitor.addMembership(this);
     }
 
     @JsonCreator
-    public Membership(@JsonProperty("visitor") String visitorPhone,
+    public Membership(@JsonProperty("visitorPhone") @JsonAlias("visitor") String visitorPhone,
                       @JsonProperty("gym") String gymName,
                       @JsonProperty("duration") String durationLabel,
                       @JsonProperty("startDate") LocalDate startDate) {
-        this.visitorPhone = visitorPhone;
+        this(PhoneRegistry.intern(visitorPhone), gymName, durationLabel, startDate);
+    }
+
+    private Membership(long visitorId, String gymName, String durationLabel, LocalDate startDate) {
+        this.visitorId = visitorId;
         this.gymName = gymName;
         this.duration = MembershipDuration.fromLabel(durationLabel);
         this.startDate = startDate;
         this.endDate = startDate.plusDays(this.duration.getDurationDays());
+        this.hash = 31 * (31 * Long.hashCode(visitorId) + Objects.hashCode(gymName)) + startDate.hashCode();
     }
 
     public String getVisitorPhone() {
-        return visitorPhone;
+        return PhoneRegistry.phone(visitorId);
+    }
+
+    @JsonIgnore
+    public long getVisitorId() {
+        return visitorId;
     }
 
     public String getGymName() {
@@ -60,7 +70,10 @@ public class Membership {
     }
 
     public boolean isActive() {
-        LocalDate today = LocalDate.now();
+        return isActiveOn(TimeSource.today());
+    }
+
+    public boolean isActiveOn(LocalDate today) {
         return (startDate != null && endDate != null)
                 && ( !today.isBefore(startDate) ) // today >= startDate
                 && today.isBefore(endDate);       // today < endDate
@@ -68,20 +81,21 @@ public class Membership {
 
     @Override
     public int hashCode() {
-        return Objects.hash(visitorPhone, gymName, startDate);
+        return hash;
     }
 
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof Membership that)) return false;
-        return this.hashCode() == that.hashCode();
+        return hash == that.hash && visitorId == that.visitorId
+                && Objects.equals(gymName, that.gymName) && startDate.equals(that.startDate);
     }
 
     @Override
     public String toString() {
         return "Membership {hash=" + this.hashCode()
-                + ", visitor=" + visitorPhone
+                + ", visitor=" + getVisitorPhone()
                 + ", gym=" + gymName
                 + ", duration=" + duration.getLabel()
                 + ", active=" + isActive()
@@ -0,0 +1,88 @@
+package org.gym;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Instrumented hot paths of the domain model. Each operation has an
+ * {@link OperationMetrics}. Snapshots are available here, and through JMX as
+ * {@value #OBJECT_NAME} once {@link #registerMBean()} is called.
+ */
+public final class Metrics {
+    public static final String OBJECT_NAME = "org.gym:type=Metrics";
+
+    public static final OperationMetrics VISIT_GYM = new OperationMetrics("visitGym");
+    public static final OperationMetrics BOOK_SESSION = new OperationMetrics("bookSession");
+    public static final OperationMetrics CANCEL_SESSION = new OperationMetrics("cancelSession");
+    public static final OperationMetrics ADD_VISITOR = new OperationMetrics("addVisitor");
+    public static final OperationMetrics JSON_EXPORT = new OperationMetrics("jsonExport");
+    public static final OperationMetrics JSON_IMPORT = new OperationMetrics("jsonImport");
+
+    private static final List<OperationMetrics> OPERATIONS = List.of(
+            VISIT_GYM, BOOK_SESSION, CANCEL_SESSION, ADD_VISITOR, JSON_EXPORT, JSON_IMPORT);
+
+    private static volatile boolean enabled = true;
+
+    private Metrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        Metrics.enabled = enabled;
+    }
+
+    public static List<OperationStats> snapshot() {
+        List<OperationStats> stats = new ArrayList<>(OPERATIONS.size());
+        for (OperationMetrics operation : OPERATIONS) {
+            stats.add(operation.snapshot());
+        }
+        return stats;
+    }
+
+    public static void reset() {
+        for (OperationMetrics operation : OPERATIONS) {
+            operation.reset();
+        }
+    }
+
+    public static void registerMBean() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(new MBean(), new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // already registered by an earlier call
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register " + OBJECT_NAME, e);
+        }
+    }
+
+    private static final class MBean implements MetricsMXBean {
+        @Override
+        public List<OperationStats> getOperations() {
+            return snapshot();
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return Metrics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean enabled) {
+            Metrics.setEnabled(enabled);
+        }
+
+        @Override
+        public void reset() {
+            Metrics.reset();
+        }
+    }
+}
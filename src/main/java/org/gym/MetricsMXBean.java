@@ -0,0 +1,13 @@
+package org.gym;
+
+import java.util.List;
+
+public interface MetricsMXBean {
+    List<OperationStats> getOperations();
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    void reset();
+}
@@ -0,0 +1,180 @@
+package org.gym;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Check-in histograms of one gym, updated as each visit is recorded. Counts are
+ * kept per hour and per day, keyed by epoch hour and epoch day in sorted maps,
+ * so a window query touches only the buckets inside the window. Each month also
+ * keeps the set of distinct visitors for per-member averages. The buckets of the
+ * latest check-in are remembered, so recording a visit in the current hour finds
+ * them without boxing a key.
+ */
+public class OccupancyStats {
+    private static final int SECONDS_PER_HOUR = 3600;
+
+    private final ConcurrentNavigableMap<Long, LongAdder> hourly = new ConcurrentSkipListMap<>();
+    private final ConcurrentNavigableMap<Long, LongAdder> daily = new ConcurrentSkipListMap<>();
+    private final Map<YearMonth, PhoneDictionary> monthlyVisitors = new ConcurrentHashMap<>();
+    private volatile Latest<LongAdder> latestHour;
+    private volatile Latest<LongAdder> latestDay;
+    private volatile Latest<PhoneDictionary> latestMonth;
+    // Bumped by clear() after the maps are emptied; a cached bucket from an
+    // older generation may have been dropped from its map and is not reused.
+    private volatile long generation;
+
+    void record(LocalDateTime dateTime, long visitorId) {
+        long current = generation;
+        long hour = hourOf(dateTime);
+        Latest<LongAdder> inHour = latestHour;
+        if (inHour == null || inHour.key != hour || inHour.generation != current) {
+            inHour = new Latest<>(hour, current, hourly.computeIfAbsent(hour, k -> new LongAdder()));
+            latestHour = inHour;
+        }
+        inHour.value.increment();
+
+        long day = Math.floorDiv(hour, 24);
+        Latest<LongAdder> inDay = latestDay;
+        if (inDay == null || inDay.key != day || inDay.generation != current) {
+            inDay = new Latest<>(day, current, daily.computeIfAbsent(day, k -> new LongAdder()));
+            latestDay = inDay;
+        }
+        inDay.value.increment();
+
+        long month = dateTime.getYear() * 12L + dateTime.getMonthValue() - 1;
+        Latest<PhoneDictionary> inMonth = latestMonth;
+        if (inMonth == null || inMonth.key != month || inMonth.generation != current) {
+            inMonth = new Latest<>(month, current, monthlyVisitors.computeIfAbsent(YearMonth.from(dateTime),
+                    k -> new PhoneDictionary()));
+            latestMonth = inMonth;
+        }
+        inMonth.value.intern(visitorId);
+    }
+
+    synchronized void clear() {
+        hourly.clear();
+        daily.clear();
+        monthlyVisitors.clear();
+        generation++;
+    }
+
+    /**
+     * Check-ins in {@code [from, to)} counted at hour granularity: a visit counts
+     * when its hour starts inside the window.
+     */
+    public long checkInsBetween(LocalDateTime from, LocalDateTime to) {
+        long fromHour = ceilHour(from);
+        long toHour = ceilHour(to);
+        if (fromHour >= toHour) {
+            return 0;
+        }
+        long firstDay = Math.floorDiv(fromHour + 23, 24);
+        long lastDay = Math.floorDiv(toHour, 24);
+        if (firstDay >= lastDay) {
+            return sum(hourly, fromHour, toHour);
+        }
+        return sum(hourly, fromHour, firstDay * 24)
+                + sum(daily, firstDay, lastDay)
+                + sum(hourly, lastDay * 24, toHour);
+    }
+
+    public Map<LocalDateTime, Long> hourlyCheckIns(LocalDateTime from, LocalDateTime to) {
+        Map<LocalDateTime, Long> histogram = new LinkedHashMap<>();
+        for (Map.Entry<Long, LongAdder> bucket : hourly.subMap(ceilHour(from), ceilHour(to)).entrySet()) {
+            histogram.put(LocalDateTime.ofEpochSecond(bucket.getKey() * SECONDS_PER_HOUR, 0, ZoneOffset.UTC),
+                    bucket.getValue().sum());
+        }
+        return histogram;
+    }
+
+    public Map<LocalDate, Long> dailyCheckIns(LocalDate from, LocalDate to) {
+        Map<LocalDate, Long> histogram = new LinkedHashMap<>();
+        for (Map.Entry<Long, LongAdder> bucket : daily.subMap(from.toEpochDay(), to.toEpochDay()).entrySet()) {
+            histogram.put(LocalDate.ofEpochDay(bucket.getKey()), bucket.getValue().sum());
+        }
+        return histogram;
+    }
+
+    public Peak peakHour(LocalDateTime from, LocalDateTime to) {
+        long bestHour = 0;
+        long best = 0;
+        for (Map.Entry<Long, LongAdder> bucket : hourly.subMap(ceilHour(from), ceilHour(to)).entrySet()) {
+            long count = bucket.getValue().sum();
+            if (count > best) {
+                best = count;
+                bestHour = bucket.getKey();
+            }
+        }
+        return best == 0 ? null
+                : new Peak(LocalDateTime.ofEpochSecond(bestHour * SECONDS_PER_HOUR, 0, ZoneOffset.UTC), best);
+    }
+
+    public double averageVisitsPerMember(YearMonth month) {
+        PhoneDictionary visitors = monthlyVisitors.get(month);
+        if (visitors == null || visitors.size() == 0) {
+            return 0;
+        }
+        long visits = sum(daily, month.atDay(1).toEpochDay(), month.plusMonths(1).atDay(1).toEpochDay());
+        return (double) visits / visitors.size();
+    }
+
+    private static long sum(ConcurrentNavigableMap<Long, LongAdder> buckets, long from, long to) {
+        long total = 0;
+        for (LongAdder count : buckets.subMap(from, to).values()) {
+            total += count.sum();
+        }
+        return total;
+    }
+
+    private static long hourOf(LocalDateTime dateTime) {
+        return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), SECONDS_PER_HOUR);
+    }
+
+    private static long ceilHour(LocalDateTime dateTime) {
+        return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC) + SECONDS_PER_HOUR - 1, SECONDS_PER_HOUR);
+    }
+
+    private static final class Latest<T> {
+        private final long key;
+        private final long generation;
+        private final T value;
+
+        private Latest(long key, long generation, T value) {
+            this.key = key;
+            this.generation = generation;
+            this.value = value;
+        }
+    }
+
+    public static class Peak {
+        private final LocalDateTime hour;
+        private final long checkIns;
+
+        Peak(LocalDateTime hour, long checkIns) {
+            this.hour = hour;
+            this.checkIns = checkIns;
+        }
+
+        public LocalDateTime getHour() {
+            return hour;
+        }
+
+        public long getCheckIns() {
+            return checkIns;
+        }
+
+        @Override
+        public String toString() {
+            return hour + " (" + checkIns + " check-ins)";
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.gym;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters and latency distribution of one instrumented operation. Call sites
+ * take {@code System.nanoTime()} before the operation and report either
+ * {@link #record(long)} on success or {@link #failed()} when it throws.
+ */
+public class OperationMetrics {
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLong failures = new AtomicLong();
+
+    OperationMetrics(String name) {
+        this.name = name;
+    }
+
+    public void record(long startedNanos) {
+        if (Metrics.isEnabled()) {
+            latency.record(System.nanoTime() - startedNanos);
+        }
+    }
+
+    public void failed() {
+        if (Metrics.isEnabled()) {
+            failures.incrementAndGet();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public OperationStats snapshot() {
+        long[] counts = latency.counts();
+        long count = 0;
+        for (long bucket : counts) {
+            count += bucket;
+        }
+        return new OperationStats(name, count, failures.get(),
+                count == 0 ? 0 : latency.sum() / count,
+                LatencyHistogram.valueAt(counts, count, 50),
+                LatencyHistogram.valueAt(counts, count, 90),
+                LatencyHistogram.valueAt(counts, count, 99),
+                LatencyHistogram.valueAt(counts, count, 99.9),
+                latency.max());
+    }
+
+    void reset() {
+        latency.reset();
+        failures.set(0);
+    }
+}
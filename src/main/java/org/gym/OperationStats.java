@@ -0,0 +1,74 @@
+package org.gym;
+
+import java.beans.ConstructorProperties;
+
+/** Point-in-time view of an {@link OperationMetrics}; latencies in nanoseconds. */
+public class OperationStats {
+    private final String name;
+    private final long count;
+    private final long failures;
+    private final long meanNanos;
+    private final long p50Nanos;
+    private final long p90Nanos;
+    private final long p99Nanos;
+    private final long p999Nanos;
+    private final long maxNanos;
+
+    @ConstructorProperties({"name", "count", "failures", "meanNanos", "p50Nanos", "p90Nanos", "p99Nanos",
+            "p999Nanos", "maxNanos"})
+    public OperationStats(String name, long count, long failures, long meanNanos, long p50Nanos, long p90Nanos,
+                          long p99Nanos, long p999Nanos, long maxNanos) {
+        this.name = name;
+        this.count = count;
+        this.failures = failures;
+        this.meanNanos = meanNanos;
+        this.p50Nanos = p50Nanos;
+        this.p90Nanos = p90Nanos;
+        this.p99Nanos = p99Nanos;
+        this.p999Nanos = p999Nanos;
+        this.maxNanos = maxNanos;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    public long getMeanNanos() {
+        return meanNanos;
+    }
+
+    public long getP50Nanos() {
+        return p50Nanos;
+    }
+
+    public long getP90Nanos() {
+        return p90Nanos;
+    }
+
+    public long getP99Nanos() {
+        return p99Nanos;
+    }
+
+    public long getP999Nanos() {
+        return p999Nanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-14s count=%d failures=%d mean=%.1fus p50=%.1fus p90=%.1fus p99=%.1fus "
+                        + "p99.9=%.1fus max=%.1fus", name, count, failures, meanNanos / 1e3, p50Nanos / 1e3,
+                p90Nanos / 1e3, p99Nanos / 1e3, p999Nanos / 1e3, maxNanos / 1e3);
+    }
+}
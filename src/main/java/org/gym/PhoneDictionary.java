@@ -0,0 +1,105 @@
+package org.gym;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Dense ids for phone ids, in order of first use. Lookups probe an open-addressing
+ * table of primitive keys without locking or boxing; a key is published with
+ * release semantics after its id, so a reader that finds the key also sees the id
+ * and the phone stored under it. Inserts are serialized and rebuild the table into
+ * a fresh one once it is half full.
+ */
+class PhoneDictionary {
+    private static final int MIN_CAPACITY = 16;
+
+    private volatile Table table = new Table(MIN_CAPACITY);
+    private volatile long[] phones = new long[MIN_CAPACITY];
+    private int size;
+
+    public int intern(long phoneId) {
+        if (phoneId == PhoneRegistry.NONE) {
+            throw new NullPointerException("phone");
+        }
+        int id = table.get(phoneId);
+        if (id >= 0) {
+            return id;
+        }
+        synchronized (this) {
+            id = table.get(phoneId);
+            if (id >= 0) {
+                return id;
+            }
+            if (size == phones.length) {
+                phones = Arrays.copyOf(phones, size * 2);
+            }
+            phones[size] = phoneId;
+            if ((size + 1) * 2 > table.capacity()) {
+                Table grown = new Table(table.capacity() * 2);
+                for (int i = 0; i < size; i++) {
+                    grown.put(phones[i], i);
+                }
+                grown.put(phoneId, size);
+                table = grown;
+            } else {
+                table.put(phoneId, size);
+            }
+            return size++;
+        }
+    }
+
+    public int idOf(long phoneId) {
+        return table.get(phoneId);
+    }
+
+    public long phoneOf(int id) {
+        return phones[id];
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized void clear() {
+        table = new Table(MIN_CAPACITY);
+        phones = new long[MIN_CAPACITY];
+        size = 0;
+    }
+
+    private static final class Table {
+        private final AtomicLongArray keys;
+        private final int[] ids;
+        private final int mask;
+
+        Table(int capacity) {
+            keys = new AtomicLongArray(capacity);
+            ids = new int[capacity];
+            mask = capacity - 1;
+        }
+
+        int capacity() {
+            return mask + 1;
+        }
+
+        int get(long phoneId) {
+            for (int i = MemberDirectory.mix(phoneId) & mask; ; i = (i + 1) & mask) {
+                long key = keys.getAcquire(i);
+                if (key == PhoneRegistry.NONE) {
+                    return -1;
+                }
+                if (key == phoneId) {
+                    return ids[i];
+                }
+            }
+        }
+
+        void put(long phoneId, int id) {
+            int i = MemberDirectory.mix(phoneId) & mask;
+            while (keys.getPlain(i) != PhoneRegistry.NONE) {
+                i = (i + 1) & mask;
+            }
+            ids[i] = id;
+            keys.setRelease(i, phoneId);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.gym;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Global phone identity. A valid E.164 number ({@code +} and up to 15 digits, no
+ * leading zero; spaces, dashes, dots and parentheses are dropped) is encoded as
+ * its digits in a positive {@code long}, so it needs no table and decodes to the
+ * canonical string. Anything else is interned here under a negative id and
+ * decodes to the original text. Id {@code 0} stands for {@code null}.
+ */
+public final class PhoneRegistry {
+    public static final long NONE = 0;
+
+    private static final int MAX_DIGITS = 15;
+
+    private static final Map<String, Long> ids = new ConcurrentHashMap<>();
+    private static volatile String[] others = new String[16];
+    private static int otherCount;
+
+    private PhoneRegistry() {
+    }
+
+    public static long intern(String phone) {
+        if (phone == null) {
+            return NONE;
+        }
+        long encoded = encode(phone);
+        if (encoded > 0) {
+            return encoded;
+        }
+        Long id = ids.get(phone);
+        if (id != null) {
+            return id;
+        }
+        synchronized (PhoneRegistry.class) {
+            id = ids.get(phone);
+            if (id != null) {
+                return id;
+            }
+            if (otherCount == others.length) {
+                others = Arrays.copyOf(others, otherCount * 2);
+            }
+            others[otherCount] = phone;
+            id = -(long) ++otherCount;
+            ids.put(phone, id);
+            return id;
+        }
+    }
+
+    public static long find(String phone) {
+        if (phone == null) {
+            return NONE;
+        }
+        long encoded = encode(phone);
+        if (encoded > 0) {
+            return encoded;
+        }
+        Long id = ids.get(phone);
+        return id == null ? NONE : id;
+    }
+
+    public static String phone(long id) {
+        if (id > 0) {
+            return "+" + id;
+        }
+        if (id == NONE) {
+            return null;
+        }
+        return others[(int) (-id - 1)];
+    }
+
+    public static String canonicalize(String phone) {
+        return phone(intern(phone));
+    }
+
+    private static long encode(String phone) {
+        int length = phone.length();
+        int i = 0;
+        while (i < length && phone.charAt(i) == ' ') {
+            i++;
+        }
+        if (i == length || phone.charAt(i) != '+') {
+            return -1;
+        }
+        long value = 0;
+        int digits = 0;
+        for (i++; i < length; i++) {
+            char c = phone.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (digits == 0 && c == '0' || ++digits > MAX_DIGITS) {
+                    return -1;
+                }
+                value = value * 10 + (c - '0');
+            } else if (c != ' ' && c != '-' && c != '.' && c != '(' && c != ')') {
+                return -1;
+            }
+        }
+        return digits == 0 ? -1 : value;
+    }
+}
@@ -0,0 +1,253 @@
+package org.gym;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Parses a set of JSON shard files in parallel on the given executor and then
+ * merges them into gyms by name on the calling thread.
+ */
+public class ShardedLoader {
+    private static final String VISITS_PREFIX = "visits-";
+    private static final String JSON_SUFFIX = ".json";
+
+    private final Executor executor;
+    private final JsonDataIO<Gym> gymIO = new JsonDataIO<>(Gym[].class);
+    private final JsonDataIO<Visitor> visitorIO = new JsonDataIO<>(Visitor[].class);
+    private final JsonDataIO<Coach> coachIO = new JsonDataIO<>(Coach[].class);
+    private final JsonDataIO<Visit> visitIO = new JsonDataIO<>(Visit[].class);
+
+    public ShardedLoader() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ShardedLoader(Executor executor) {
+        this.executor = executor;
+    }
+
+    public enum ShardType {
+        GYMS, VISITORS, COACHES, VISITS
+    }
+
+    public static class Shard {
+        private final ShardType type;
+        private final File file;
+        private final String gymName;
+
+        public Shard(ShardType type, File file) {
+            this(type, file, null);
+        }
+
+        public Shard(ShardType type, File file, String gymName) {
+            if (type == ShardType.VISITS && gymName == null) {
+                throw new IllegalArgumentException("Visit shard " + file + " must name its gym");
+            }
+            this.type = type;
+            this.file = file;
+            this.gymName = gymName;
+        }
+
+        public ShardType getType() {
+            return type;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public String getGymName() {
+            return gymName;
+        }
+    }
+
+    public static class Result {
+        private final List<Visitor> unassignedVisitors = new ArrayList<>();
+        private final List<Coach> unassignedCoaches = new ArrayList<>();
+        private int duplicateVisits;
+
+        public List<Visitor> getUnassignedVisitors() {
+            return unassignedVisitors;
+        }
+
+        public List<Coach> getUnassignedCoaches() {
+            return unassignedCoaches;
+        }
+
+        public int getDuplicateVisits() {
+            return duplicateVisits;
+        }
+    }
+
+    public static List<Shard> discover(File directory) throws IOException {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(JSON_SUFFIX));
+        if (files == null) {
+            throw new IOException("Cannot list shard directory " + directory);
+        }
+        Arrays.sort(files);
+        List<Shard> shards = new ArrayList<>();
+        for (File file : files) {
+            String name = file.getName();
+            if (name.startsWith(VISITS_PREFIX)) {
+                String gymName = name.substring(VISITS_PREFIX.length(), name.length() - JSON_SUFFIX.length());
+                shards.add(new Shard(ShardType.VISITS, file, gymName));
+            } else if (name.startsWith("gyms")) {
+                shards.add(new Shard(ShardType.GYMS, file));
+            } else if (name.startsWith("visitors")) {
+                shards.add(new Shard(ShardType.VISITORS, file));
+            } else if (name.startsWith("coaches")) {
+                shards.add(new Shard(ShardType.COACHES, file));
+            }
+        }
+        return shards;
+    }
+
+    public Result load(File directory, List<Gym> gyms) throws IOException {
+        return load(discover(directory), gyms);
+    }
+
+    public Result load(List<Shard> shards, List<Gym> gyms) throws IOException {
+        Map<Shard, CompletableFuture<List<?>>> parsed = new LinkedHashMap<>();
+        for (Shard shard : shards) {
+            parsed.put(shard, CompletableFuture.supplyAsync(() -> parse(shard), executor));
+        }
+
+        Map<String, Gym> gymsByName = new LinkedHashMap<>();
+        for (Gym gym : gyms) {
+            gymsByName.putIfAbsent(gym.getName(), gym);
+        }
+
+        Result result = new Result();
+        for (ShardType type : ShardType.values()) {
+            for (Map.Entry<Shard, CompletableFuture<List<?>>> entry : parsed.entrySet()) {
+                if (entry.getKey().getType() == type) {
+                    merge(entry.getKey(), join(entry.getValue()), gymsByName, result);
+                }
+            }
+        }
+
+        for (Gym gym : gymsByName.values()) {
+            if (!gyms.contains(gym)) {
+                gyms.add(gym);
+            }
+        }
+        return result;
+    }
+
+    private List<?> parse(Shard shard) {
+        try {
+            return switch (shard.getType()) {
+                case GYMS -> gymIO.importData(shard.getFile());
+                case VISITORS -> visitorIO.importData(shard.getFile());
+                case COACHES -> coachIO.importData(shard.getFile());
+                case VISITS -> visitIO.importData(shard.getFile());
+            };
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<?> join(CompletableFuture<List<?>> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void merge(Shard shard, List<?> items, Map<String, Gym> gymsByName, Result result) {
+        switch (shard.getType()) {
+            case GYMS -> {
+                for (Object item : items) {
+                    Gym gym = (Gym) item;
+                    result.duplicateVisits += gym.getSkippedDuplicateVisits();
+                    Gym existing = gymsByName.putIfAbsent(gym.getName(), gym);
+                    if (existing != null) {
+                        mergeGym(existing, gym, result);
+                    }
+                }
+            }
+            case VISITORS -> {
+                for (Object item : items) {
+                    mergeVisitor((Visitor) item, gymsByName, result);
+                }
+            }
+            case COACHES -> {
+                for (Object item : items) {
+                    mergeCoach((Coach) item, gymsByName, result);
+                }
+            }
+            case VISITS -> {
+                Gym gym = gymsByName.computeIfAbsent(shard.getGymName(), name -> new Gym(name, "Unknown"));
+                for (Object item : items) {
+                    addVisit(gym, (Visit) item, result);
+                }
+            }
+        }
+    }
+
+    private static void mergeGym(Gym target, Gym source, Result result) {
+        for (Visitor visitor : source.getAllVisitors().values()) {
+            if (!target.getAllVisitors().containsKey(visitor.getPhone())) {
+                target.addVisitor(visitor);
+            }
+        }
+        for (Coach coach : source.getAllCoaches().values()) {
+            if (!target.getAllCoaches().containsKey(coach.getPhone())) {
+                target.addCoach(coach);
+            }
+        }
+        source.forEachVisit(visit -> addVisit(target, visit, result));
+    }
+
+    private static void mergeVisitor(Visitor visitor, Map<String, Gym> gymsByName, Result result) {
+        Set<String> gymNames = new HashSet<>();
+        for (Membership membership : visitor.getMemberships()) {
+            gymNames.add(membership.getGymName());
+        }
+        boolean assigned = false;
+        for (Gym gym : gymsByName.values()) {
+            boolean listed = gym.getAllVisitors().containsKey(visitor.getPhone());
+            if (listed || gymNames.contains(gym.getName())) {
+                if (listed) {
+                    gym.removeVisitor(visitor.getPhone());
+                }
+                visitor = gym.addVisitor(visitor);
+                assigned = true;
+            }
+        }
+        if (!assigned) {
+            result.unassignedVisitors.add(visitor);
+        }
+    }
+
+    private static void mergeCoach(Coach coach, Map<String, Gym> gymsByName, Result result) {
+        boolean assigned = false;
+        for (Gym gym : gymsByName.values()) {
+            if (gym.getAllCoaches().containsKey(coach.getPhone())) {
+                gym.removeCoach(coach.getPhone());
+                gym.addCoach(coach);
+                assigned = true;
+            }
+        }
+        if (!assigned) {
+            result.unassignedCoaches.add(coach);
+        }
+    }
+
+    private static void addVisit(Gym gym, Visit visit, Result result) {
+        try {
+            gym.addVisit(visit);
+        } catch (IllegalArgumentException e) {
+            result.duplicateVisits++;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.gym;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Shared time source of the domain model. Memberships, visits and visitors read
+ * the current time and day from here, so tests and simulations can swap the clock.
+ */
+public final class TimeSource {
+    private static volatile DayClock dayClock = new DayClock(Clock.systemDefaultZone());
+    private static Duration refreshPeriod;
+
+    private TimeSource() {
+    }
+
+    public static Clock clock() {
+        return dayClock.getClock();
+    }
+
+    public static LocalDate today() {
+        return dayClock.today();
+    }
+
+    public static LocalDateTime now() {
+        return LocalDateTime.now(dayClock.getClock());
+    }
+
+    public static LocalDateTime nowToSeconds() {
+        return dayClock.nowToSeconds();
+    }
+
+    public static synchronized void setClock(Clock clock) {
+        DayClock previous = dayClock;
+        DayClock next = new DayClock(clock);
+        if (refreshPeriod != null) {
+            next.startRefreshing(refreshPeriod);
+        }
+        dayClock = next;
+        previous.stopRefreshing();
+    }
+
+    public static synchronized void refreshDayEvery(Duration period) {
+        refreshPeriod = period;
+        dayClock.startRefreshing(period);
+    }
+
+    public static synchronized void stopDayRefresh() {
+        refreshPeriod = null;
+        dayClock.stopRefreshing();
+    }
+}
@@ -0,0 +1,116 @@
+package org.gym;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Objects;
+
+public class TrainingSession {
+    private final LocalDateTime start;
+    private final Duration duration;
+    private final long visitorId;
+    @JsonIgnore
+    private final int hash;
+    private String decodedPhone;
+
+    public TrainingSession(LocalDateTime start, Duration duration, String visitorPhone) {
+        this(start, duration, PhoneRegistry.intern(visitorPhone));
+    }
+
+    TrainingSession(LocalDateTime start, Duration duration, long visitorId) {
+        if (duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("Session duration must be positive: " + duration);
+        }
+        this.start = start;
+        this.duration = duration;
+        this.visitorId = visitorId;
+        this.hash = 31 * (31 * Objects.hashCode(start) + duration.hashCode()) + Long.hashCode(visitorId);
+    }
+
+    // "duration" is ISO-8601 (e.g. PT45M30S), so gaps shorter than a minute
+    // between legacy schedule entries survive a round trip; older exports carry
+    // whole "durationMinutes" instead.
+    @JsonCreator
+    public TrainingSession(@JsonProperty("start") LocalDateTime start,
+                           @JsonProperty("duration") String duration,
+                           @JsonProperty("durationMinutes") Long durationMinutes,
+                           @JsonProperty("visitorPhone") String visitorPhone) {
+        this(start, parseDuration(duration, durationMinutes), visitorPhone);
+    }
+
+    private static Duration parseDuration(String duration, Long durationMinutes) {
+        if (duration != null) {
+            try {
+                return Duration.parse(duration);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid session duration: " + duration, e);
+            }
+        }
+        if (durationMinutes == null) {
+            throw new IllegalArgumentException("Session duration is missing");
+        }
+        return Duration.ofMinutes(durationMinutes);
+    }
+
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    @JsonIgnore
+    public LocalDateTime getEnd() {
+        return start.plus(duration);
+    }
+
+    @JsonIgnore
+    public Duration getDuration() {
+        return duration;
+    }
+
+    @JsonProperty("duration")
+    public String getDurationText() {
+        return duration.toString();
+    }
+
+    public String getVisitorPhone() {
+        String phone = decodedPhone;
+        if (phone == null) {
+            phone = PhoneRegistry.phone(visitorId);
+            decodedPhone = phone;
+        }
+        return phone;
+    }
+
+    @JsonIgnore
+    public long getVisitorId() {
+        return visitorId;
+    }
+
+    public boolean overlaps(LocalDateTime from, LocalDateTime to) {
+        return start.isBefore(to) && getEnd().isAfter(from);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TrainingSession that)) return false;
+        return hash == that.hash && Objects.equals(start, that.start) && duration.equals(that.duration)
+                && visitorId == that.visitorId;
+    }
+
+    @Override
+    public String toString() {
+        return "TrainingSession {start=" + start
+                + ", end=" + getEnd()
+                + ", visitor=" + getVisitorPhone()
+                + '}';
+    }
+}
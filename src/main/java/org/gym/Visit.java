@@ -1,5 +1,6 @@
 package org.gym;
 
+import com.fasterxml.jackson.annotation.JsonAlias;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -9,20 +10,28 @@ import java.util.Objects;
 
 
 public class Visit {
-    private LocalDateTime dateTime;
-    private String visitorPhone;
+    private final LocalDateTime dateTime;
+    private final long visitorId;
+    @JsonIgnore
+    private final int hash;
+    // Decoded on first use and kept, so check-ins do not pay for the string.
+    private String decodedPhone;
 
     @JsonIgnore
     public Visit(Visitor visitor) {
-        this.dateTime = LocalDateTime.now();
-        this.visitorPhone = visitor.getPhone();
+        this(TimeSource.nowToSeconds(), visitor.getPhoneId());
     }
 
     @JsonCreator
     public Visit(@JsonProperty("dateTime") LocalDateTime dateTime,
-                 @JsonProperty("visitorHash") String visitorPhone) {
+                 @JsonProperty("visitorPhone") @JsonAlias("visitorHash") String visitorPhone) {
+        this(dateTime, PhoneRegistry.intern(visitorPhone));
+    }
+
+    Visit(LocalDateTime dateTime, long visitorId) {
         this.dateTime = dateTime;
-        this.visitorPhone = visitorPhone;
+        this.visitorId = visitorId;
+        this.hash = 31 * Objects.hashCode(dateTime) + Long.hashCode(visitorId);
     }
 
     public LocalDateTime getDateTime() {
@@ -30,26 +39,36 @@ public class Visit {
     }
 
     public String getVisitorPhone() {
-        return visitorPhone;
+        String phone = decodedPhone;
+        if (phone == null) {
+            phone = PhoneRegistry.phone(visitorId);
+            decodedPhone = phone;
+        }
+        return phone;
+    }
+
+    @JsonIgnore
+    public long getVisitorId() {
+        return visitorId;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(dateTime, visitorPhone);
+        return hash;
     }
 
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof Visit that)) return false;
-        return this.hashCode() == that.hashCode();
+        return hash == that.hash && visitorId == that.visitorId && Objects.equals(dateTime, that.dateTime);
     }
 
     @Override
     public String toString() {
         return "Visit {hash=" + this.hashCode()
                 + ", dateTime=" + dateTime
-                + ", visitor=" + visitorPhone
+                + ", visitor=" + getVisitorPhone()
                 + '}';
     }
 }
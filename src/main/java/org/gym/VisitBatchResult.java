@@ -0,0 +1,54 @@
+package org.gym;
+
+import java.util.Collections;
+import java.util.List;
+
+public class VisitBatchResult {
+    public enum Reason {
+        UNKNOWN_VISITOR, NO_ACTIVE_MEMBERSHIP, DUPLICATE
+    }
+
+    public static class Rejection {
+        private final Visit visit;
+        private final Reason reason;
+
+        Rejection(Visit visit, Reason reason) {
+            this.visit = visit;
+            this.reason = reason;
+        }
+
+        public Visit getVisit() {
+            return visit;
+        }
+
+        public Reason getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return "Rejection {visit=" + visit + ", reason=" + reason + '}';
+        }
+    }
+
+    private final int accepted;
+    private final List<Rejection> rejections;
+
+    VisitBatchResult(int accepted, List<Rejection> rejections) {
+        this.accepted = accepted;
+        this.rejections = Collections.unmodifiableList(rejections);
+    }
+
+    public int getAccepted() {
+        return accepted;
+    }
+
+    public List<Rejection> getRejections() {
+        return rejections;
+    }
+
+    @Override
+    public String toString() {
+        return "VisitBatchResult {accepted=" + accepted + ", rejected=" + rejections.size() + '}';
+    }
+}
@@ -0,0 +1,470 @@
+package org.gym;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Append-only visit history kept off the heap in a memory-mapped file. Each visit
+ * is a fixed 24-byte record (epoch second, gym id, visitor id) behind a 64-byte
+ * header holding the committed record count, which is written after the record,
+ * so a crashed process never exposes a partial one. Against power loss only
+ * records covered by the last {@link #force()} are safe: the kernel writes dirty
+ * pages back in any order, so an unforced header may already count records
+ * whose pages were lost. The file is mapped in regions of
+ * {@value #REGION_RECORDS} records. Scans read the mapped records in place and
+ * hand out primitives. A small heap index keeps, for every block of
+ * {@value #BLOCK_RECORDS} records, its time span and a bit filter of its visitor
+ * ids; range and per-visitor scans binary-search the running maximum of those
+ * spans and read only the blocks that can match, so a late or backfilled record
+ * widens one block instead of turning every read into a full scan. The index is
+ * rebuilt from the records when the log is opened.
+ * Gym names and phones that have no numeric encoding are numbered in a
+ * {@code .names} file next to the log, one per line, so ids survive restarts.
+ * An append reserves its slot with a CAS and writes the record without a lock;
+ * commits then advance the count in slot order. Readers are lock-free and see
+ * every record committed before the scan started.
+ */
+public class VisitLog implements AutoCloseable {
+    private static final int MAGIC = 0x4759564C;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int COUNT_OFFSET = 8;
+    private static final int RECORD_SIZE = 24;
+    private static final int REGION_BITS = 20;
+    private static final int REGION_RECORDS = 1 << REGION_BITS;
+    private static final long REGION_SIZE = (long) REGION_RECORDS * RECORD_SIZE;
+    private static final int BLOCK_BITS = 10;
+    private static final int BLOCK_RECORDS = 1 << BLOCK_BITS;
+    private static final int FILTER_WORDS = 64;
+    private static final String GYM_PREFIX = "G\t";
+    private static final String PHONE_PREFIX = "P\t";
+
+    /** Receives one record; {@code visitorId} is a {@link PhoneRegistry} id. */
+    @FunctionalInterface
+    public interface RecordConsumer {
+        void accept(long epochSecond, int gymId, long visitorId);
+    }
+
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final Path names;
+    private final Map<String, Integer> gymIds = new ConcurrentHashMap<>();
+    private final Map<Long, Long> storedPhoneIds = new ConcurrentHashMap<>();
+    private final AtomicLong reserved = new AtomicLong();
+
+    private volatile MappedByteBuffer[] regions = new MappedByteBuffer[0];
+    private volatile String[] gymNames = new String[0];
+    private volatile long[] phoneIds = new long[0];
+    private volatile long count;
+    private volatile boolean broken;
+    // Only written by the commit of the slot at the current count.
+    private volatile BlockIndex blocks = new BlockIndex(16);
+
+    private VisitLog(FileChannel channel, MappedByteBuffer header, Path names) {
+        this.channel = channel;
+        this.header = header;
+        this.names = names;
+    }
+
+    public static VisitLog open(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            boolean created = channel.size() == 0;
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            VisitLog log = new VisitLog(channel, header, new File(file.getPath() + ".names").toPath());
+            if (created) {
+                header.putInt(0, MAGIC);
+                header.putInt(4, VERSION);
+                header.putLong(COUNT_OFFSET, 0);
+            } else if (header.getInt(0) != MAGIC) {
+                throw new IOException("Not a visit log: " + file);
+            } else if (header.getInt(4) != VERSION) {
+                throw new IOException("Unsupported visit log version " + header.getInt(4) + " in " + file);
+            }
+            log.recover();
+            return log;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void recover() throws IOException {
+        if (Files.exists(names)) {
+            for (String line : Files.readAllLines(names, StandardCharsets.UTF_8)) {
+                if (line.startsWith(GYM_PREFIX)) {
+                    addGymName(line.substring(GYM_PREFIX.length()));
+                } else if (line.startsWith(PHONE_PREFIX)) {
+                    addPhone(PhoneRegistry.intern(line.substring(PHONE_PREFIX.length())));
+                }
+            }
+        }
+        long committed = header.getLong(COUNT_OFFSET);
+        ensureCapacity(committed);
+        MappedByteBuffer[] mapped = regions;
+        for (long i = 0; i < committed; i++) {
+            MappedByteBuffer region = mapped[(int) (i >>> REGION_BITS)];
+            int offset = (int) (i & (REGION_RECORDS - 1)) * RECORD_SIZE;
+            index(i, region.getLong(offset), region.getLong(offset + 16));
+        }
+        count = committed;
+        reserved.set(committed);
+    }
+
+    /**
+     * Logs the gym's future visits. The first time the log sees a gym, the visits
+     * it already holds are appended too; attach before the gym takes check-ins,
+     * or visits recorded during the backfill may be missed.
+     */
+    public void attach(Gym gym) {
+        if (!gymIds.containsKey(gym.getName())) {
+            backfill(gym);
+        }
+        gym.attachVisitLog(this);
+    }
+
+    /** Appends every visit the gym holds, whether or not the log has them. */
+    public void backfill(Gym gym) {
+        String gymName = gym.getName();
+        gymId(gymName);
+        gym.forEachVisit(visit -> append(gymName, visit.getDateTime(), visit.getVisitorId()));
+    }
+
+    public void attachAll(Collection<Gym> gyms) {
+        for (Gym gym : gyms) {
+            attach(gym);
+        }
+    }
+
+    public void append(String gymName, LocalDateTime dateTime, long visitorId) {
+        long second = dateTime.toEpochSecond(ZoneOffset.UTC);
+        int gymId = gymId(gymName);
+        long storedId = storedVisitorId(visitorId);
+        long index = reserved.getAndIncrement();
+        try {
+            ensureCapacity(index + 1);
+        } catch (RuntimeException e) {
+            broken = true;
+            throw e;
+        }
+        MappedByteBuffer region = regions[(int) (index >>> REGION_BITS)];
+        int offset = (int) (index & (REGION_RECORDS - 1)) * RECORD_SIZE;
+        region.putLong(offset, second);
+        region.putLong(offset + 8, gymId);
+        region.putLong(offset + 16, storedId);
+        commit(index, second, storedId);
+    }
+
+    // Waits for the earlier slots, so the count never covers an unwritten record.
+    private void commit(long index, long second, long storedId) {
+        for (int spins = 0; count != index; spins++) {
+            if (broken) {
+                throw new IllegalStateException("Visit log cannot grow; an earlier slot was never written");
+            }
+            if (spins < 100) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+        index(index, second, storedId);
+        header.putLong(COUNT_OFFSET, index + 1);
+        count = index + 1;
+    }
+
+    public long size() {
+        return count;
+    }
+
+    public String gymName(int gymId) {
+        return gymNames[gymId];
+    }
+
+    public long countBetween(LocalDateTime from, LocalDateTime to) {
+        long[] counted = new long[1];
+        forEachBetween(from, to, (second, gymId, visitorId) -> counted[0]++);
+        return counted[0];
+    }
+
+    /** Records with {@code from <= time < to}, in log order. */
+    public void forEachBetween(LocalDateTime from, LocalDateTime to, RecordConsumer action) {
+        scanBetween(from.toEpochSecond(ZoneOffset.UTC), to.toEpochSecond(ZoneOffset.UTC), action);
+    }
+
+    /** Number of blocks a range read between the two times has to open. */
+    int blocksReadBetween(LocalDateTime from, LocalDateTime to) {
+        return scanBetween(from.toEpochSecond(ZoneOffset.UTC), to.toEpochSecond(ZoneOffset.UTC),
+                (second, gymId, visitorId) -> { });
+    }
+
+    int blockCount() {
+        return blockCount(count);
+    }
+
+    /** Every record of one visitor, in log order. */
+    public void forEachOfVisitor(String phone, RecordConsumer action) {
+        long id = PhoneRegistry.find(phone);
+        if (id == PhoneRegistry.NONE) {
+            return;
+        }
+        long storedId = id;
+        if (id < 0) {
+            Long stored = storedPhoneIds.get(id);
+            if (stored == null) {
+                return;
+            }
+            storedId = stored;
+        }
+        long end = count;
+        BlockIndex index = blocks;
+        MappedByteBuffer[] mapped = regions;
+        int lastBlock = blockCount(end);
+        for (int block = 0; block < lastBlock; block++) {
+            if (!index.mayContain(block, storedId)) {
+                continue;
+            }
+            long blockEnd = Math.min(end, (long) (block + 1) << BLOCK_BITS);
+            for (long i = (long) block << BLOCK_BITS; i < blockEnd; i++) {
+                MappedByteBuffer region = mapped[(int) (i >>> REGION_BITS)];
+                int offset = (int) (i & (REGION_RECORDS - 1)) * RECORD_SIZE;
+                if (region.getLong(offset + 16) == storedId) {
+                    action.accept(region.getLong(offset), (int) region.getLong(offset + 8), id);
+                }
+            }
+        }
+    }
+
+    public void force() {
+        for (MappedByteBuffer region : regions) {
+            region.force();
+        }
+        header.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    private void emit(MappedByteBuffer[] mapped, long index, long second, RecordConsumer action) {
+        MappedByteBuffer region = mapped[(int) (index >>> REGION_BITS)];
+        int offset = (int) (index & (REGION_RECORDS - 1)) * RECORD_SIZE;
+        long storedId = region.getLong(offset + 16);
+        long visitorId = storedId < 0 ? phoneIds[(int) (-storedId - 1)] : storedId;
+        action.accept(second, (int) region.getLong(offset + 8), visitorId);
+    }
+
+    private static long secondAt(MappedByteBuffer[] mapped, long index) {
+        return mapped[(int) (index >>> REGION_BITS)].getLong((int) (index & (REGION_RECORDS - 1)) * RECORD_SIZE);
+    }
+
+    private static int blockCount(long records) {
+        return (int) ((records + BLOCK_RECORDS - 1) >>> BLOCK_BITS);
+    }
+
+    // Returns the number of blocks opened.
+    private int scanBetween(long fromSecond, long toSecond, RecordConsumer action) {
+        long end = count;
+        BlockIndex index = blocks;
+        MappedByteBuffer[] mapped = regions;
+        int lastBlock = blockCount(end);
+        int opened = 0;
+        for (int block = index.firstReaching(lastBlock, fromSecond); block < lastBlock; block++) {
+            if (index.max[block] < fromSecond || index.min[block] >= toSecond) {
+                continue;
+            }
+            opened++;
+            long blockEnd = Math.min(end, (long) (block + 1) << BLOCK_BITS);
+            for (long i = (long) block << BLOCK_BITS; i < blockEnd; i++) {
+                long second = secondAt(mapped, i);
+                if (second >= fromSecond && second < toSecond) {
+                    emit(mapped, i, second, action);
+                }
+            }
+        }
+        return opened;
+    }
+
+    private void index(long record, long second, long storedId) {
+        int block = (int) (record >>> BLOCK_BITS);
+        BlockIndex index = blocks;
+        if (block >= index.min.length) {
+            index = index.grow(block + 1);
+            blocks = index;
+        }
+        if ((record & (BLOCK_RECORDS - 1)) == 0) {
+            index.min[block] = second;
+            index.max[block] = second;
+            index.reach[block] = block == 0 ? second : Math.max(index.reach[block - 1], second);
+        } else {
+            index.min[block] = Math.min(index.min[block], second);
+            index.max[block] = Math.max(index.max[block], second);
+            index.reach[block] = Math.max(index.reach[block], second);
+        }
+        index.add(block, storedId);
+    }
+
+    private void ensureCapacity(long records) {
+        int needed = (int) ((records + REGION_RECORDS - 1) >>> REGION_BITS);
+        if (needed > regions.length) {
+            growRegions(needed);
+        }
+    }
+
+    private synchronized void growRegions(int needed) {
+        MappedByteBuffer[] mapped = regions;
+        if (needed <= mapped.length) {
+            return;
+        }
+        MappedByteBuffer[] grown = Arrays.copyOf(mapped, needed);
+        try {
+            for (int i = mapped.length; i < needed; i++) {
+                grown[i] = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + i * REGION_SIZE, REGION_SIZE);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        regions = grown;
+    }
+
+    private int gymId(String gymName) {
+        Integer id = gymIds.get(gymName);
+        return id != null ? id : registerGym(gymName);
+    }
+
+    private synchronized int registerGym(String gymName) {
+        Integer id = gymIds.get(gymName);
+        if (id != null) {
+            return id;
+        }
+        if (gymName.indexOf('\n') >= 0 || gymName.indexOf('\r') >= 0) {
+            throw new IllegalArgumentException("Gym name cannot span lines: " + gymName);
+        }
+        writeName(GYM_PREFIX + gymName);
+        return addGymName(gymName);
+    }
+
+    private long storedVisitorId(long visitorId) {
+        if (visitorId > 0) {
+            return visitorId;
+        }
+        if (visitorId == PhoneRegistry.NONE) {
+            throw new NullPointerException("phone");
+        }
+        Long stored = storedPhoneIds.get(visitorId);
+        return stored != null ? stored : registerPhone(visitorId);
+    }
+
+    private synchronized long registerPhone(long visitorId) {
+        Long stored = storedPhoneIds.get(visitorId);
+        if (stored != null) {
+            return stored;
+        }
+        writeName(PHONE_PREFIX + PhoneRegistry.phone(visitorId));
+        return addPhone(visitorId);
+    }
+
+    private int addGymName(String gymName) {
+        String[] known = Arrays.copyOf(gymNames, gymNames.length + 1);
+        known[known.length - 1] = gymName;
+        gymNames = known;
+        gymIds.put(gymName, known.length - 1);
+        return known.length - 1;
+    }
+
+    private long addPhone(long visitorId) {
+        long[] known = Arrays.copyOf(phoneIds, phoneIds.length + 1);
+        known[known.length - 1] = visitorId;
+        long stored = -(long) known.length;
+        phoneIds = known;
+        storedPhoneIds.put(visitorId, stored);
+        return stored;
+    }
+
+    private void writeName(String line) {
+        try {
+            Files.writeString(names, line + "\n", StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.DSYNC);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Per-block time span, running maximum of the spans and a two-bit filter of
+     * visitor ids. Blocks only widen while they fill, so a reader that sees a
+     * partly updated block still reads every record it could match.
+     */
+    private static final class BlockIndex {
+        final long[] min;
+        final long[] max;
+        final long[] reach;
+        final long[] filter;
+
+        BlockIndex(int capacity) {
+            this(new long[capacity], new long[capacity], new long[capacity], new long[capacity * FILTER_WORDS]);
+        }
+
+        private BlockIndex(long[] min, long[] max, long[] reach, long[] filter) {
+            this.min = min;
+            this.max = max;
+            this.reach = reach;
+            this.filter = filter;
+        }
+
+        BlockIndex grow(int needed) {
+            int capacity = Math.max(needed, min.length * 2);
+            return new BlockIndex(Arrays.copyOf(min, capacity), Arrays.copyOf(max, capacity),
+                    Arrays.copyOf(reach, capacity), Arrays.copyOf(filter, capacity * FILTER_WORDS));
+        }
+
+        // First block whose running maximum reaches the second; no earlier block can hold it.
+        int firstReaching(int blockCount, long second) {
+            int low = 0;
+            int high = blockCount;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (reach[mid] < second) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        void add(int block, long storedId) {
+            long hash = storedId * 0x9E3779B97F4A7C15L;
+            setBit(block, (int) (hash >>> 52));
+            setBit(block, (int) (hash >>> 40) & (FILTER_WORDS * 64 - 1));
+        }
+
+        boolean mayContain(int block, long storedId) {
+            long hash = storedId * 0x9E3779B97F4A7C15L;
+            return hasBit(block, (int) (hash >>> 52))
+                    && hasBit(block, (int) (hash >>> 40) & (FILTER_WORDS * 64 - 1));
+        }
+
+        private void setBit(int block, int bit) {
+            filter[block * FILTER_WORDS + (bit >>> 6)] |= 1L << bit;
+        }
+
+        private boolean hasBit(int block, int bit) {
+            return (filter[block * FILTER_WORDS + (bit >>> 6)] & (1L << bit)) != 0;
+        }
+    }
+}
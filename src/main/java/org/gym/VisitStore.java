@@ -0,0 +1,350 @@
+package org.gym;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Visit history split into one segment per day. Each segment keeps epoch-second
+ * timestamps and dictionary ids of visitor phones in parallel primitive arrays,
+ * sorted by time, so a visit costs 12 bytes instead of a Visit object graph.
+ * Timestamps are stored with second precision. Each segment has its own lock, so
+ * concurrent check-ins only contend when they land on the same day; readers copy
+ * a segment's matching range under its lock and are weakly consistent. Segments
+ * carry the {@link ChangeTracker} epoch of their last insert for delta exports.
+ * The segment of the latest insert is remembered, so a check-in for the current
+ * day finds its segment without a map lookup.
+ */
+public class VisitStore implements Iterable<Visit> {
+    private static final long SECONDS_PER_DAY = 86_400;
+
+    private final NavigableMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final PhoneDictionary phones = new PhoneDictionary();
+    private final LongAdder size = new LongAdder();
+    private volatile Segment latest;
+
+    public boolean add(Visit visit) {
+        return add(visit.getDateTime(), visit.getVisitorId());
+    }
+
+    public boolean add(LocalDateTime dateTime, String visitorPhone) {
+        return add(dateTime, PhoneRegistry.intern(Objects.requireNonNull(visitorPhone, "phone")));
+    }
+
+    private boolean add(LocalDateTime dateTime, long visitorId) {
+        long second = toEpochSecond(dateTime);
+        Segment segment = segment(Math.floorDiv(second, SECONDS_PER_DAY));
+        if (!segment.insert(second, phones.intern(visitorId))) {
+            return false;
+        }
+        size.increment();
+        return true;
+    }
+
+    public boolean[] addAll(List<Visit> visits) {
+        BatchEntry[] batch = new BatchEntry[visits.size()];
+        for (int i = 0; i < batch.length; i++) {
+            Visit visit = visits.get(i);
+            batch[i] = new BatchEntry(toEpochSecond(visit.getDateTime()),
+                    phones.intern(visit.getVisitorId()), i);
+        }
+        for (int i = 1; i < batch.length; i++) {
+            if (BatchEntry.ORDER.compare(batch[i - 1], batch[i]) > 0) {
+                Arrays.sort(batch, BatchEntry.ORDER);
+                break;
+            }
+        }
+
+        boolean[] added = new boolean[batch.length];
+        int from = 0;
+        while (from < batch.length) {
+            long day = Math.floorDiv(batch[from].second, SECONDS_PER_DAY);
+            int to = from + 1;
+            while (to < batch.length && Math.floorDiv(batch[to].second, SECONDS_PER_DAY) == day) {
+                to++;
+            }
+            Segment segment = segment(day);
+            size.add(segment.insertAll(batch, from, to, added));
+            from = to;
+        }
+        return added;
+    }
+
+    public boolean contains(Visit visit) {
+        int id = phones.idOf(visit.getVisitorId());
+        if (id < 0) {
+            return false;
+        }
+        long second = toEpochSecond(visit.getDateTime());
+        Segment segment = segments.get(Math.floorDiv(second, SECONDS_PER_DAY));
+        return segment != null && segment.indexOf(second, id) >= 0;
+    }
+
+    public List<Visit> between(LocalDateTime from, LocalDateTime to) {
+        List<Visit> result = new ArrayList<>();
+        forEachBetween(from, to, result::add);
+        return result;
+    }
+
+    public int countBetween(LocalDateTime from, LocalDateTime to) {
+        long fromSecond = toEpochSecond(from);
+        long toSecond = toEpochSecond(to);
+        int count = 0;
+        for (Segment segment : segmentsBetween(fromSecond, toSecond)) {
+            count += segment.count(fromSecond, toSecond);
+        }
+        return count;
+    }
+
+    public void forEachBetween(LocalDateTime from, LocalDateTime to, Consumer<? super Visit> action) {
+        long fromSecond = toEpochSecond(from);
+        long toSecond = toEpochSecond(to);
+        for (Segment segment : segmentsBetween(fromSecond, toSecond)) {
+            for (Visit visit : segment.visits(fromSecond, toSecond)) {
+                action.accept(visit);
+            }
+        }
+    }
+
+    public void forEachChangedSince(long watermark, Consumer<? super Visit> action) {
+        for (Segment segment : segments.values()) {
+            if (segment.modified >= watermark) {
+                for (Visit visit : segment.visits(Long.MIN_VALUE, Long.MAX_VALUE)) {
+                    action.accept(visit);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void forEach(Consumer<? super Visit> action) {
+        for (Segment segment : segments.values()) {
+            for (Visit visit : segment.visits(Long.MIN_VALUE, Long.MAX_VALUE)) {
+                action.accept(visit);
+            }
+        }
+    }
+
+    @Override
+    public Iterator<Visit> iterator() {
+        Iterator<Segment> segmentIterator = segments.values().iterator();
+        return new Iterator<>() {
+            private Visit[] visits = new Visit[0];
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                while (index == visits.length) {
+                    if (!segmentIterator.hasNext()) {
+                        return false;
+                    }
+                    visits = segmentIterator.next().visits(Long.MIN_VALUE, Long.MAX_VALUE);
+                    index = 0;
+                }
+                return true;
+            }
+
+            @Override
+            public Visit next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return visits[index++];
+            }
+        };
+    }
+
+    public List<Visit> toList() {
+        List<Visit> result = new ArrayList<>(size());
+        forEach(result::add);
+        return result;
+    }
+
+    public int size() {
+        return size.intValue();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void clear() {
+        segments.clear();
+        latest = null;
+        phones.clear();
+        size.reset();
+    }
+
+    private Segment segment(long day) {
+        Segment segment = latest;
+        if (segment != null && segment.day == day) {
+            return segment;
+        }
+        // A clear() between the lookup and the publish would leave a detached
+        // segment cached; clear() resets the cache after the map, so re-check.
+        do {
+            segment = segments.computeIfAbsent(day, Segment::new);
+            latest = segment;
+        } while (segments.get(day) != segment);
+        return segment;
+    }
+
+    private Collection<Segment> segmentsBetween(long fromSecond, long toSecond) {
+        if (fromSecond >= toSecond) {
+            return List.of();
+        }
+        return segments.subMap(Math.floorDiv(fromSecond, SECONDS_PER_DAY), true,
+                Math.floorDiv(toSecond - 1, SECONDS_PER_DAY), true).values();
+    }
+
+    private static long toEpochSecond(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static class BatchEntry {
+        static final Comparator<BatchEntry> ORDER = Comparator.<BatchEntry>comparingLong(e -> e.second)
+                .thenComparingInt(e -> e.visitorId);
+
+        final long second;
+        final int visitorId;
+        final int position;
+
+        BatchEntry(long second, int visitorId, int position) {
+            this.second = second;
+            this.visitorId = visitorId;
+            this.position = position;
+        }
+    }
+
+    private class Segment {
+        private final long day;
+        private long[] seconds = new long[16];
+        private int[] visitorIds = new int[16];
+        private int size;
+        private volatile long modified;
+
+        Segment(long day) {
+            this.day = day;
+        }
+
+        synchronized boolean insert(long second, int visitorId) {
+            int index;
+            if (size == 0 || compare(size - 1, second, visitorId) < 0) {
+                index = size;
+            } else {
+                int found = indexOf(second, visitorId);
+                if (found >= 0) {
+                    return false;
+                }
+                index = -found - 1;
+            }
+            if (size == seconds.length) {
+                seconds = Arrays.copyOf(seconds, size * 2);
+                visitorIds = Arrays.copyOf(visitorIds, size * 2);
+            }
+            System.arraycopy(seconds, index, seconds, index + 1, size - index);
+            System.arraycopy(visitorIds, index, visitorIds, index + 1, size - index);
+            seconds[index] = second;
+            visitorIds[index] = visitorId;
+            size++;
+            modified = ChangeTracker.current();
+            return true;
+        }
+
+        synchronized int insertAll(BatchEntry[] batch, int from, int to, boolean[] added) {
+            BatchEntry[] fresh = new BatchEntry[to - from];
+            int count = 0;
+            boolean append = size == 0 || compare(size - 1, batch[from].second, batch[from].visitorId) < 0;
+            for (int i = from; i < to; i++) {
+                BatchEntry entry = batch[i];
+                boolean repeated = count > 0 && fresh[count - 1].second == entry.second
+                        && fresh[count - 1].visitorId == entry.visitorId;
+                if (!repeated && (append || indexOf(entry.second, entry.visitorId) < 0)) {
+                    fresh[count++] = entry;
+                    added[entry.position] = true;
+                }
+            }
+            if (size + count > seconds.length) {
+                int capacity = Math.max(seconds.length * 2, size + count);
+                seconds = Arrays.copyOf(seconds, capacity);
+                visitorIds = Arrays.copyOf(visitorIds, capacity);
+            }
+            int existing = size - 1;
+            int next = count - 1;
+            for (int target = size + count - 1; next >= 0; target--) {
+                BatchEntry entry = fresh[next];
+                if (existing >= 0 && compare(existing, entry.second, entry.visitorId) > 0) {
+                    seconds[target] = seconds[existing];
+                    visitorIds[target] = visitorIds[existing];
+                    existing--;
+                } else {
+                    seconds[target] = entry.second;
+                    visitorIds[target] = entry.visitorId;
+                    next--;
+                }
+            }
+            size += count;
+            if (count > 0) {
+                modified = ChangeTracker.current();
+            }
+            return count;
+        }
+
+        synchronized int indexOf(long second, int visitorId) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = compare(mid, second, visitorId);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        synchronized int count(long fromSecond, long toSecond) {
+            return lowerBound(toSecond) - lowerBound(fromSecond);
+        }
+
+        synchronized Visit[] visits(long fromSecond, long toSecond) {
+            int from = lowerBound(fromSecond);
+            Visit[] result = new Visit[lowerBound(toSecond) - from];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = visitAt(from + i);
+            }
+            return result;
+        }
+
+        private int lowerBound(long second) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (seconds[mid] < second) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private Visit visitAt(int index) {
+            return new Visit(LocalDateTime.ofEpochSecond(seconds[index], 0, ZoneOffset.UTC),
+                    phones.phoneOf(visitorIds[index]));
+        }
+
+        private int compare(int index, long second, int visitorId) {
+            int cmp = Long.compare(seconds[index], second);
+            return cmp != 0 ? cmp : Integer.compare(visitorIds[index], visitorId);
+        }
+    }
+}
@@ -1,80 +1,205 @@
 package org.gym;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
 
+@JsonIgnoreProperties(value = "activeMemberships", allowGetters = true)
 public class Visitor {
-    private String phone;
-    private String name;
+    private final long phoneId;
+    private final String phone;
+    private final String name;
     private List<Membership> memberships = new ArrayList<>();
     private List<LocalDateTime> visits = new ArrayList<>();
-    private Map<String, List<LocalDateTime>> bookedSessions = new HashMap<>();
+    private Map<Long, List<LocalDateTime>> bookedSessions = new HashMap<>();
+
+    @JsonIgnore
+    private final Map<String, LocalDate> activeUntil = new HashMap<>();
+    @JsonIgnore
+    private LocalDate indexedDay;
+    @JsonIgnore
+    private int indexedCount;
+    @JsonIgnore
+    private volatile long modified = ChangeTracker.current();
 
     @JsonCreator
     public Visitor(@JsonProperty("phone") String phone, @JsonProperty("name") String name) {
-        this.phone = phone;
+        this.phoneId = PhoneRegistry.intern(phone);
+        this.phone = PhoneRegistry.phone(phoneId);
         this.name = name;
     }
 
-    public boolean hasActiveMembership(String gymName) {
-        return memberships.stream()
-                .anyMatch(m -> Objects.equals(m.getGymName(), gymName) && m.isActive());
+    public synchronized boolean hasActiveMembership(String gymName) {
+        LocalDate today = TimeSource.today();
+        LocalDate until = activeUntil(today).get(gymName);
+        return until != null && today.isBefore(until);
     }
 
-    public List<Membership> getActiveMemberships() {
+    public synchronized boolean hadActiveMembership(String gymName, LocalDate day) {
+        for (Membership membership : memberships) {
+            if (membership.getGymName().equals(gymName) && membership.isActiveOn(day)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized List<Membership> getActiveMemberships() {
+        LocalDate today = TimeSource.today();
         return memberships.stream()
-                .filter(Membership::isActive)
+                .filter(m -> m.isActiveOn(today))
                 .collect(Collectors.toList());
     }
 
-    public void addMembership(Membership membership) {
+    public synchronized void addMembership(Membership membership) {
         if (memberships.contains(membership)) {
             throw new IllegalArgumentException("This membership already exists.");
         }
         memberships.add(membership);
+        if (indexedDay != null && indexedCount == memberships.size() - 1) {
+            index(membership, indexedDay);
+            indexedCount++;
+        }
+        markModified();
+    }
+
+    private Map<String, LocalDate> activeUntil(LocalDate today) {
+        if (!today.equals(indexedDay) || indexedCount != memberships.size()) {
+            activeUntil.clear();
+            for (Membership membership : memberships) {
+                index(membership, today);
+            }
+            indexedDay = today;
+            indexedCount = memberships.size();
+        }
+        return activeUntil;
+    }
+
+    private void index(Membership membership, LocalDate day) {
+        LocalDate start = membership.getStartDate();
+        LocalDate end = membership.getEndDate();
+        if (start != null && end != null && !start.isAfter(day)) {
+            activeUntil.merge(membership.getGymName(), end, (a, b) -> a.isAfter(b) ? a : b);
+        }
     }
 
-    public void visitGym(Gym gym) {
-        if (!hasActiveMembership(gym.getName())) {
-            throw new IllegalStateException("Visitor does not have an active membership in this gym.");
+    public synchronized Visit visitGym(Gym gym) {
+        long started = System.nanoTime();
+        Visit fullVisit;
+        try {
+            if (!hasActiveMembership(gym.getName())) {
+                throw new IllegalStateException("Visitor does not have an active membership in this gym.");
+            }
+
+            fullVisit = new Visit(this);
+            gym.addVisit(fullVisit);
+            visits.add(fullVisit.getDateTime());
+            markModified();
+        } catch (RuntimeException e) {
+            Metrics.VISIT_GYM.failed();
+            throw e;
         }
+        Metrics.VISIT_GYM.record(started);
+        return fullVisit;
+    }
 
-        Visit fullVisit = new Visit(this);
-        gym.addVisit(fullVisit);
-        visits.add(LocalDateTime.now());
+    synchronized void recordVisits(List<LocalDateTime> dateTimes) {
+        visits.addAll(dateTimes);
+        markModified();
     }
 
-    public void bookSession(Coach coach, LocalDateTime dateTime) {
-        List<LocalDateTime> sessions = bookedSessions.computeIfAbsent(coach.getPhone(), k -> new ArrayList<>());
-        if (sessions.contains(dateTime)) {
+    synchronized void absorb(Visitor other) {
+        List<Membership> otherMemberships;
+        List<LocalDateTime> otherVisits;
+        Map<Long, List<LocalDateTime>> otherSessions = new HashMap<>();
+        synchronized (other) {
+            otherMemberships = new ArrayList<>(other.memberships);
+            otherVisits = new ArrayList<>(other.visits);
+            other.bookedSessions.forEach((coach, times) -> otherSessions.put(coach, new ArrayList<>(times)));
+        }
+        for (Membership membership : otherMemberships) {
+            if (!memberships.contains(membership)) {
+                memberships.add(membership);
+            }
+        }
+        Set<LocalDateTime> known = new HashSet<>(visits);
+        boolean visitsAdded = false;
+        for (LocalDateTime visit : otherVisits) {
+            if (known.add(visit)) {
+                visits.add(visit);
+                visitsAdded = true;
+            }
+        }
+        if (visitsAdded) {
+            Collections.sort(visits);
+        }
+        for (Map.Entry<Long, List<LocalDateTime>> entry : otherSessions.entrySet()) {
+            List<LocalDateTime> sessions = bookedSessions.computeIfAbsent(entry.getKey(), k -> new ArrayList<>());
+            for (LocalDateTime dateTime : entry.getValue()) {
+                if (!sessions.contains(dateTime)) {
+                    sessions.add(dateTime);
+                }
+            }
+        }
+        markModified();
+    }
+
+    public synchronized void bookSession(Coach coach, LocalDateTime dateTime) {
+        long started = System.nanoTime();
+        try {
+            checkCanBook(coach, dateTime);
+            coach.scheduleSession(dateTime, Coach.DEFAULT_SESSION_DURATION, phoneId);
+            bookedSessions.computeIfAbsent(coach.getPhoneId(), k -> new ArrayList<>()).add(dateTime);
+            markModified();
+        } catch (RuntimeException e) {
+            Metrics.BOOK_SESSION.failed();
+            throw e;
+        }
+        Metrics.BOOK_SESSION.record(started);
+    }
+
+    synchronized void checkCanBook(Coach coach, LocalDateTime dateTime) {
+        List<LocalDateTime> sessions = bookedSessions.get(coach.getPhoneId());
+        if (sessions != null && sessions.contains(dateTime)) {
             throw new IllegalArgumentException("Coach " + coach.getName()
                     + " is already booked at " + dateTime + " by this visitor.");
         }
+        coach.checkAvailable(dateTime, dateTime.plus(Coach.DEFAULT_SESSION_DURATION));
+    }
 
-        coach.scheduleSession(dateTime, this.getPhone());
-        sessions.add(dateTime);
+    synchronized void checkCanRemoveSession(Coach coach, LocalDateTime dateTime) {
+        List<LocalDateTime> sessions = bookedSessions.get(coach.getPhoneId());
+        if (sessions != null && sessions.isEmpty()) {
+            throw new IllegalArgumentException("This visitor has no sessions with coach " + coach.getPhone());
+        }
+        if (sessions != null && !coach.hasSession(dateTime)) {
+            throw new IllegalArgumentException("There is no training session at this time.");
+        }
     }
 
-    public void removeSession(Coach coach, LocalDateTime dateTime) {
-        List<LocalDateTime> sessions = bookedSessions.get(coach.getPhone());
+    public synchronized void removeSession(Coach coach, LocalDateTime dateTime) {
+        List<LocalDateTime> sessions = bookedSessions.get(coach.getPhoneId());
         if (sessions != null) {
             if (sessions.isEmpty()) {
                 throw new IllegalArgumentException("This visitor has no sessions with coach " + coach.getPhone());
             }
             sessions.remove(dateTime);
             coach.cancelSession(dateTime);
+            markModified();
         }
     }
 
-    public void showSessions() {
-        System.out.println("Training Sessions for " + phone + ":");
-        for (Map.Entry<String, List<LocalDateTime>> entry : bookedSessions.entrySet()) {
-            String cPhone = entry.getKey();
+    public synchronized void showSessions() {
+        System.out.println("Training Sessions for " + getPhone() + ":");
+        for (Map.Entry<Long, List<LocalDateTime>> entry : bookedSessions.entrySet()) {
+            String cPhone = PhoneRegistry.phone(entry.getKey());
             System.out.println("- coachPhone=" + cPhone + ":");
             for (LocalDateTime dt : entry.getValue()) {
                 System.out.println("  * " + dt);
@@ -82,54 +207,100 @@ public class Visitor {
         }
     }
 
-    public void showVisitHistory() {
-        System.out.println("Visit history of " + phone + ":");
+    public synchronized void showVisitHistory() {
+        System.out.println("Visit history of " + getPhone() + ":");
         for (LocalDateTime visit : visits) {
             System.out.println("- " + visit);
         }
     }
 
-    public boolean hasActiveMembership() {
-        return memberships.stream()
-                .anyMatch(Membership::isActive);
+    public synchronized boolean hasActiveMembership() {
+        LocalDate today = TimeSource.today();
+        for (LocalDate until : activeUntil(today).values()) {
+            if (today.isBefore(until)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void markModified() {
+        modified = ChangeTracker.current();
+    }
+
+    @JsonIgnore
+    public long getModified() {
+        return modified;
     }
 
     public String getPhone() {
         return phone;
     }
 
+    @JsonIgnore
+    public long getPhoneId() {
+        return phoneId;
+    }
+
     public String getName() {
         return name;
     }
 
-    public List<Membership> getMemberships() {
-        return memberships;
+    public synchronized List<Membership> getMemberships() {
+        return List.copyOf(memberships);
+    }
+
+    @JsonProperty("memberships")
+    synchronized void setMemberships(List<Membership> list) {
+        memberships.clear();
+        indexedDay = null;
+        for (Membership membership : list) {
+            addMembership(membership);
+        }
+    }
+
+    public synchronized List<LocalDateTime> getVisits() {
+        return List.copyOf(visits);
+    }
+
+    @JsonProperty("visits")
+    synchronized void setVisits(List<LocalDateTime> list) {
+        visits.clear();
+        recordVisits(list);
     }
 
-    public List<LocalDateTime> getVisits() {
-        return visits;
+    public synchronized Map<String, List<LocalDateTime>> getBookedSessions() {
+        Map<String, List<LocalDateTime>> byPhone = new LinkedHashMap<>();
+        for (Map.Entry<Long, List<LocalDateTime>> entry : bookedSessions.entrySet()) {
+            byPhone.put(PhoneRegistry.phone(entry.getKey()), Collections.unmodifiableList(entry.getValue()));
+        }
+        return Collections.unmodifiableMap(byPhone);
     }
 
-    public Map<String, List<LocalDateTime>> getBookedSessions() {
-        return bookedSessions;
+    @JsonProperty("bookedSessions")
+    public synchronized void setBookedSessions(Map<String, List<LocalDateTime>> sessions) {
+        bookedSessions.clear();
+        for (Map.Entry<String, List<LocalDateTime>> entry : sessions.entrySet()) {
+            bookedSessions.put(PhoneRegistry.intern(entry.getKey()), new ArrayList<>(entry.getValue()));
+        }
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(phone);
+        return Long.hashCode(phoneId);
     }
 
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof Visitor that)) return false;
-        return this.hashCode() == that.hashCode();
+        return phoneId == that.phoneId;
     }
 
     @Override
     public String toString() {
         return "Visitor {hash=" + this.hashCode()
-                + ", name='" + phone + '\''
+                + ", name='" + getPhone() + '\''
                 + ", memberships=" + memberships.size()
                 + ", visits=" + visits.size()
                 + ", bookedSessions=" + bookedSessions.values().stream().mapToInt(List::size).sum()
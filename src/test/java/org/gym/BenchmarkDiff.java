@@ -0,0 +1,106 @@
+package org.gym;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares two JMH JSON result files, such as those written by
+ * {@link BenchmarkSuite} for two builds. Benchmarks are matched by name and
+ * parameters. A benchmark regresses when its score is worse than the baseline by
+ * more than the threshold: higher time for time modes, lower for throughput.
+ * Where both runs recorded {@code gc.alloc.rate.norm} (the suite attaches the GC
+ * profiler), bytes per operation are compared too, and more allocation beyond
+ * the threshold (or any allocation where there was none) is also a regression.
+ * The exit status is 1 if anything regressed.
+ *
+ * <pre>
+ * java -cp ... org.gym.BenchmarkDiff baseline.json current.json [thresholdPercent]
+ * </pre>
+ */
+public class BenchmarkDiff {
+    private static final double DEFAULT_THRESHOLD_PERCENT = 10;
+    // Below this the GC profiler's per-operation figure is noise.
+    private static final double MIN_BYTES = 1;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkDiff baseline.json current.json [thresholdPercent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD_PERCENT;
+        Map<String, JsonNode> baseline = read(new File(args[0]));
+        Map<String, JsonNode> current = read(new File(args[1]));
+
+        int regressions = 0;
+        System.out.printf("%-70s %14s %14s %9s%n", "Benchmark", "baseline", "current", "change");
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            JsonNode after = entry.getValue();
+            String unit = after.path("primaryMetric").path("scoreUnit").asText();
+            double now = after.path("primaryMetric").path("score").asDouble();
+            if (before == null) {
+                System.out.printf("%-70s %14s %14.3f %9s  new (%s)%n", entry.getKey(), "-", now, "", unit);
+                continue;
+            }
+            double was = before.path("primaryMetric").path("score").asDouble();
+            double change = was == 0 ? 0 : (now - was) / was * 100;
+            boolean higherIsBetter = "thrpt".equals(after.path("mode").asText());
+            boolean regressed = higherIsBetter ? change < -threshold : change > threshold;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-70s %14.3f %14.3f %+8.1f%%  %s%s%n", entry.getKey(), was, now, change, unit,
+                    regressed ? "  REGRESSION" : "");
+
+            JsonNode allocatedBefore = allocation(before);
+            JsonNode allocatedAfter = allocation(after);
+            if (allocatedBefore != null && allocatedAfter != null) {
+                double bytesWas = allocatedBefore.path("score").asDouble();
+                double bytesNow = allocatedAfter.path("score").asDouble();
+                double bytesChange = bytesWas < MIN_BYTES ? 0 : (bytesNow - bytesWas) / bytesWas * 100;
+                boolean allocates = bytesWas < MIN_BYTES ? bytesNow >= MIN_BYTES : bytesChange > threshold;
+                if (allocates) {
+                    regressions++;
+                }
+                System.out.printf("%-70s %14.1f %14.1f %+8.1f%%  %s%s%n", "  allocated", bytesWas, bytesNow,
+                        bytesChange, "B/op", allocates ? "  REGRESSION" : "");
+            }
+        }
+        for (String name : baseline.keySet()) {
+            if (!current.containsKey(name)) {
+                System.out.printf("%-70s  missing from current results%n", name);
+            }
+        }
+        System.out.printf("%d regression(s) beyond %.1f%%%n", regressions, threshold);
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static JsonNode allocation(JsonNode result) {
+        JsonNode secondary = result.path("secondaryMetrics");
+        JsonNode allocated = secondary.get("gc.alloc.rate.norm");
+        return allocated != null ? allocated : secondary.get("\u00b7gc.alloc.rate.norm");
+    }
+
+    private static Map<String, JsonNode> read(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText()
+                    .replaceFirst("^org\\.gym\\.", ""));
+            Iterator<Map.Entry<String, JsonNode>> params = result.path("params").fields();
+            while (params.hasNext()) {
+                Map.Entry<String, JsonNode> param = params.next();
+                key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+            }
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,65 @@
+package org.gym;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the domain benchmarks and writes JMH JSON results, one file per build, to
+ * compare with {@link BenchmarkDiff}. The GC profiler is attached, so results
+ * also carry bytes allocated per operation. Benchmark sizes are JMH parameters
+ * and can be overridden; {@code --quick} trades accuracy for a short smoke run.
+ *
+ * <pre>
+ * java -cp ... org.gym.BenchmarkSuite [--quick] [--out target/jmh-result.json]
+ *         [--param visitors=1000,100000] [benchmark regex...]
+ * </pre>
+ */
+public class BenchmarkSuite {
+    static final List<String> DEFAULT_BENCHMARKS = List.of(
+            DomainBenchmark.class.getSimpleName(),
+            GymAddVisitBenchmark.class.getSimpleName(),
+            DataIOBenchmark.class.getSimpleName(),
+            SlotSearchBenchmark.class.getSimpleName(),
+            MemberSearchBenchmark.class.getSimpleName(),
+            EntityCollectionBenchmark.class.getSimpleName(),
+            CheckInAllocationBenchmark.class.getSimpleName());
+
+    public static void main(String[] args) throws RunnerException {
+        String out = "target/jmh-result.json";
+        boolean quick = false;
+        List<String> includes = new ArrayList<>();
+        ChainedOptionsBuilder options = new OptionsBuilder();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--quick" -> quick = true;
+                case "--out" -> out = args[++i];
+                case "--param" -> {
+                    String[] param = args[++i].split("=", 2);
+                    options.param(param[0], param[1].split(","));
+                }
+                default -> includes.add(args[i]);
+            }
+        }
+        for (String include : includes.isEmpty() ? DEFAULT_BENCHMARKS : includes) {
+            options.include(include);
+        }
+        if (quick) {
+            options.warmupIterations(1)
+                    .warmupTime(TimeValue.milliseconds(500))
+                    .measurementIterations(2)
+                    .measurementTime(TimeValue.milliseconds(500));
+        }
+        options.addProfiler(GCProfiler.class);
+        options.resultFormat(ResultFormatType.JSON).result(out);
+        new Runner(options.build()).run();
+        System.out.println("Results written to " + out);
+    }
+}
@@ -0,0 +1,126 @@
+package org.gym;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryDataIOTest {
+
+    @Test
+    void testVisitsRoundTrip(@TempDir File tempDir) throws IOException {
+        File file = new File(tempDir, "visits.bin");
+        Visit v1 = new Visit(LocalDateTime.of(2025, 4, 10, 9, 0, 0, 500), "+3801111111");
+        Visit v2 = new Visit(LocalDateTime.of(1969, 12, 31, 23, 59), "+3801111111");
+
+        BinaryDataIO<Visit> io = new BinaryDataIO<>(Visit.class);
+        io.exportData(List.of(v1, v2), file);
+
+        List<Visit> imported = io.importData(file);
+        assertEquals(2, imported.size());
+        assertEquals(v1.getDateTime(), imported.get(0).getDateTime());
+        assertEquals(v2.getDateTime(), imported.get(1).getDateTime());
+        assertEquals("+3801111111", imported.get(1).getVisitorPhone());
+    }
+
+    @Test
+    void testVisitorsRoundTripWithSorting(@TempDir File tempDir) throws IOException {
+        File file = new File(tempDir, "visitors.bin");
+        Gym gym = new Gym("GymName", "Address");
+        Coach coach = new Coach("+380777777777", "Trainer", "Yoga");
+        Visitor zed = new Visitor("+3801111111", "Zed");
+        Visitor amy = new Visitor("+380222222222", "Amy");
+        new Membership(zed, gym, "3 months", LocalDate.of(2025, 4, 1));
+        zed.recordVisits(List.of(LocalDateTime.of(2025, 4, 2, 8, 30)));
+        LocalDateTime session = LocalDateTime.of(2025, 4, 3, 18, 0);
+        zed.bookSession(coach, session);
+
+        BinaryDataIO<Visitor> io = new BinaryDataIO<>(Visitor.class);
+        io.exportData(new ArrayList<>(List.of(zed, amy)), file, Comparator.comparing(Visitor::getName));
+
+        List<Visitor> imported = io.importData(file);
+        assertEquals("Amy", imported.get(0).getName());
+        Visitor got = imported.get(1);
+        assertEquals("+3801111111", got.getPhone());
+        Membership membership = got.getMemberships().get(0);
+        assertEquals(MembershipDuration.THREE_MONTHS, membership.getDuration());
+        assertEquals(LocalDate.of(2025, 6, 30), membership.getEndDate());
+        assertEquals("GymName", membership.getGymName());
+        assertEquals(List.of(LocalDateTime.of(2025, 4, 2, 8, 30)), got.getVisits());
+        assertEquals(List.of(session), got.getBookedSessions().get("+380777777777"));
+    }
+
+    @Test
+    void testGymsAndCoachesRoundTrip(@TempDir File tempDir) throws IOException {
+        Gym gym = new Gym("FitGym", "Address1");
+        gym.addVisitor(new Visitor("+3801111111", "Alice"));
+        Coach coach = new Coach("+380222222222", "Bob", "Crossfit");
+        coach.scheduleSession(LocalDateTime.of(2025, 5, 1, 10, 0), "+3801111111");
+        gym.addCoach(coach);
+        gym.addVisit(new Visit(LocalDateTime.of(2025, 4, 10, 9, 0), "+3801111111"));
+
+        File gymFile = new File(tempDir, "gyms.bin");
+        new BinaryDataIO<>(Gym.class).exportData(List.of(gym), gymFile);
+        Gym gotGym = new BinaryDataIO<>(Gym.class).importData(gymFile).get(0);
+        assertEquals("Address1", gotGym.getAddress());
+        assertEquals("Alice", gotGym.getAllVisitors().get("+3801111111").getName());
+        assertEquals("Bob", gotGym.getAllCoaches().get("+380222222222").getName());
+        assertEquals(gym.getVisitHistory(), gotGym.getVisitHistory());
+
+        File coachFile = new File(tempDir, "coaches.bin");
+        new BinaryDataIO<>(Coach.class).exportData(List.of(coach), coachFile);
+        Coach gotCoach = new BinaryDataIO<>(Coach.class).importData(coachFile).get(0);
+        assertEquals("Crossfit", gotCoach.getSpecialization());
+        assertEquals(coach.getTrainingSchedule(), gotCoach.getTrainingSchedule());
+    }
+
+    @Test
+    void testImportRejectsTruncatedOrCorruptFile(@TempDir File tempDir) throws IOException {
+        File file = new File(tempDir, "gyms.bin");
+        Gym gym = new Gym("FitGym", "Address1");
+        gym.addVisitor(new Visitor("+3801111111", "Alice"));
+        gym.addVisit(new Visit(LocalDateTime.of(2025, 4, 10, 9, 0), "+3801111111"));
+        BinaryDataIO<Gym> io = new BinaryDataIO<>(Gym.class);
+        io.exportData(List.of(gym), file);
+        byte[] bytes = Files.readAllBytes(file.toPath());
+
+        File broken = new File(tempDir, "broken.bin");
+        for (int length = 8; length < bytes.length; length++) {
+            Files.write(broken.toPath(), Arrays.copyOf(bytes, length));
+            IOException e = assertThrows(IOException.class, () -> io.importData(broken));
+            assertTrue(e.getMessage().contains(broken.toString()), e.getMessage());
+        }
+
+        byte[] corrupt = bytes.clone();
+        Arrays.fill(corrupt, 8, corrupt.length - 16, (byte) 0xFF);
+        Files.write(broken.toPath(), corrupt);
+        IOException e = assertThrows(IOException.class, () -> io.importData(broken));
+        assertTrue(e.getMessage().contains(broken.toString()), e.getMessage());
+    }
+
+    @Test
+    void testImportRejectsWrongEntityType(@TempDir File tempDir) throws IOException {
+        File file = new File(tempDir, "visits.bin");
+        new BinaryDataIO<>(Visit.class).exportData(List.of(), file);
+
+        assertThrows(IOException.class, () -> new BinaryDataIO<>(Coach.class).importData(file));
+    }
+
+    @Test
+    void testImportRejectsJsonFile(@TempDir File tempDir) throws IOException {
+        File file = new File(tempDir, "visits.json");
+        Files.writeString(file.toPath(), "[ { \"visitorPhone\" : \"+3801111111\" } ]");
+
+        assertThrows(IOException.class, () -> new BinaryDataIO<>(Visit.class).importData(file));
+    }
+}
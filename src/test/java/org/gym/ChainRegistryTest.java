@@ -0,0 +1,115 @@
+package org.gym;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChainRegistryTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 5, 12, 10, 0);
+
+    private ChainRegistry chain;
+    private Gym center;
+    private Gym north;
+    private Gym south;
+
+    @BeforeEach
+    void setUp() {
+        TimeSource.setClock(Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneId.of("UTC")));
+        chain = new ChainRegistry();
+        center = new Gym("Center", "Main St");
+        north = new Gym("North", "North St");
+        south = new Gym("South", "South St");
+        chain.joinAll(List.of(center, north, south));
+    }
+
+    @AfterEach
+    void tearDown() {
+        TimeSource.setClock(Clock.systemDefaultZone());
+    }
+
+    @Test
+    void testOneVisitorPerPhoneAcrossGyms() {
+        Visitor anna = new Visitor("+380501111111", "Anna");
+        assertSame(anna, center.addVisitor(anna));
+        Visitor duplicate = new Visitor("+380 50 111 11 11", "Anna K.");
+        assertSame(anna, north.addVisitor(duplicate));
+
+        assertSame(anna, center.getAllVisitors().get("+380501111111"));
+        assertSame(anna, north.getAllVisitors().get("+380501111111"));
+        assertSame(anna, chain.getVisitor("+380501111111"));
+        assertEquals(Set.of("Center", "North"), chain.gymsOf("+380501111111"));
+
+        new Membership(anna, north, "1 month", LocalDate.of(2025, 5, 1));
+        anna.visitGym(north);
+        assertEquals(1, center.getAllVisitors().get("+380501111111").getVisits().size());
+        assertEquals(List.of(anna), chain.activeMembers());
+        assertEquals(1, chain.getVisitors().size());
+
+        north.removeVisitor("+380501111111");
+        assertEquals(Set.of("Center"), chain.gymsOf("+380501111111"));
+        center.removeVisitor("+380501111111");
+        assertNull(chain.getVisitor("+380501111111"));
+        assertEquals(0, chain.size());
+    }
+
+    @Test
+    void testJoiningMergesExistingDuplicates() {
+        Gym east = new Gym("East", "East St");
+        Gym west = new Gym("West", "West St");
+        Visitor atEast = new Visitor("+380502222222", "Bohdan");
+        Visitor atWest = new Visitor("+380502222222", "Bohdan");
+        east.addVisitor(atEast);
+        west.addVisitor(atWest);
+        new Membership(atEast, east, "1 month", LocalDate.of(2025, 5, 1));
+        new Membership(atWest, west, "1 year", LocalDate.of(2025, 5, 1));
+        atWest.visitGym(west);
+
+        chain.joinAll(List.of(east, west));
+
+        Visitor canonical = chain.getVisitor("+380502222222");
+        assertSame(canonical, east.getAllVisitors().get("+380502222222"));
+        assertSame(canonical, west.getAllVisitors().get("+380502222222"));
+        assertEquals(2, canonical.getMemberships().size());
+        assertEquals(1, canonical.getVisits().size());
+        assertEquals(List.of(canonical), chain.seenAtClubs(1, NOW.minusDays(7)));
+        assertThrows(IllegalStateException.class, () -> new ChainRegistry().join(east));
+    }
+
+    @Test
+    void testVisitorsSeenAtSeveralClubsThisWeek() {
+        List<Gym> clubs = List.of(center, north, south);
+        for (int i = 0; i < 3; i++) {
+            Visitor visitor = new Visitor("+38050333333" + i, "Visitor " + i);
+            for (Gym gym : clubs) {
+                gym.addVisitor(visitor);
+            }
+        }
+        center.addVisit(new Visit(NOW.minusDays(1), "+380503333330"));
+        north.addVisit(new Visit(NOW.minusDays(2), "+380503333330"));
+        south.addVisit(new Visit(NOW.minusDays(3), "+380503333330"));
+        center.addVisit(new Visit(NOW.minusDays(1), "+380503333331"));
+        north.addVisit(new Visit(NOW.minusDays(1), "+380503333331"));
+        south.addVisit(new Visit(NOW.minusDays(20), "+380503333331"));
+        new Membership(chain.getVisitor("+380503333332"), center, "1 month", LocalDate.of(2025, 5, 1));
+        assertEquals(1, center.recordVisits(List.of(new Visit(NOW.minusHours(1), "+380503333332"))).getAccepted());
+
+        LocalDateTime weekAgo = NOW.minusDays(7);
+        assertEquals(List.of("+380503333330"),
+                chain.seenAtClubs(3, weekAgo).stream().map(Visitor::getPhone).toList());
+        assertEquals(Set.of("+380503333330", "+380503333331"),
+                Set.copyOf(chain.seenAtClubs(2, weekAgo).stream().map(Visitor::getPhone).toList()));
+        assertEquals(2, chain.seenAtClubs(3, NOW.minusDays(30)).size());
+        assertEquals(3, chain.seenAtClubs(1, weekAgo).size());
+    }
+}
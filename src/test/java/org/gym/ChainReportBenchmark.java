@@ -0,0 +1,86 @@
+package org.gym;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms3g", "-Xmx3g"})
+public class ChainReportBenchmark {
+
+    private static final LocalDate AS_OF = LocalDate.of(2025, 7, 1);
+    private static final String[] DURATIONS = {"1 month", "3 months", "6 months", "1 year"};
+    private static final int GYMS = 10;
+    private static final int COACHES_PER_GYM = 50;
+
+    @Param({"1000000"})
+    private int members;
+
+    @Param({"1", "0"})
+    private int parallelism;
+
+    private List<Gym> gyms;
+    private ForkJoinPool pool;
+    private ChainReports reports;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        gyms = new ArrayList<>(GYMS);
+        int perGym = members / GYMS;
+        for (int g = 0; g < GYMS; g++) {
+            Gym gym = new Gym("Gym " + g, "Street " + g, perGym, COACHES_PER_GYM);
+            for (int i = 0; i < perGym; i++) {
+                int n = g * perGym + i;
+                Visitor visitor = new Visitor("+38050" + String.format("%07d", n), "Visitor " + n);
+                gym.addVisitor(visitor);
+                new Membership(visitor, gym, DURATIONS[n % DURATIONS.length], AS_OF.minusDays(n % 400));
+                if (n % 3 == 0) {
+                    new Membership(visitor, gym, "1 month", AS_OF.minusDays(n % 400 + 31));
+                }
+            }
+            for (int c = 0; c < COACHES_PER_GYM; c++) {
+                Coach coach = new Coach("+38067" + String.format("%07d", g * COACHES_PER_GYM + c), "Coach " + c, "Yoga");
+                LocalDateTime start = AS_OF.minusDays(30).atTime(8 + c % 4, 0);
+                for (int day = 0; day < 30; day++) {
+                    coach.scheduleSession(start.plusDays(day), "+380500000000");
+                }
+                gym.addCoach(coach);
+            }
+            gyms.add(gym);
+        }
+        pool = parallelism == 0 ? ForkJoinPool.commonPool() : new ForkJoinPool(parallelism);
+        reports = new ChainReports(pool, 12);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (pool != ForkJoinPool.commonPool()) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public ChainReport chainReport() {
+        return reports.generate(gyms, AS_OF, 30);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ChainReportBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,91 @@
+package org.gym;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChainReportsTest {
+
+    private static final LocalDate AS_OF = LocalDate.of(2025, 7, 1);
+
+    @Test
+    void testActiveMembershipsAndChurnAcrossShards() {
+        Gym center = new Gym("Center", "Main St");
+        Gym north = new Gym("North", "North St");
+        ChainRegistry chain = new ChainRegistry();
+        chain.joinAll(List.of(center, north));
+        for (int i = 0; i < 20_000; i++) {
+            Visitor visitor = new Visitor("+38050" + String.format("%07d", i), "Visitor " + i);
+            center.addVisitor(visitor);
+            new Membership(visitor, center, i % 2 == 0 ? "1 month" : "1 year", AS_OF.minusDays(10));
+            if (i % 4 == 0) {
+                north.addVisitor(visitor);
+                new Membership(visitor, north, "1 month", AS_OF.minusDays(40));
+            }
+            if (i % 8 == 0) {
+                new Membership(visitor, north, "3 months", AS_OF.minusDays(10));
+            }
+        }
+
+        ChainReport report = new ChainReports(new ForkJoinPool(4), 12).generate(List.of(center, north), AS_OF, 30);
+
+        assertEquals(10_000, report.getActiveByDuration().get(MembershipDuration.ONE_MONTH));
+        assertEquals(10_000, report.getActiveByDuration().get(MembershipDuration.YEAR));
+        assertEquals(2_500, report.getActiveByDuration().get(MembershipDuration.THREE_MONTHS));
+        assertEquals(22_500, report.getActiveMemberships());
+        assertEquals(5_000, report.getEndedMemberships());
+        assertEquals(2_500, report.getChurnedMemberships());
+        assertEquals(0.5, report.getChurnRate());
+        assertEquals(Map.of("North", 2_500L), report.getChurnByGym());
+    }
+
+    @Test
+    void testCoachUtilizationOverTheWindow() {
+        Gym gym = new Gym("Center", "Main St");
+        Coach busy = new Coach("+380670000000", "Oleh", "Yoga");
+        Coach idle = new Coach("+380670000001", "Iryna", "Boxing");
+        gym.addCoach(busy);
+        gym.addCoach(idle);
+        LocalDateTime start = AS_OF.minusDays(10).atTime(9, 0);
+        for (int day = 0; day < 10; day++) {
+            for (int hour = 0; hour < 6; hour++) {
+                busy.scheduleSession(start.plusDays(day).plusHours(hour), "+3805000000" + hour);
+            }
+        }
+        busy.scheduleSession(AS_OF.atTime(9, 0), "+380500000000");
+        Gym annex = new Gym("Annex", "Side St");
+        annex.addCoach(busy);
+
+        ChainReport report = new ChainReports(ForkJoinPool.commonPool(), 12).generate(List.of(gym), AS_OF, 10);
+        ChainReport chainWide = new ChainReports(ForkJoinPool.commonPool(), 12)
+                .generate(List.of(gym, annex), AS_OF, 10);
+
+        assertEquals(0.5, report.getCoachUtilization().get("+380670000000"), 1e-9);
+        assertEquals(0.5, chainWide.getCoachUtilization().get("+380670000000"), 1e-9);
+        assertEquals(0.0, report.getCoachUtilization().get("+380670000001"));
+        assertThrows(IllegalArgumentException.class, () -> new ChainReports().generate(List.of(gym), AS_OF, 0));
+    }
+
+    @Test
+    void testEndedMembershipsUseTheSameHalfOpenWindow() {
+        Gym gym = new Gym("Center", "Main St");
+        LocalDate windowStart = AS_OF.minusDays(30);
+        Visitor lastDayInWindow = new Visitor("+380501000001", "Anna");
+        Visitor lastDayBeforeWindow = new Visitor("+380501000002", "Petro");
+        gym.addVisitor(lastDayInWindow);
+        gym.addVisitor(lastDayBeforeWindow);
+        new Membership(lastDayInWindow, gym, "1 month", AS_OF.minusMonths(1));
+        new Membership(lastDayBeforeWindow, gym, "1 month", windowStart.minusMonths(1));
+
+        ChainReport report = new ChainReports(ForkJoinPool.commonPool(), 12).generate(List.of(gym), AS_OF, 30);
+
+        assertEquals(0, report.getActiveMemberships());
+        assertEquals(1, report.getEndedMemberships());
+    }
+}
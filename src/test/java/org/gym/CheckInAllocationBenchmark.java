@@ -0,0 +1,92 @@
+package org.gym;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Clock;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap allocated by one accepted {@code Visitor.visitGym}, on a standalone gym
+ * and on one that belongs to a chain. Run through {@link #main} the GC profiler is attached and the run
+ * fails when a check-in allocates more than {@link #MAX_BYTES_PER_CHECK_IN}.
+ * The stored record itself is 72 bytes (the Visit, its LocalDateTime and
+ * LocalTime); the rest of the budget is the amortized growth of the visitor's
+ * visit list and of the day segment, which here holds millions of visits.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CheckInAllocationBenchmark {
+
+    static final double MAX_BYTES_PER_CHECK_IN = 160;
+
+    private static final int VISITORS = 1024;
+
+    @Param({"false", "true"})
+    private boolean chained;
+
+    private Gym gym;
+    private Visitor[] members;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        TimeSource.setClock(new DomainBenchmark.TickingClock(
+                SyntheticChain.START_DAY.atTime(6, 0).toInstant(ZoneOffset.UTC)));
+        gym = SyntheticChain.generate(1, VISITORS, 0, 42).get(0);
+        if (chained) {
+            new ChainRegistry().join(gym);
+        }
+        members = gym.getAllVisitors().values().toArray(new Visitor[0]);
+        next = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void restoreClock() {
+        TimeSource.setClock(Clock.systemDefaultZone());
+    }
+
+    @Benchmark
+    public Visit visitGym() {
+        Visitor member = members[next];
+        next = next + 1 == members.length ? 0 : next + 1;
+        return member.visitGym(gym);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(CheckInAllocationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+        boolean exceeded = false;
+        for (RunResult result : results) {
+            Result<?> allocated = result.getSecondaryResults().get("·gc.alloc.rate.norm");
+            if (allocated == null) {
+                allocated = result.getSecondaryResults().get("gc.alloc.rate.norm");
+            }
+            if (allocated == null) {
+                throw new IllegalStateException("GC profiler reported no allocation rate");
+            }
+            System.out.printf("%s chained=%s: %.1f bytes per check-in (limit %.0f)%n",
+                    result.getParams().getBenchmark(), result.getParams().getParam("chained"),
+                    allocated.getScore(), MAX_BYTES_PER_CHECK_IN);
+            exceeded |= allocated.getScore() > MAX_BYTES_PER_CHECK_IN;
+        }
+        if (exceeded) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package org.gym;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrencyStressTest {
+
+    private static final int THREADS = 8;
+    private static final LocalDateTime START = LocalDateTime.of(2025, 4, 10, 6, 0);
+
+    private static void runConcurrently(int tasks, IntConsumerTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch go = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < tasks; t++) {
+                int id = t;
+                futures.add(executor.submit(() -> {
+                    go.await();
+                    task.run(id);
+                    return null;
+                }));
+            }
+            go.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private interface IntConsumerTask {
+        void run(int id) throws Exception;
+    }
+
+    @Test
+    void testConcurrentVisitAppendsAreAllRecorded() throws Exception {
+        Gym gym = new Gym("Busy Gym", "Main Street");
+        int perThread = 5_000;
+
+        runConcurrently(THREADS, t -> {
+            for (int i = 0; i < perThread; i++) {
+                gym.addVisit(new Visit(START.plusSeconds(i * 7L), "+38050000000" + t));
+            }
+        });
+
+        assertEquals(THREADS * perThread, gym.getVisitCount());
+        List<Visit> history = gym.getVisitHistory();
+        for (int i = 1; i < history.size(); i++) {
+            assertFalse(history.get(i).getDateTime().isBefore(history.get(i - 1).getDateTime()));
+        }
+    }
+
+    @Test
+    void testConcurrentDuplicateVisitsAreRejectedOnce() throws Exception {
+        Gym gym = new Gym("Busy Gym", "Main Street");
+        AtomicInteger accepted = new AtomicInteger();
+
+        runConcurrently(THREADS * 4, t -> {
+            for (int i = 0; i < 500; i++) {
+                try {
+                    gym.addVisit(new Visit(START.plusMinutes(i), "+3801111111"));
+                    accepted.incrementAndGet();
+                } catch (IllegalArgumentException ignored) {
+                }
+            }
+        });
+
+        assertEquals(500, accepted.get());
+        assertEquals(500, gym.getVisitCount());
+    }
+
+    @Test
+    void testConcurrentBookingsNeverShareASlot() throws Exception {
+        Coach coach = new Coach("+380222222222", "Alice", "Yoga");
+        LocalDateTime slot = LocalDateTime.of(2030, 1, 1, 10, 0);
+        AtomicInteger booked = new AtomicInteger();
+
+        runConcurrently(64, t -> {
+            Visitor visitor = new Visitor("+38067" + t, "Visitor " + t);
+            try {
+                visitor.bookSession(coach, slot.plusMinutes(t % 4 * 15));
+                booked.incrementAndGet();
+            } catch (IllegalArgumentException ignored) {
+            }
+        });
+
+        assertEquals(1, booked.get());
+        assertEquals(1, coach.getSessions().size());
+    }
+
+    @Test
+    void testConcurrentCheckInsThroughVisitors() throws Exception {
+        Gym gym = new Gym("Busy Gym", "Main Street");
+        for (int i = 0; i < 200; i++) {
+            Visitor visitor = new Visitor("+38063" + i, "Member " + i);
+            new Membership(visitor, gym, "1 month", TimeSource.today());
+            gym.addVisitor(visitor);
+        }
+
+        runConcurrently(200, t -> gym.getAllVisitors().get("+38063" + t).visitGym(gym));
+
+        assertEquals(200, gym.getVisitCount());
+        gym.getAllVisitors().values().forEach(v -> assertEquals(1, v.getVisits().size()));
+    }
+
+    @Test
+    void testConcurrentAddVisitorRespectsUniqueness() throws Exception {
+        Gym gym = new Gym("Busy Gym", "Main Street");
+        AtomicInteger added = new AtomicInteger();
+
+        runConcurrently(THREADS * 4, t -> {
+            for (int i = 0; i < 100; i++) {
+                try {
+                    gym.addVisitor(new Visitor("+38066" + i, "Visitor"));
+                    added.incrementAndGet();
+                } catch (IllegalArgumentException ignored) {
+                }
+            }
+        });
+
+        assertEquals(100, added.get());
+        assertEquals(100, gym.getAllVisitors().size());
+    }
+}
@@ -0,0 +1,60 @@
+package org.gym;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentCheckInBenchmark {
+
+    private static final LocalDateTime START = LocalDateTime.of(2020, 1, 1, 6, 0);
+
+    @State(Scope.Benchmark)
+    public static class SharedGym {
+        private final AtomicInteger terminals = new AtomicInteger();
+        private Gym gym;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            gym = new Gym("Bench Gym", "Bench Street");
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Terminal {
+        private String phone;
+        private long nextSecond;
+
+        @Setup(Level.Iteration)
+        public void setUp(SharedGym shared) {
+            phone = "+38050" + shared.terminals.incrementAndGet();
+            nextSecond = 0;
+        }
+    }
+
+    @Benchmark
+    public Gym checkIn(SharedGym shared, Terminal terminal) {
+        shared.gym.addVisit(new Visit(START.plusSeconds(terminal.nextSecond++), terminal.phone));
+        return shared.gym;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[]{1, 2, 4, 8}) {
+            Options options = new OptionsBuilder()
+                    .include(ConcurrentCheckInBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
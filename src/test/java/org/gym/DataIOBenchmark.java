@@ -0,0 +1,128 @@
+package org.gym;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DataIOBenchmark {
+
+    private static final int GYMS = 10;
+
+    @Param({"json", "binary"})
+    private String format;
+
+    @Param({"10000", "100000"})
+    private int visitors;
+
+    private DataIO<Visitor> visitorIO;
+    private DataIO<Visit> visitIO;
+    private DataIO<Gym> gymIO;
+    private List<Visitor> visitorData;
+    private List<Visit> visitData;
+    private List<Gym> gymData;
+    private File visitorFile;
+    private File visitFile;
+    private File gymFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        if (format.equals("json")) {
+            visitorIO = new JsonDataIO<>(Visitor[].class);
+            visitIO = new JsonDataIO<>(Visit[].class);
+            gymIO = new JsonDataIO<>(Gym[].class);
+        } else {
+            visitorIO = new BinaryDataIO<>(Visitor.class);
+            visitIO = new BinaryDataIO<>(Visit.class);
+            gymIO = new BinaryDataIO<>(Gym.class);
+        }
+
+        Gym gym = new Gym("Bench Gym", "Bench Street");
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 6, 0);
+        visitorData = new ArrayList<>(visitors);
+        visitData = new ArrayList<>(visitors * 5);
+        for (int i = 0; i < visitors; i++) {
+            Visitor visitor = new Visitor("+380" + (500_000_000 + i), "Visitor " + i);
+            new Membership(visitor, gym, "1 year", LocalDate.of(2024, 1, 1));
+            for (int v = 0; v < 5; v++) {
+                LocalDateTime time = start.plusDays(v * 7L).plusMinutes(i % 900);
+                visitor.recordVisits(List.of(time));
+                visitData.add(new Visit(time, visitor.getPhone()));
+            }
+            visitorData.add(visitor);
+        }
+
+        visitorFile = File.createTempFile("bench_visitors", "." + format);
+        visitFile = File.createTempFile("bench_visits", "." + format);
+        visitorFile.deleteOnExit();
+        visitFile.deleteOnExit();
+        visitorIO.exportData(visitorData, visitorFile);
+        visitIO.exportData(visitData, visitFile);
+
+        gymData = SyntheticChain.generate(GYMS, visitors / GYMS, 5, 42);
+        gymFile = File.createTempFile("bench_gyms", "." + format);
+        gymFile.deleteOnExit();
+        gymIO.exportData(gymData, gymFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void reportSizes() {
+        System.out.printf("%n%s: visitors file %,d bytes, visits file %,d bytes, gyms file %,d bytes%n",
+                format, visitorFile.length(), visitFile.length(), gymFile.length());
+    }
+
+    @Benchmark
+    public File writeVisitors() throws IOException {
+        visitorIO.exportData(visitorData, visitorFile);
+        return visitorFile;
+    }
+
+    @Benchmark
+    public File writeVisits() throws IOException {
+        visitIO.exportData(visitData, visitFile);
+        return visitFile;
+    }
+
+    @Benchmark
+    public File writeGyms() throws IOException {
+        gymIO.exportData(gymData, gymFile);
+        return gymFile;
+    }
+
+    @Benchmark
+    public List<Visitor> loadVisitors() throws IOException {
+        return visitorIO.importData(visitorFile);
+    }
+
+    @Benchmark
+    public List<Visit> loadVisits() throws IOException {
+        return visitIO.importData(visitFile);
+    }
+
+    @Benchmark
+    public List<Gym> loadGyms() throws IOException {
+        return gymIO.importData(gymFile);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(DataIOBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,102 @@
+package org.gym;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DayClockTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Europe/Kyiv");
+
+    private static class MutableClock extends Clock {
+        private volatile Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZONE;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        TimeSource.stopDayRefresh();
+        TimeSource.setClock(Clock.systemDefaultZone());
+    }
+
+    @Test
+    void testTodayRollsOverAtMidnight() {
+        MutableClock clock = new MutableClock(LocalDateTime.of(2025, 4, 10, 23, 59).atZone(ZONE).toInstant());
+        DayClock dayClock = new DayClock(clock);
+
+        assertEquals(LocalDate.of(2025, 4, 10), dayClock.today());
+        clock.instant = clock.instant.plus(Duration.ofMinutes(2));
+        assertEquals(LocalDate.of(2025, 4, 11), dayClock.today());
+        clock.instant = clock.instant.minus(Duration.ofDays(3));
+        assertEquals(LocalDate.of(2025, 4, 8), dayClock.today());
+    }
+
+    @Test
+    void testNowToSecondsMatchesZoneRulesAroundOffsetChanges() {
+        MutableClock clock = new MutableClock(LocalDateTime.of(2025, 3, 29, 22, 0).atZone(ZONE).toInstant());
+        DayClock dayClock = new DayClock(clock);
+
+        for (int i = 0; i < 40; i++) {
+            clock.instant = clock.instant.plus(Duration.ofMinutes(61).plusSeconds(7).plusMillis(250));
+            LocalDateTime expected = LocalDateTime.ofInstant(clock.instant, ZONE).withNano(0);
+            assertEquals(expected, dayClock.nowToSeconds());
+        }
+    }
+
+    @Test
+    void testRefreshingDayClockDoesNotReadClockPerCall() throws InterruptedException {
+        MutableClock clock = new MutableClock(LocalDateTime.of(2025, 4, 10, 12, 0).atZone(ZONE).toInstant());
+        DayClock dayClock = new DayClock(clock);
+        dayClock.startRefreshing(Duration.ofMillis(20));
+        try {
+            clock.instant = clock.instant.plus(Duration.ofDays(1));
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (!dayClock.today().equals(LocalDate.of(2025, 4, 11)) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(LocalDate.of(2025, 4, 11), dayClock.today());
+        } finally {
+            dayClock.stopRefreshing();
+        }
+    }
+
+    @Test
+    void testDomainReadsTimeSource() {
+        TimeSource.setClock(Clock.fixed(LocalDateTime.of(2025, 4, 10, 9, 30, 15, 500).atZone(ZONE).toInstant(), ZONE));
+
+        Gym gym = new Gym("Test Gym", "Main Street");
+        Visitor visitor = new Visitor("+3801111111", "John");
+        Membership membership = new Membership(visitor, gym, "1 month", LocalDate.of(2025, 3, 20));
+        assertTrue(membership.isActive());
+        assertTrue(visitor.hasActiveMembership(gym.getName()));
+
+        Visit visit = visitor.visitGym(gym);
+        assertEquals(LocalDateTime.of(2025, 4, 10, 9, 30, 15), visit.getDateTime());
+
+        TimeSource.setClock(Clock.fixed(LocalDateTime.of(2025, 4, 20, 9, 0).atZone(ZONE).toInstant(), ZONE));
+        assertFalse(membership.isActive());
+        assertFalse(visitor.hasActiveMembership(gym.getName()));
+        assertTrue(visitor.getActiveMemberships().isEmpty());
+    }
+}
@@ -0,0 +1,98 @@
+package org.gym;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeltaExportTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2025, 4, 10, 0, 0);
+
+    private DeltaExport deltaExport;
+
+    @BeforeEach
+    void setUp() {
+        deltaExport = new DeltaExport();
+    }
+
+    private static List<Gym> base() {
+        Gym gym = new Gym("Sport Life", "Main St");
+        for (int i = 0; i < 5; i++) {
+            Visitor visitor = new Visitor("+38050000000" + i, "Visitor " + i);
+            gym.addVisitor(visitor);
+            new Membership(visitor, gym, "1 month", LocalDate.now());
+            gym.addVisit(new Visit(DAY.minusDays(1).plusHours(8 + i), visitor.getPhone()));
+        }
+        gym.addCoach(new Coach("+380670000000", "Oleh", "Yoga"));
+        gym.addCoach(new Coach("+380670000001", "Iryna", "Boxing"));
+        List<Gym> gyms = new ArrayList<>();
+        gyms.add(gym);
+        return gyms;
+    }
+
+    @Test
+    void testDeltaContainsOnlyChangesSinceWatermark() {
+        List<Gym> gyms = base();
+        Gym gym = gyms.get(0);
+        long watermark = DeltaExport.watermark();
+
+        Visitor newcomer = new Visitor("+380509999999", "Newcomer");
+        gym.addVisitor(newcomer);
+        gym.getAllVisitors().get("+380500000001")
+                .bookSession(gym.getAllCoaches().get("+380670000000"), DAY.plusDays(30).plusHours(10));
+        gym.removeCoach("+380670000001");
+        gym.addVisit(new Visit(DAY.plusHours(9), "+380500000002"));
+
+        DeltaChunk chunk = deltaExport.collect(gyms, watermark);
+
+        assertEquals(1, chunk.getGyms().size());
+        DeltaChunk.GymChanges changes = chunk.getGyms().get(0);
+        assertEquals(List.of("+380500000001", "+380509999999"),
+                changes.getVisitors().stream().map(Visitor::getPhone).sorted().toList());
+        assertEquals(List.of("+380670000000"), changes.getCoaches().stream().map(Coach::getPhone).toList());
+        assertEquals(List.of("+380670000001"), changes.getRemovedCoaches());
+        assertEquals(1, changes.getVisits().size());
+
+        assertTrue(deltaExport.collect(gyms, chunk.getUntil()).getGyms().isEmpty());
+    }
+
+    @Test
+    void testChunkAppliedOnBaseReproducesState(@TempDir File dir) throws IOException {
+        List<Gym> source = base();
+        Gym gym = source.get(0);
+        long watermark = DeltaExport.watermark();
+
+        Visitor booker = gym.getAllVisitors().get("+380500000003");
+        booker.bookSession(gym.getAllCoaches().get("+380670000000"), DAY.plusDays(30).plusHours(10));
+        gym.removeVisitor("+380500000004");
+        gym.addVisit(new Visit(DAY.plusHours(7), "+380500000000"));
+        Gym opened = new Gym("Sport Life 2", "Side St");
+        opened.addVisitor(new Visitor("+380508888888", "Second"));
+        source.add(opened);
+
+        File file = new File(dir, "delta-1.json");
+        long next = deltaExport.exportSince(source, watermark, file);
+        assertTrue(next > watermark);
+
+        List<Gym> replica = base();
+        deltaExport.importInto(file, replica);
+
+        assertEquals(2, replica.size());
+        Gym restored = replica.get(0);
+        assertEquals(gym.getAllVisitors().keySet(), restored.getAllVisitors().keySet());
+        assertEquals(gym.getVisitHistory(), restored.getVisitHistory());
+        assertEquals(1, restored.getAllCoaches().get("+380670000000").getSessions().size());
+        assertEquals(List.of(DAY.plusDays(30).plusHours(10)),
+                restored.getAllVisitors().get("+380500000003").getBookedSessions().get("+380670000000"));
+        assertEquals(List.of("+380508888888"), new ArrayList<>(replica.get(1).getAllVisitors().keySet()));
+    }
+}
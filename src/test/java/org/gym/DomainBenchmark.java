@@ -0,0 +1,134 @@
+package org.gym;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-call cost of the domain operations on a synthetic chain. The clock is
+ * pinned to {@link SyntheticChain#START_DAY} and moves one millisecond per read,
+ * so repeated check-ins of the same visitor fall in distinct seconds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DomainBenchmark {
+
+    private static final String[] LABELS = {"1 month", "3 MONTHS", "six_months", "1 year"};
+
+    @Param({"1000", "100000"})
+    private int visitors;
+
+    @Param({"10", "1000"})
+    private int sessions;
+
+    private Gym gym;
+    private Visitor[] members;
+    private Coach coach;
+    private Coach bookedCoach;
+    private LocalDateTime nextSession;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        TimeSource.setClock(new TickingClock(SyntheticChain.START_DAY.atTime(6, 0).toInstant(ZoneOffset.UTC)));
+        gym = SyntheticChain.generate(1, visitors, 2, 42).get(0);
+        members = gym.getAllVisitors().values().toArray(new Visitor[0]);
+        coach = new Coach("+380670000000", "Bench Coach", "Yoga");
+        nextSession = SyntheticChain.START_DAY.atTime(8, 0);
+        bookedCoach = new Coach("+380670000001", "Booked Coach", "Boxing");
+        for (int i = 0; i < sessions; i++) {
+            bookedCoach.scheduleSession(nextSession.plusHours(i), members[i % members.length].getPhone());
+        }
+        next = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void restoreClock() {
+        TimeSource.setClock(Clock.systemDefaultZone());
+    }
+
+    private Visitor nextMember() {
+        Visitor member = members[next];
+        next = next + 1 == members.length ? 0 : next + 1;
+        return member;
+    }
+
+    @Benchmark
+    public Visit addVisit() {
+        Visit visit = new Visit(nextMember());
+        gym.addVisit(visit);
+        return visit;
+    }
+
+    @Benchmark
+    public Visit visitGym() {
+        return nextMember().visitGym(gym);
+    }
+
+    @Benchmark
+    public boolean hasActiveMembership() {
+        return nextMember().hasActiveMembership(gym.getName());
+    }
+
+    @Benchmark
+    public Coach scheduleSession() {
+        coach.scheduleSession(nextSession, Coach.DEFAULT_SESSION_DURATION, nextMember().getPhoneId());
+        nextSession = nextSession.plusHours(1);
+        return coach;
+    }
+
+    @Benchmark
+    public String showSchedule() {
+        return bookedCoach.showSchedule();
+    }
+
+    @Benchmark
+    public MembershipDuration fromLabel() {
+        return MembershipDuration.fromLabel(LABELS[next++ & 3]);
+    }
+
+    static final class TickingClock extends Clock {
+        private final AtomicLong millis;
+
+        TickingClock(Instant start) {
+            this.millis = new AtomicLong(start.toEpochMilli());
+        }
+
+        @Override
+        public long millis() {
+            return millis.getAndIncrement();
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis.getAndIncrement());
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(DomainBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,105 @@
+package org.gym;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hash and list lookups keyed by domain entities. Every probe is a fresh but
+ * equal copy of a stored key, so each lookup pays for {@code hashCode} and a
+ * full {@code equals}, as an imported or client-built entity would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityCollectionBenchmark {
+
+    private static final int KEYS = 4096;
+    private static final int MEMBERSHIPS_PER_VISITOR = 12;
+    private static final LocalDateTime START = SyntheticChain.START_DAY.atTime(6, 0);
+
+    private final Set<Visit> visits = new HashSet<>();
+    private final Set<Visitor> visitors = new HashSet<>();
+    private final Map<Gym, Integer> gyms = new HashMap<>();
+    private final Map<Coach, Integer> coaches = new HashMap<>();
+    private final List<Membership> memberships = new ArrayList<>();
+
+    private Visit[] visitProbes;
+    private Visitor[] visitorProbes;
+    private Gym[] gymProbes;
+    private Coach[] coachProbes;
+    private Membership[] membershipProbes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        visitProbes = new Visit[KEYS];
+        visitorProbes = new Visitor[KEYS];
+        gymProbes = new Gym[KEYS];
+        coachProbes = new Coach[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            String phone = SyntheticChain.phone(i);
+            visits.add(new Visit(START.plusSeconds(i * 7L), phone));
+            visitProbes[i] = new Visit(START.plusSeconds(i * 7L), phone);
+            visitors.add(new Visitor(phone, "Member " + i));
+            visitorProbes[i] = new Visitor(phone, "Member " + i);
+            gyms.put(new Gym("Gym " + i, "Street " + i), i);
+            gymProbes[i] = new Gym("Gym " + i, "Street " + i);
+            coaches.put(new Coach("+38067" + i, "Coach " + i, "Yoga"), i);
+            coachProbes[i] = new Coach("+38067" + i, "Coach " + i, "Yoga");
+        }
+        membershipProbes = new Membership[MEMBERSHIPS_PER_VISITOR];
+        for (int m = 0; m < MEMBERSHIPS_PER_VISITOR; m++) {
+            LocalDate start = SyntheticChain.START_DAY.minusMonths(m);
+            memberships.add(new Membership("+380501234567", "Gym " + m, "1 month", start));
+            membershipProbes[m] = new Membership("+380501234567", "Gym " + m, "1 month", start);
+        }
+    }
+
+    private int nextKey() {
+        next = (next + 1) & (KEYS - 1);
+        return next;
+    }
+
+    @Benchmark
+    public boolean visitSetContains() {
+        return visits.contains(visitProbes[nextKey()]);
+    }
+
+    @Benchmark
+    public boolean visitorSetContains() {
+        return visitors.contains(visitorProbes[nextKey()]);
+    }
+
+    @Benchmark
+    public Integer gymMapGet() {
+        return gyms.get(gymProbes[nextKey()]);
+    }
+
+    @Benchmark
+    public Integer coachMapGet() {
+        return coaches.get(coachProbes[nextKey()]);
+    }
+
+    @Benchmark
+    public boolean membershipListContains() {
+        return memberships.contains(membershipProbes[nextKey() % MEMBERSHIPS_PER_VISITOR]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(EntityCollectionBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
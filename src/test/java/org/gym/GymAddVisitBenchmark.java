@@ -0,0 +1,87 @@
+package org.gym;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GymAddVisitBenchmark {
+
+    private static final LocalDateTime START = LocalDateTime.of(2020, 1, 1, 6, 0);
+    private static final int MEMBERSHIP_YEARS = 20;
+    private static final int BATCH_SIZE = 1000;
+
+    @Param({"1000", "100000", "1000000"})
+    private int historySize;
+
+    private Gym gym;
+    private Visitor visitor;
+    private long nextSecond;
+    private List<Visit> batch;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        gym = new Gym("Bench Gym", "Bench Street");
+        for (int i = 0; i < historySize; i++) {
+            gym.addVisit(new Visit(START.plusSeconds(i), "+380" + (i % 5000)));
+        }
+        nextSecond = historySize;
+
+        visitor = new Visitor("+380000000000", "Bench Visitor");
+        gym.addVisitor(visitor);
+        new Membership(visitor, gym, "1 year", LocalDate.now());
+        // Batches are validated against the visit date, and the synthetic clock
+        // runs from START for years of seconds.
+        for (int year = 0; year < MEMBERSHIP_YEARS; year++) {
+            new Membership(visitor, gym, "1 year", START.toLocalDate().plusYears(year));
+        }
+        batch = new ArrayList<>(BATCH_SIZE);
+    }
+
+    @Benchmark
+    public Gym checkIn() {
+        gym.addVisit(new Visit(START.plusSeconds(nextSecond++), "+380000000000"));
+        return gym;
+    }
+
+    @Benchmark
+    public Gym checkInValidated() {
+        if (!visitor.hasActiveMembership(gym.getName())) {
+            throw new IllegalStateException("Visitor does not have an active membership in this gym.");
+        }
+        Visit visit = new Visit(START.plusSeconds(nextSecond++), visitor.getPhone());
+        gym.addVisit(visit);
+        visitor.recordVisits(List.of(visit.getDateTime()));
+        return gym;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public VisitBatchResult checkInBatch() {
+        batch.clear();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(new Visit(START.plusSeconds(nextSecond++), "+380000000000"));
+        }
+        return gym.recordVisits(batch);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(GymAddVisitBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,276 @@
+package org.gym;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GymJournalTest {
+
+    private static final LocalDateTime SESSION = LocalDateTime.of(2030, 1, 1, 10, 0);
+
+    private static void populate(GymJournal journal) {
+        Gym gym = journal.createGym("FitGym", "Street 1");
+        Visitor visitor = new Visitor("+3801111111", "Alice");
+        Coach coach = new Coach("+380222222222", "Bob", "Yoga");
+        journal.addVisitor(gym, visitor);
+        journal.addVisitor(gym, new Visitor("+380333333333", "Leaver"));
+        journal.removeVisitor(gym, "+380333333333");
+        journal.addCoach(gym, coach);
+        journal.addMembership(gym, visitor, "1 month", LocalDate.now());
+        journal.visitGym(gym, visitor);
+        journal.addVisit(gym, new Visit(LocalDateTime.of(2025, 4, 10, 9, 0), "+3801111111"));
+        journal.bookSession(gym, visitor, coach, SESSION);
+        journal.bookSession(gym, visitor, coach, SESSION.plusDays(1));
+        journal.cancelSession(gym, coach, SESSION.plusDays(1));
+    }
+
+    private static void assertRestored(List<Gym> gyms) {
+        assertEquals(1, gyms.size());
+        Gym gym = gyms.get(0);
+        assertEquals("Street 1", gym.getAddress());
+        assertEquals(1, gym.getAllVisitors().size());
+        Visitor visitor = gym.getAllVisitors().get("+3801111111");
+        assertTrue(visitor.hasActiveMembership("FitGym"));
+        assertEquals(1, visitor.getVisits().size());
+        assertEquals(2, gym.getVisitCount());
+        Coach coach = gym.getAllCoaches().get("+380222222222");
+        assertEquals("Yoga", coach.getSpecialization());
+        assertEquals("+3801111111", coach.getTrainingSchedule().get(SESSION));
+        assertFalse(coach.getTrainingSchedule().containsKey(SESSION.plusDays(1)));
+    }
+
+    @Test
+    void testReplayRestoresState(@TempDir File dir) throws IOException {
+        try (GymJournal journal = GymJournal.open(dir, new ArrayList<>(), 1000)) {
+            populate(journal);
+        }
+
+        List<Gym> restored = new ArrayList<>();
+        try (GymJournal journal = GymJournal.open(dir, restored, 1000)) {
+            assertEquals(11, journal.getSequence());
+        }
+        assertRestored(restored);
+    }
+
+    @Test
+    void testSnapshotCompactsJournal(@TempDir File dir) throws IOException {
+        try (GymJournal journal = GymJournal.open(dir, new ArrayList<>(), 5)) {
+            populate(journal);
+        }
+
+        File[] snapshots = dir.listFiles((parent, name) -> name.startsWith("snapshot-"));
+        assertEquals(1, snapshots.length);
+        long snapshotSequence = Long.parseLong(snapshots[0].getName().substring("snapshot-".length()));
+        assertTrue(snapshotSequence >= 5);
+        File journalFile = new File(dir, "journal.log");
+        assertEquals(11 - snapshotSequence, Files.readAllLines(journalFile.toPath()).size());
+
+        List<Gym> restored = new ArrayList<>();
+        try (GymJournal journal = GymJournal.open(dir, restored, 5)) {
+            assertEquals(11, journal.getSequence());
+        }
+        assertRestored(restored);
+    }
+
+    @Test
+    void testArchiveWithoutSnapshotIsReplayed(@TempDir File dir) throws IOException {
+        try (GymJournal journal = GymJournal.open(dir, new ArrayList<>(), 1000)) {
+            populate(journal);
+        }
+        // A crash after the writer archived the journal but before the snapshot landed.
+        Files.move(new File(dir, "journal.log").toPath(), new File(dir, "journal-11.log").toPath());
+
+        List<Gym> restored = new ArrayList<>();
+        try (GymJournal journal = GymJournal.open(dir, restored, 1000)) {
+            assertEquals(11, journal.getSequence());
+            journal.snapshot();
+        }
+        assertRestored(restored);
+        assertFalse(new File(dir, "journal-11.log").exists());
+        assertTrue(new File(dir, "snapshot-11").isDirectory());
+    }
+
+    @Test
+    void testConcurrentVisitsSurviveBackgroundSnapshots(@TempDir File dir) throws Exception {
+        int threads = 4;
+        int perThread = 200;
+        try (GymJournal journal = GymJournal.open(dir, new ArrayList<>(), 50)) {
+            Gym gym = journal.createGym("FitGym", "Street 1");
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    String phone = "+38050000000" + t;
+                    futures.add(executor.submit(() -> {
+                        for (int i = 0; i < perThread; i++) {
+                            journal.addVisit(gym, new Visit(LocalDateTime.of(2025, 4, 10, 6, 0).plusSeconds(i), phone));
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get(60, TimeUnit.SECONDS);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        List<Gym> restored = new ArrayList<>();
+        try (GymJournal journal = GymJournal.open(dir, restored, 50)) {
+            assertEquals(1 + threads * perThread, journal.getSequence());
+        }
+        assertEquals(threads * perThread, restored.get(0).getVisitCount());
+    }
+
+    @Test
+    void testRecordedVisitBatchIsReplayed(@TempDir File dir) throws IOException {
+        LocalDateTime day = LocalDateTime.of(2025, 4, 10, 0, 0);
+        try (GymJournal journal = GymJournal.open(dir, new ArrayList<>(), 1000)) {
+            Gym gym = journal.createGym("FitGym", "Street 1");
+            Visitor visitor = new Visitor("+3801111111", "Alice");
+            journal.addVisitor(gym, visitor);
+            journal.addMembership(gym, visitor, "1 month", day.toLocalDate());
+            VisitBatchResult result = journal.recordVisits(gym, List.of(
+                    new Visit(day.plusHours(9), visitor.getPhone()),
+                    new Visit(day.minusDays(1), visitor.getPhone()),
+                    new Visit(day.plusHours(18), visitor.getPhone())));
+            assertEquals(2, result.getAccepted());
+        }
+
+        List<Gym> restored = new ArrayList<>();
+        try (GymJournal journal = GymJournal.open(dir, restored, 1000)) {
+            assertEquals(4, journal.getSequence());
+        }
+        Gym gym = restored.get(0);
+        assertEquals(2, gym.getVisitCount());
+        assertEquals(List.of(day.plusHours(9), day.plusHours(18)),
+                gym.getAllVisitors().get("+3801111111").getVisits());
+    }
+
+    @Test
+    void testRejectedMutationsAreNotJournaled(@TempDir File dir) throws IOException {
+        try (GymJournal journal = GymJournal.open(dir, new ArrayList<>(), 1000)) {
+            populate(journal);
+            Gym gym = journal.createGym("PowerGym", "Street 2");
+            Visitor visitor = new Visitor("+380444444444", "Carol");
+            journal.addVisitor(gym, visitor);
+
+            assertThrows(IllegalArgumentException.class, () -> journal.createGym("FitGym", "Street 3"));
+            assertThrows(IllegalArgumentException.class,
+                    () -> journal.addVisitor(gym, new Visitor("+380444444444", "Again")));
+            assertThrows(IllegalStateException.class, () -> journal.visitGym(gym, visitor));
+            assertThrows(IllegalArgumentException.class,
+                    () -> journal.cancelSession(gym, new Coach("+380555555555", "Dan", "Box"), SESSION));
+            assertEquals(13, journal.getSequence());
+        }
+        assertEquals(13, Files.readAllLines(new File(dir, "journal.log").toPath()).size());
+    }
+
+    @Test
+    void testReplaySkipsEntriesRejectedOnApply(@TempDir File dir) throws IOException {
+        try (GymJournal journal = GymJournal.open(dir, new ArrayList<>(), 1000)) {
+            populate(journal);
+        }
+        // Passed validation while an earlier entry for the same phone was still in flight.
+        Files.writeString(new File(dir, "journal.log").toPath(),
+                "{\"sequence\":12,\"type\":\"ADD_VISITOR\",\"gym\":\"FitGym\",\"phone\":\"+3801111111\","
+                        + "\"name\":\"Twin\"}\n", StandardOpenOption.APPEND);
+
+        List<Gym> restored = new ArrayList<>();
+        try (GymJournal journal = GymJournal.open(dir, restored, 1000)) {
+            assertEquals(12, journal.getSequence());
+        }
+        assertRestored(restored);
+        assertEquals("Alice", restored.get(0).getAllVisitors().get("+3801111111").getName());
+    }
+
+    @Test
+    void testImportsAreJournaledAndRejectedWhole(@TempDir File dir) throws IOException {
+        LocalDateTime day = LocalDateTime.of(2025, 4, 10, 9, 0);
+        try (GymJournal journal = GymJournal.open(dir, new ArrayList<>(), 1000)) {
+            Gym imported = new Gym("FitGym", "Street 1");
+            imported.setVisitHistory(List.of(new Visit(day, "+3801111111")));
+            journal.importGyms(List.of(imported));
+            journal.importVisitors(imported, List.of(new Visitor("+3801111111", "Alice")));
+            journal.importCoaches(imported, List.of(new Coach("+380222222222", "Bob", "Yoga")));
+            journal.importVisits(imported, List.of(new Visit(day.plusHours(1), "+3801111111")));
+
+            assertThrows(IllegalArgumentException.class,
+                    () -> journal.importGyms(List.of(new Gym("PowerGym", "Street 2"), new Gym("FitGym", "Street 3"))));
+            assertThrows(IllegalArgumentException.class, () -> journal.importVisits(imported,
+                    List.of(new Visit(day.plusHours(2), "+3801111111"), new Visit(day, "+3801111111"))));
+            assertEquals(4, journal.getSequence());
+        }
+
+        List<Gym> restored = new ArrayList<>();
+        try (GymJournal journal = GymJournal.open(dir, restored, 1000)) {
+            assertEquals(4, journal.getSequence());
+        }
+        assertEquals(1, restored.size());
+        Gym gym = restored.get(0);
+        assertEquals(2, gym.getVisitCount());
+        assertEquals("Alice", gym.getAllVisitors().get("+3801111111").getName());
+        assertEquals("Yoga", gym.getAllCoaches().get("+380222222222").getSpecialization());
+    }
+
+    @Test
+    void testTornTailIsDiscarded(@TempDir File dir) throws IOException {
+        try (GymJournal journal = GymJournal.open(dir, new ArrayList<>(), 1000)) {
+            populate(journal);
+        }
+        File journalFile = new File(dir, "journal.log");
+        Files.writeString(journalFile.toPath(), "{\"sequence\":12,\"ty", StandardOpenOption.APPEND);
+
+        List<Gym> restored = new ArrayList<>();
+        try (GymJournal journal = GymJournal.open(dir, restored, 1000)) {
+            journal.createGym("PowerGym", "Street 2");
+        }
+
+        List<Gym> reopened = new ArrayList<>();
+        GymJournal.open(dir, reopened, 1000).close();
+        assertEquals(2, reopened.size());
+        assertEquals("PowerGym", reopened.get(1).getName());
+    }
+
+    @Test
+    void testCorruptEntryBeforeTailFailsRecovery(@TempDir File dir) throws IOException {
+        try (GymJournal journal = GymJournal.open(dir, new ArrayList<>(), 1000)) {
+            populate(journal);
+        }
+        File journalFile = new File(dir, "journal.log");
+        List<String> lines = new ArrayList<>(Files.readAllLines(journalFile.toPath()));
+        lines.set(3, "{\"sequence\":4,\"ty");
+        Files.write(journalFile.toPath(), lines);
+        long length = journalFile.length();
+
+        IOException error = assertThrows(IOException.class, () -> GymJournal.open(dir, new ArrayList<>(), 1000));
+        assertTrue(error.getMessage().startsWith("Corrupt journal entry"));
+        assertEquals(length, journalFile.length());
+    }
+
+    @Test
+    void testInMemoryJournalOnlyAppliesMutations() throws IOException {
+        List<Gym> gyms = new ArrayList<>();
+        try (GymJournal journal = new GymJournal(gyms)) {
+            populate(journal);
+            journal.snapshot();
+            assertEquals(11, journal.getSequence());
+        }
+        assertRestored(gyms);
+    }
+}
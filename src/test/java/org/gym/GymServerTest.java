@@ -0,0 +1,173 @@
+package org.gym;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GymServerTest {
+
+    private List<Gym> gyms;
+    private GymJournal journal;
+    private GymServer server;
+
+    @TempDir
+    Path dataDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        gyms = new CopyOnWriteArrayList<>();
+        journal = new GymJournal(gyms);
+        server = new GymServer(journal, gyms, new ChainRegistry(), null, dataDir.toFile(),
+                Executors.newCachedThreadPool());
+        server.start(0);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.close();
+        journal.close();
+    }
+
+    private List<String> send(String... lines) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+             BufferedReader in = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)) {
+            List<String> responses = new ArrayList<>();
+            for (String line : lines) {
+                out.write(line + "\n");
+                out.flush();
+                responses.add(in.readLine());
+            }
+            return responses;
+        }
+    }
+
+    private void setUpGym() throws IOException {
+        List<String> responses = send(
+                "{\"op\":\"createGym\",\"gym\":\"Sport Life\",\"address\":\"Main St\"}",
+                "{\"op\":\"addVisitor\",\"gym\":\"Sport Life\",\"phone\":\"+380501111111\",\"name\":\"Anna\"}",
+                "{\"op\":\"addCoach\",\"gym\":\"Sport Life\",\"phone\":\"+380671111111\","
+                        + "\"name\":\"Oleh\",\"specialization\":\"Yoga\"}",
+                "{\"op\":\"addMembership\",\"gym\":\"Sport Life\",\"phone\":\"+380501111111\","
+                        + "\"duration\":\"1 month\"}");
+        responses.forEach(response -> assertEquals("{\"ok\":true}", response));
+    }
+
+    @Test
+    void recordsVisitBatchesWithPerEventRejections() throws IOException {
+        setUpGym();
+        String tomorrow = LocalDate.now().plusDays(1).toString();
+
+        String response = send("{\"op\":\"recordVisits\",\"gym\":\"Sport Life\",\"visits\":["
+                + "{\"dateTime\":\"" + tomorrow + "T09:00\",\"visitorPhone\":\"+380501111111\"},"
+                + "{\"dateTime\":\"2000-01-01T09:00\",\"visitorPhone\":\"+380501111111\"}]}").get(0);
+
+        assertTrue(response.startsWith("{\"ok\":true,\"result\":{\"accepted\":1,"), response);
+        assertTrue(response.contains("NO_ACTIVE_MEMBERSHIP"), response);
+        assertEquals(1, gyms.get(0).getVisitCount());
+    }
+
+    @Test
+    void servesCommandsAndReportsErrorsWithoutDroppingTheConnection() throws IOException {
+        setUpGym();
+
+        List<String> responses = send(
+                "{\"op\":\"visit\",\"gym\":\"Sport Life\",\"phone\":\"+380501111111\"}",
+                "not json",
+                "{\"op\":\"visit\",\"gym\":\"Nowhere\",\"phone\":\"+380501111111\"}",
+                "{\"op\":\"book\",\"gym\":\"Sport Life\",\"phone\":\"+380501111111\","
+                        + "\"coachPhone\":\"+380671111111\",\"dateTime\":\"2030-01-01T10:00\"}",
+                "{\"op\":\"cancel\",\"gym\":\"Sport Life\",\"coachPhone\":\"+380671111111\","
+                        + "\"dateTime\":\"2030-01-01T10:00\"}");
+
+        assertTrue(responses.get(0).startsWith("{\"ok\":true,\"result\":"));
+        assertTrue(responses.get(1).startsWith("{\"ok\":false"));
+        assertEquals("{\"ok\":false,\"error\":\"Gym Nowhere not found\"}", responses.get(2));
+        assertEquals("{\"ok\":true}", responses.get(3));
+        assertEquals("{\"ok\":true}", responses.get(4));
+        assertEquals(1, gyms.get(0).getVisitCount());
+        assertTrue(gyms.get(0).getAllCoaches().get("+380671111111").getSessions().isEmpty());
+    }
+
+    @Test
+    void concurrentConnectionsBookingTheSameSlotGetOneSuccess() throws Exception {
+        setUpGym();
+        String book = "{\"op\":\"book\",\"gym\":\"Sport Life\",\"phone\":\"+380501111111\","
+                + "\"coachPhone\":\"+380671111111\",\"dateTime\":\"2030-01-01T10:00\"}";
+
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(clients.submit(() -> send(book).get(0)));
+            }
+            int booked = 0;
+            for (Future<String> future : futures) {
+                if (future.get(30, TimeUnit.SECONDS).equals("{\"ok\":true}")) {
+                    booked++;
+                }
+            }
+            assertEquals(1, booked);
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    @Test
+    void exportsAndImportsThroughTheServer() throws IOException {
+        setUpGym();
+        send("{\"op\":\"visit\",\"gym\":\"Sport Life\",\"phone\":\"+380501111111\"}");
+
+        List<String> responses = send(
+                "{\"op\":\"export\",\"what\":\"visits\",\"file\":\"exports/visits.json\"}",
+                "{\"op\":\"createGym\",\"gym\":\"Copy\",\"address\":\"Side St\"}",
+                "{\"op\":\"import\",\"what\":\"visits\",\"gym\":\"Copy\",\"file\":\"exports/visits.json\"}");
+
+        responses.forEach(response -> assertEquals("{\"ok\":true}", response));
+        assertTrue(dataDir.resolve("exports/visits.json").toFile().isFile());
+        assertEquals(1, gyms.get(1).getVisitCount());
+    }
+
+    @Test
+    void rejectsImportedGymsWhoseNameIsTaken() throws IOException {
+        setUpGym();
+
+        List<String> responses = send(
+                "{\"op\":\"export\",\"what\":\"gyms\",\"file\":\"gyms.json\"}",
+                "{\"op\":\"import\",\"what\":\"gyms\",\"file\":\"gyms.json\"}",
+                "{\"op\":\"createGym\",\"gym\":\"Sport Life\",\"address\":\"Side St\"}");
+
+        assertEquals("{\"ok\":true}", responses.get(0));
+        assertEquals("{\"ok\":false,\"error\":\"Gym Sport Life already exists\"}", responses.get(1));
+        assertEquals("{\"ok\":false,\"error\":\"Gym Sport Life already exists\"}", responses.get(2));
+        assertEquals(1, gyms.size());
+    }
+
+    @Test
+    void refusesFilesOutsideTheDataDirectory() throws IOException {
+        setUpGym();
+        String outside = dataDir.resolveSibling("outside.json").toString().replace("\\", "\\\\");
+
+        List<String> responses = send(
+                "{\"op\":\"export\",\"what\":\"gyms\",\"file\":\"" + outside + "\"}",
+                "{\"op\":\"export\",\"what\":\"gyms\",\"file\":\"../outside.json\"}",
+                "{\"op\":\"import\",\"what\":\"gyms\",\"file\":\"a/../../outside.json\"}");
+
+        responses.forEach(response -> assertTrue(response.startsWith("{\"ok\":false"), response));
+        assertFalse(dataDir.resolveSibling("outside.json").toFile().exists());
+    }
+}
@@ -3,8 +3,10 @@ package org.gym;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -39,6 +41,20 @@ public class GymTests {
         assertEquals(1, visitor.getActiveMemberships().size());
     }
 
+    @Test
+    void testVisitorCollectionsAreSnapshots() {
+        List<Membership> memberships = visitor.getMemberships();
+        List<LocalDateTime> visits = visitor.getVisits();
+
+        new Membership(visitor, gym, "1 month", LocalDate.now());
+        visitor.recordVisits(List.of(LocalDateTime.of(2025, 4, 2, 8, 30)));
+
+        assertTrue(memberships.isEmpty());
+        assertTrue(visits.isEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> visitor.getVisits().clear());
+        assertThrows(UnsupportedOperationException.class, () -> visitor.getMemberships().clear());
+    }
+
     @Test
     void testVisitorAddSameMembershipTwiceThrows() {
         new Membership(visitor, gym, "1 month", LocalDate.now());
@@ -48,6 +64,22 @@ public class GymTests {
         assertTrue(ex.getMessage().contains("This membership already exists."));
     }
 
+    @Test
+    void testVisitorActiveMembershipPerGym() {
+        Gym other = new Gym("Other Gym", "Side Street");
+        new Membership(visitor, gym, "1 month", LocalDate.now().minusDays(40));
+        assertFalse(visitor.hasActiveMembership(gym.getName()));
+
+        new Membership(visitor, other, "1 month", LocalDate.now().plusDays(1));
+        assertFalse(visitor.hasActiveMembership(other.getName()));
+        assertFalse(visitor.hasActiveMembership());
+
+        new Membership(visitor, gym, "1 year", LocalDate.now().minusDays(10));
+        assertTrue(visitor.hasActiveMembership(gym.getName()));
+        assertFalse(visitor.hasActiveMembership(other.getName()));
+        assertTrue(visitor.hasActiveMembership());
+    }
+
     @Test
     void testVisitorVisitGymThrowsIfNoActiveMembership() {
         Exception ex = assertThrows(IllegalStateException.class, () -> visitor.visitGym(gym));
@@ -112,6 +144,36 @@ public class GymTests {
         assertFalse(coach.getTrainingSchedule().containsKey(dt));
     }
 
+    @Test
+    void testCoachRejectsOverlappingSessions() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        coach.scheduleSession(start, Duration.ofMinutes(90), visitorPhone);
+
+        assertThrows(IllegalArgumentException.class, () ->
+                coach.scheduleSession(start.plusMinutes(60), "+380333333333"));
+        assertThrows(IllegalArgumentException.class, () ->
+                coach.scheduleSession(start.minusMinutes(30), "+380333333333"));
+
+        coach.scheduleSession(start.plusMinutes(90), "+380333333333");
+        coach.scheduleSession(start.minusMinutes(60), "+380444444444");
+        assertEquals(3, coach.getTrainingSchedule().size());
+        assertTrue(coach.isAvailable(start.plusMinutes(150), start.plusMinutes(180)));
+        assertFalse(coach.isAvailable(start.plusMinutes(100), start.plusMinutes(110)));
+    }
+
+    @Test
+    void testCoachFindFreeSlots() {
+        LocalDateTime day = LocalDateTime.of(2030, 1, 1, 8, 0);
+        coach.scheduleSession(day.plusMinutes(45), visitorPhone);
+        coach.scheduleSession(day.plusHours(3), Duration.ofMinutes(30), visitorPhone);
+
+        List<LocalDateTime> slots = coach.findFreeSlots(day, day.plusHours(4), Duration.ofMinutes(30));
+
+        assertEquals(List.of(day, day.plusMinutes(120), day.plusMinutes(150),
+                day.plusMinutes(210)), slots);
+        assertEquals(1, coach.getSessionsBetween(day.plusHours(1), day.plusHours(2)).size());
+    }
+
     @Test
     void testCoachCancelNoSuchSessionThrows() {
         LocalDateTime dt = LocalDateTime.now().plusDays(1);
@@ -132,6 +194,25 @@ public class GymTests {
         assertNotNull(gym.getAllCoaches().get(coachPhone));
     }
 
+    @Test
+    void testGymFindAvailableSlots() {
+        LocalDateTime day = LocalDateTime.of(2030, 1, 1, 8, 0);
+        Coach boxer = new Coach("+380333333333", "Ben", "Boxing");
+        gym.addCoach(coach);
+        gym.addCoach(boxer);
+        coach.scheduleSession(day, visitorPhone);
+
+        List<AvailableSlot> all = gym.findAvailableSlots(day, day.plusHours(2), Duration.ofMinutes(30), null);
+        assertEquals(2 + 4, all.size());
+        assertEquals(4, all.stream().filter(slot -> slot.getCoach() == boxer).count());
+        assertEquals(day.plusMinutes(30), all.stream()
+                .filter(slot -> slot.getCoach() == boxer).findFirst().orElseThrow().getEnd());
+
+        List<AvailableSlot> yoga = gym.findAvailableSlots(day, day.plusHours(2), Duration.ofMinutes(30), "yoga");
+        assertEquals(List.of(day.plusHours(1), day.plusMinutes(90)),
+                yoga.stream().map(AvailableSlot::getStart).toList());
+    }
+
     @Test
     void testGymAddVisit() {
         Visit visit = new Visit(visitor);
@@ -145,6 +226,65 @@ public class GymTests {
         assertTrue(ex.getMessage().contains("cannot add the same visit twice"));
     }
 
+    @Test
+    void testGymSetVisitHistoryRejectsDuplicates() {
+        Visit first = new Visit(LocalDateTime.of(2025, 4, 10, 9, 0), visitorPhone);
+        Visit second = new Visit(LocalDateTime.of(2025, 4, 11, 9, 0), visitorPhone);
+        gym.setVisitHistory(List.of(first, second));
+
+        assertEquals(List.of(first, second), gym.getVisitHistory());
+        assertThrows(IllegalArgumentException.class, () ->
+                gym.addVisit(new Visit(LocalDateTime.of(2025, 4, 11, 9, 0), visitorPhone)));
+    }
+
+    @Test
+    void testGymSetVisitHistorySkipsSameSecondCollisions() {
+        LocalDateTime second = LocalDateTime.of(2025, 4, 10, 9, 0, 5);
+        gym.setVisitHistory(List.of(
+                new Visit(second.withNano(100_000_000), visitorPhone),
+                new Visit(second.withNano(700_000_000), visitorPhone),
+                new Visit(second.plusSeconds(1), visitorPhone)));
+
+        assertEquals(2, gym.getVisitCount());
+        assertEquals(1, gym.getSkippedDuplicateVisits());
+    }
+
+    @Test
+    void testGymRecordVisitsReportsRejectionsPerEvent() {
+        Visitor expired = new Visitor("+380444444444", "Kate");
+        gym.addVisitor(visitor);
+        gym.addVisitor(expired);
+        LocalDateTime day = LocalDateTime.of(2025, 4, 10, 0, 0);
+        new Membership(visitor, gym, "1 month", day.toLocalDate());
+        new Membership(expired, gym, "1 month", day.toLocalDate().minusDays(40));
+        gym.addVisit(new Visit(day.plusHours(7), visitorPhone));
+
+        VisitBatchResult result = gym.recordVisits(List.of(
+                new Visit(day.plusHours(18), visitorPhone),
+                new Visit(day.plusHours(7), visitorPhone),
+                new Visit(day.plusHours(9), visitorPhone),
+                new Visit(day.plusHours(9), visitorPhone),
+                new Visit(day.minusHours(1), visitorPhone),
+                new Visit(day.plusHours(8), expired.getPhone()),
+                new Visit(day.plusHours(8), "+380999999999")));
+
+        assertEquals(2, result.getAccepted());
+        assertEquals(5, result.getRejections().size());
+        assertEquals(2, result.getRejections().stream()
+                .filter(r -> r.getReason() == VisitBatchResult.Reason.DUPLICATE).count());
+        assertTrue(result.getRejections().stream().anyMatch(r ->
+                r.getReason() == VisitBatchResult.Reason.NO_ACTIVE_MEMBERSHIP
+                        && r.getVisit().getVisitorPhone().equals(expired.getPhone())));
+        assertTrue(result.getRejections().stream().anyMatch(r ->
+                r.getReason() == VisitBatchResult.Reason.NO_ACTIVE_MEMBERSHIP
+                        && r.getVisit().getDateTime().equals(day.minusHours(1))));
+        assertTrue(result.getRejections().stream().anyMatch(r ->
+                r.getReason() == VisitBatchResult.Reason.UNKNOWN_VISITOR));
+        assertEquals(List.of(day.plusHours(7), day.plusHours(9), day.plusHours(18)),
+                gym.getVisitHistory().stream().map(Visit::getDateTime).toList());
+        assertEquals(List.of(day.plusHours(9), day.plusHours(18)), visitor.getVisits());
+    }
+
     @Test
     void testMembershipIsActive() {
         Membership membership = new Membership(visitor, gym, "1 month", LocalDate.now());
@@ -171,4 +311,24 @@ public class GymTests {
         assertTrue(ex.getMessage().contains("Unexpected membership duration"));
     }
 
+    @Test
+    void testEqualHashesAreNotEqualEntities() {
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        Gym aa = new Gym("Aa", "Main Street");
+        Gym bb = new Gym("BB", "Main Street");
+        assertEquals(aa.hashCode(), bb.hashCode());
+        assertNotEquals(aa, bb);
+        assertEquals(aa, new Gym("Aa", "Main Street"));
+        assertNotEquals(new Coach("+380222222222", "Aa", "Yoga"), new Coach("+380222222222", "BB", "Yoga"));
+
+        new Membership(visitor, aa, "1 month", LocalDate.now());
+        new Membership(visitor, bb, "1 month", LocalDate.now());
+        assertEquals(2, visitor.getMemberships().size());
+        assertThrows(IllegalArgumentException.class, () -> new Membership(visitor, aa, "1 year", LocalDate.now()));
+
+        LocalDateTime dt = LocalDateTime.of(2025, 4, 10, 9, 30);
+        assertEquals(new Visit(dt, visitorPhone), new Visit(dt, visitorPhone));
+        assertNotEquals(new Visit(dt, visitorPhone), new Visit(dt, coachPhone));
+    }
+
 }
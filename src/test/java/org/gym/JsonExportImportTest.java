@@ -8,11 +8,13 @@ import org.junit.jupiter.api.io.TempDir;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -286,6 +288,43 @@ public class JsonExportImportTest {
     }
 
 
+    @Test
+    void testCoachSessionDurationsRoundTripBelowAMinute(@TempDir File tempDir) throws IOException {
+        File file = new File(tempDir, "coaches.json");
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        Coach coach = new Coach("+380222222222", "John", "Cardio");
+        coach.setTrainingSchedule(Map.of(start, "+380501111111", start.plusSeconds(30), "+380502222222"));
+
+        JsonDataIO<Coach> coachIO = new JsonDataIO<>(Coach[].class);
+        coachIO.exportData(new ArrayList<>(List.of(coach)), file);
+        assertTrue(Files.readString(file.toPath()).contains("\"duration\" : \"PT30S\""));
+
+        List<Coach> restored = coachIO.importData(file);
+        assertEquals(List.of(Duration.ofSeconds(30), Coach.DEFAULT_SESSION_DURATION),
+                restored.get(0).getSessions().stream().map(TrainingSession::getDuration).toList());
+    }
+
+    @Test
+    void testImportLegacySessionMinutes(@TempDir File tempDir) throws IOException {
+        File file = new File(tempDir, "coaches.json");
+        Files.writeString(file.toPath(), """
+        [
+          {
+            "phone": "+380222222222",
+            "name": "John",
+            "specialization": "Cardio",
+            "sessions": [
+              { "start": "2030-01-01T10:00:00", "durationMinutes": 45, "visitorPhone": "+380501111111" }
+            ]
+          }
+        ]
+        """);
+
+        List<Coach> restored = new JsonDataIO<>(Coach[].class).importData(file);
+        assertEquals(Duration.ofMinutes(45), restored.get(0).getSessions().iterator().next().getDuration());
+    }
+
+
     @Test
     void testExportGyms(@TempDir File tempDir) throws IOException {
         File outFile = new File(tempDir, "gyms_export.json");
@@ -501,4 +540,42 @@ public class JsonExportImportTest {
         assertEquals(1, visitors.get(1).getMemberships().size());
         assertEquals("+380222222222", visitors.get(1).getMemberships().get(0).getVisitorPhone());
     }
+
+    @Test
+    void testExportImportStreamVisits(@TempDir File tempDir) throws IOException {
+        File file = new File(tempDir, "visits_stream.json");
+
+        Visit v1 = new Visit(LocalDateTime.of(2025, 4, 10, 9, 0), "+3801111111");
+        Visit v2 = new Visit(LocalDateTime.of(2025, 4, 11, 10, 30), "+380222222222");
+
+        JsonDataIO<Visit> visitIO = new JsonDataIO<>(Visit[].class);
+        visitIO.exportStream(List.of(v1, v2).iterator(), file);
+
+        List<Visit> imported = new ArrayList<>();
+        visitIO.importStream(file, imported::add);
+
+        assertEquals(List.of(v1, v2), imported);
+        assertEquals(imported, visitIO.importData(file));
+    }
+
+    @Test
+    void testImportStreamEmptyArray(@TempDir File tempDir) throws IOException {
+        File file = new File(tempDir, "empty_array.json");
+        Files.writeString(file.toPath(), "[ ]");
+
+        List<Visitor> imported = new ArrayList<>();
+        new JsonDataIO<>(Visitor[].class).importStream(file, imported::add);
+
+        assertTrue(imported.isEmpty());
+    }
+
+    @Test
+    void testImportStreamEmptyFileThrowsException(@TempDir File tempDir) throws IOException {
+        File file = new File(tempDir, "empty_stream.json");
+        Files.writeString(file.toPath(), "");
+
+        JsonDataIO<Visitor> realIO = new JsonDataIO<>(Visitor[].class);
+
+        assertThrows(IOException.class, () -> realIO.importStream(file, v -> { }));
+    }
 }
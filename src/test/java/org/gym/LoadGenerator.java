@@ -0,0 +1,167 @@
+package org.gym;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+
+/**
+ * Replays a JSON-lines request file against a {@link GymServer}. Setup requests
+ * (createGym, addVisitor, addCoach, addMembership) are sent first over a single
+ * connection and are not measured; the rest is dealt round-robin to the
+ * connections and reported as throughput and latency percentiles.
+ *
+ * <pre>
+ * LoadGenerator &lt;requests.jsonl&gt; [connections] [port]
+ * LoadGenerator --sample &lt;requests.jsonl&gt; &lt;visitors&gt;
+ * </pre>
+ * Without a port an in-memory server is started in-process.
+ */
+public class LoadGenerator {
+    private static final List<String> SETUP_OPS =
+            List.of("\"createGym\"", "\"addVisitor\"", "\"addCoach\"", "\"addMembership\"");
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 3 && args[0].equals("--sample")) {
+            writeSample(new File(args[1]), Integer.parseInt(args[2]));
+            return;
+        }
+        List<String> lines = Files.readAllLines(new File(args[0]).toPath(), StandardCharsets.UTF_8);
+        int connections = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        if (args.length > 2) {
+            run(lines, connections, Integer.parseInt(args[2]));
+            return;
+        }
+        List<Gym> gyms = new CopyOnWriteArrayList<>();
+        try (GymJournal journal = new GymJournal(gyms);
+             GymServer server = new GymServer(journal, gyms, Executors.newCachedThreadPool())) {
+            server.start(0);
+            run(lines, connections, server.getPort());
+        }
+    }
+
+    static void run(List<String> lines, int connections, int port) throws Exception {
+        List<String> setup = new ArrayList<>();
+        List<List<String>> partitions = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            partitions.add(new ArrayList<>());
+        }
+        int next = 0;
+        for (String line : lines) {
+            if (line.isBlank()) {
+                continue;
+            }
+            if (SETUP_OPS.stream().anyMatch(line::contains)) {
+                setup.add(line);
+            } else {
+                partitions.get(next++ % connections).add(line);
+            }
+        }
+        try (Client client = new Client(port)) {
+            for (String line : setup) {
+                client.send(line);
+            }
+        }
+
+        long[][] latencies = new long[connections][];
+        int[] errors = new int[connections];
+        Thread[] threads = new Thread[connections];
+        long started = System.nanoTime();
+        for (int c = 0; c < connections; c++) {
+            int index = c;
+            threads[c] = new Thread(() -> {
+                List<String> requests = partitions.get(index);
+                long[] samples = new long[requests.size()];
+                try (Client client = new Client(port)) {
+                    for (int i = 0; i < samples.length; i++) {
+                        long t0 = System.nanoTime();
+                        if (!client.send(requests.get(i)).startsWith("{\"ok\":true")) {
+                            errors[index]++;
+                        }
+                        samples[i] = System.nanoTime() - t0;
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                latencies[index] = samples;
+            });
+            threads[c].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - started;
+
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        if (all.length == 0) {
+            System.out.println("No measured requests.");
+            return;
+        }
+        System.out.printf("setup requests: %,d%n", setup.size());
+        System.out.printf("requests: %,d over %d connections, rejected: %,d%n",
+                all.length, connections, Arrays.stream(errors).sum());
+        System.out.printf("throughput: %,.0f req/s%n", all.length / (elapsed / 1e9));
+        System.out.printf("latency p50: %.3f ms, p99: %.3f ms, max: %.3f ms%n",
+                percentile(all, 0.50) / 1e6, percentile(all, 0.99) / 1e6, all[all.length - 1] / 1e6);
+    }
+
+    static long percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    static void writeSample(File file, int visitors) throws IOException {
+        LocalDateTime day = LocalDateTime.of(2030, 1, 1, 0, 0);
+        try (PrintWriter out = new PrintWriter(file, StandardCharsets.UTF_8)) {
+            out.println("{\"op\":\"createGym\",\"gym\":\"Load Gym\",\"address\":\"Load Street\"}");
+            for (int c = 0; c < 10; c++) {
+                out.printf("{\"op\":\"addCoach\",\"gym\":\"Load Gym\",\"phone\":\"+38067%07d\","
+                        + "\"name\":\"Coach %d\",\"specialization\":\"Strength\"}%n", c, c);
+            }
+            for (int v = 0; v < visitors; v++) {
+                out.printf("{\"op\":\"addVisitor\",\"gym\":\"Load Gym\",\"phone\":\"+38050%07d\","
+                        + "\"name\":\"Visitor %d\"}%n", v, v);
+                out.printf("{\"op\":\"addMembership\",\"gym\":\"Load Gym\",\"phone\":\"+38050%07d\","
+                        + "\"duration\":\"1 year\"}%n", v);
+            }
+            for (int v = 0; v < visitors; v++) {
+                out.printf("{\"op\":\"visit\",\"gym\":\"Load Gym\",\"phone\":\"+38050%07d\"}%n", v);
+                out.printf("{\"op\":\"book\",\"gym\":\"Load Gym\",\"phone\":\"+38050%07d\","
+                        + "\"coachPhone\":\"+38067%07d\",\"dateTime\":\"%s\"}%n",
+                        v, v % 10, day.plusHours(v / 10));
+            }
+        }
+    }
+
+    private static class Client implements Closeable {
+        private final Socket socket;
+        private final BufferedReader in;
+        private final Writer out;
+
+        Client(int port) throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            socket.setTcpNoDelay(true);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+        }
+
+        String send(String line) throws IOException {
+            out.write(line);
+            out.write('\n');
+            out.flush();
+            return in.readLine();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package org.gym;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MemberDirectoryTest {
+
+    private static String phone(int i) {
+        return "+38050" + String.format("%07d", i);
+    }
+
+    @Test
+    void testGymHoldsMoreThanNineHundredNinetyNineVisitors() {
+        Gym gym = new Gym("Sport Life", "Main St", 5000, 16);
+        for (int i = 0; i < 5000; i++) {
+            gym.addVisitor(new Visitor(phone(i), "Visitor " + i));
+        }
+
+        assertEquals(5000, gym.getAllVisitors().size());
+        assertEquals("Visitor 4321", gym.getAllVisitors().get(phone(4321)).getName());
+        assertThrows(IllegalArgumentException.class, () -> gym.addVisitor(new Visitor(phone(7), "Again")));
+    }
+
+    @Test
+    void testGymMemberMapsAreReadOnly() {
+        Gym gym = new Gym("Sport Life", "Main St");
+        Visitor visitor = new Visitor(phone(1), "Anna");
+        gym.addVisitor(visitor);
+        gym.addCoach(new Coach(phone(2), "Oleh", "Yoga"));
+
+        assertThrows(UnsupportedOperationException.class, () -> gym.getAllVisitors().put(phone(3), visitor));
+        assertThrows(UnsupportedOperationException.class, () -> gym.getAllVisitors().remove(phone(1)));
+        assertThrows(UnsupportedOperationException.class, () -> gym.getAllCoaches().clear());
+        assertSame(visitor, gym.getAllVisitors().get(phone(1)));
+        assertEquals(1, gym.getAllCoaches().size());
+    }
+
+    @Test
+    void testConfiguredLimits() {
+        Gym gym = new Gym("Sport Life", "Main St");
+        gym.setVisitorLimit(2);
+        gym.setCoachLimit(1);
+        gym.addVisitor(new Visitor(phone(1), "Anna"));
+        gym.addVisitor(new Visitor(phone(2), "Bohdan"));
+        gym.addCoach(new Coach("+380670000000", "Oleh", "Yoga"));
+
+        IllegalStateException visitors = assertThrows(IllegalStateException.class,
+                () -> gym.addVisitor(new Visitor(phone(3), "Vira")));
+        assertEquals("Max number of visitors is 2", visitors.getMessage());
+        IllegalStateException coaches = assertThrows(IllegalStateException.class,
+                () -> gym.addCoach(new Coach("+380670000001", "Iryna", "Boxing")));
+        assertEquals("Max number of coaches is 1", coaches.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> gym.setVisitorLimit(0));
+    }
+
+    @Test
+    void testRemoveAndReaddAcrossResizes() {
+        MemberDirectory<Visitor> directory = new MemberDirectory<>(0, Visitor::getPhoneId, Visitor::getName);
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 200; i++) {
+                assertTrue(directory.add(new Visitor(phone(i), "Visitor " + i)));
+            }
+            for (int i = 0; i < 200; i += 2) {
+                assertNotNull(directory.remove(phone(i)));
+            }
+            assertEquals(100, directory.size());
+            assertNull(directory.get(phone(0)));
+            assertNotNull(directory.get(phone(199)));
+            for (int i = 1; i < 200; i += 2) {
+                assertNotNull(directory.remove(phone(i)));
+            }
+            assertTrue(directory.isEmpty());
+        }
+        assertNull(directory.remove(phone(1)));
+        assertFalse(directory.containsKey("not a phone"));
+    }
+
+    @Test
+    void testNamePrefixLookup() {
+        Gym gym = new Gym("Sport Life", "Main St");
+        gym.addVisitor(new Visitor(phone(1), "Anna"));
+        gym.addVisitor(new Visitor(phone(2), "annabel"));
+        gym.addVisitor(new Visitor(phone(3), "Andrii"));
+        gym.addVisitor(new Visitor(phone(4), "Bohdan"));
+
+        assertEquals(List.of("Anna", "annabel"),
+                gym.findVisitorsByNamePrefix("ANNA").stream().map(Visitor::getName).toList());
+        assertEquals(3, gym.findVisitorsByNamePrefix("an").size());
+
+        gym.removeVisitor(phone(2));
+        assertEquals(List.of("Anna"), gym.findVisitorsByNamePrefix("anna").stream().map(Visitor::getName).toList());
+        assertTrue(gym.findCoachesByNamePrefix("a").isEmpty());
+    }
+
+    @Test
+    void testSearchByNameWordsAndPhoneDigits() {
+        Gym gym = new Gym("Sport Life", "Main St");
+        gym.addVisitor(new Visitor("+380501234567", "Taras Shevchenko"));
+        gym.addVisitor(new Visitor("+380631114567", "Lesya Ukrainka"));
+        gym.addVisitor(new Visitor("050-222-33-44", "Ivan Franko"));
+        gym.addCoach(new Coach("+380670000000", "Taras Bulba", "Boxing"));
+
+        assertEquals(List.of("Taras Shevchenko"), names(gym.searchVisitors("shev", 10)));
+        assertEquals(List.of("Taras Shevchenko"), names(gym.searchVisitors("  TARAS   sh", 10)));
+        assertEquals(List.of("Taras Bulba"), gym.searchCoaches("taras", 10).stream().map(Coach::getName).toList());
+        assertEquals(List.of("Lesya Ukrainka", "Taras Shevchenko"), names(gym.searchVisitors("4567", 10)));
+        assertEquals(List.of("Taras Shevchenko"), names(gym.searchVisitors("+38050", 10)));
+        assertEquals(List.of("Ivan Franko"), names(gym.searchVisitors("33 44", 10)));
+        assertEquals(1, gym.searchVisitors("4567", 1).size());
+        assertTrue(gym.searchVisitors(" ", 10).isEmpty());
+
+        gym.removeVisitor("+380501234567");
+        assertTrue(gym.searchVisitors("shev", 10).isEmpty());
+        assertEquals(List.of("Lesya Ukrainka"), names(gym.findVisitorsByPhoneSuffix("4567")));
+        gym.addVisitor(new Visitor("+380501234567", "Taras Hryhorovych"));
+        assertEquals(List.of("Taras Hryhorovych"), names(gym.findVisitorsByPhonePrefix("380501")));
+    }
+
+    @Test
+    void testVisitorsJsonIsAPhoneToNameObject() throws Exception {
+        Gym gym = new Gym("Sport Life", "Main St");
+        gym.addVisitor(new Visitor(phone(1), "Anna"));
+        gym.addCoach(new Coach("+380670000000", "Oleh", "Yoga"));
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+        Map<?, ?> json = mapper.readValue(mapper.writeValueAsString(gym), Map.class);
+        assertEquals(Map.of(phone(1), "Anna"), json.get("visitors"));
+        assertEquals(Map.of("+380670000000", "Oleh"), json.get("coaches"));
+
+        Gym restored = mapper.readValue(mapper.writeValueAsString(gym), Gym.class);
+        assertEquals("Anna", restored.getAllVisitors().get(phone(1)).getName());
+    }
+
+    private static List<String> names(List<Visitor> visitors) {
+        return visitors.stream().map(Visitor::getName).toList();
+    }
+}
@@ -0,0 +1,71 @@
+package org.gym;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MemberSearchBenchmark {
+
+    private static final String[] FIRST = {"Anna", "Bohdan", "Vira", "Oleh", "Iryna", "Taras", "Olena", "Dmytro"};
+    private static final String[] LAST = {"Shevchenko", "Kovalenko", "Bondarenko", "Tkachenko", "Melnyk", "Boyko"};
+    private static final int LIMIT = 20;
+
+    @Param({"100000"})
+    private int members;
+
+    private Gym gym;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        gym = new Gym("Bench Gym", "Bench Street", members, 16);
+        for (int i = 0; i < members; i++) {
+            String name = FIRST[i % FIRST.length] + " " + LAST[i / FIRST.length % LAST.length] + " " + i;
+            gym.addVisitor(new Visitor("+38050" + String.format("%07d", i), name));
+        }
+    }
+
+    @Benchmark
+    public List<Visitor> namePrefix() {
+        return gym.searchVisitors("ole", LIMIT);
+    }
+
+    @Benchmark
+    public List<Visitor> surnamePrefix() {
+        return gym.searchVisitors("Bondar", LIMIT);
+    }
+
+    @Benchmark
+    public List<Visitor> phoneSuffix() {
+        return gym.searchVisitors("4321", LIMIT);
+    }
+
+    @Benchmark
+    public List<Visitor> fullScanBaseline() {
+        List<Visitor> found = new ArrayList<>();
+        for (Visitor visitor : gym.getAllVisitors().values()) {
+            if (visitor.getPhone().endsWith("4321") && found.size() < LIMIT) {
+                found.add(visitor);
+            }
+        }
+        return found;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(MemberSearchBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
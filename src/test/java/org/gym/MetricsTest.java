@@ -0,0 +1,112 @@
+package org.gym;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsTest {
+
+    @BeforeEach
+    void setUp() {
+        Metrics.reset();
+    }
+
+    @AfterEach
+    void tearDown() {
+        Metrics.setEnabled(true);
+    }
+
+    private static OperationStats stats(OperationMetrics operation) {
+        return Metrics.snapshot().stream()
+                .filter(s -> s.getName().equals(operation.getName()))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    void testHistogramPercentilesStayWithinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1_000);
+        }
+        long[] counts = histogram.counts();
+
+        for (double percentile : new double[]{50, 90, 99, 99.9}) {
+            double expected = percentile * 1_000_000;
+            long actual = LatencyHistogram.valueAt(counts, 100_000, percentile);
+            assertEquals(expected, actual, expected * 0.035, "p" + percentile);
+        }
+        assertEquals(100_000_000L, histogram.max());
+
+        for (long value = 0; value < 1 << 20; value++) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(value <= LatencyHistogram.highestValueIn(index));
+            assertTrue(index == 0 || value > LatencyHistogram.highestValueIn(index - 1));
+        }
+    }
+
+    @Test
+    void testDomainOperationsAreCountedWithFailures() {
+        Gym gym = new Gym("Test Gym", "Main Street");
+        Visitor visitor = new Visitor("+3801111111", "John");
+        Coach coach = new Coach("+380222222222", "Alice", "Yoga");
+        gym.addVisitor(visitor);
+        assertThrows(IllegalArgumentException.class, () -> gym.addVisitor(new Visitor("+3801111111", "Copy")));
+
+        assertThrows(IllegalStateException.class, () -> visitor.visitGym(gym));
+        Visitor other = new Visitor("+3803333333", "Kate");
+        new Membership(visitor, gym, "1 month", LocalDate.now());
+        new Membership(other, gym, "1 month", LocalDate.now());
+        visitor.visitGym(gym);
+        other.visitGym(gym);
+
+        LocalDateTime dt = LocalDateTime.now().plusDays(1);
+        visitor.bookSession(coach, dt);
+        coach.cancelSession(dt);
+        assertThrows(IllegalArgumentException.class, () -> coach.cancelSession(dt));
+
+        assertEquals(2, stats(Metrics.VISIT_GYM).getCount());
+        assertEquals(1, stats(Metrics.VISIT_GYM).getFailures());
+        assertEquals(1, stats(Metrics.ADD_VISITOR).getCount());
+        assertEquals(1, stats(Metrics.ADD_VISITOR).getFailures());
+        assertEquals(1, stats(Metrics.BOOK_SESSION).getCount());
+        assertEquals(1, stats(Metrics.CANCEL_SESSION).getCount());
+        assertEquals(1, stats(Metrics.CANCEL_SESSION).getFailures());
+        assertTrue(stats(Metrics.VISIT_GYM).getMaxNanos() >= stats(Metrics.VISIT_GYM).getP50Nanos());
+
+        Metrics.setEnabled(false);
+        Visitor late = new Visitor("+3804444444", "Max");
+        new Membership(late, gym, "1 month", LocalDate.now());
+        late.visitGym(gym);
+        assertThrows(IllegalArgumentException.class, () -> coach.cancelSession(dt));
+        assertEquals(2, stats(Metrics.VISIT_GYM).getCount());
+        assertEquals(1, stats(Metrics.CANCEL_SESSION).getFailures());
+    }
+
+    @Test
+    void testSnapshotsArePublishedOverJmx() throws Exception {
+        Metrics.registerMBean();
+        Metrics.registerMBean();
+        Metrics.VISIT_GYM.record(System.nanoTime() - 1_000);
+
+        CompositeData[] operations = (CompositeData[]) ManagementFactory.getPlatformMBeanServer()
+                .getAttribute(new ObjectName(Metrics.OBJECT_NAME), "Operations");
+
+        CompositeData visitGym = null;
+        for (CompositeData operation : operations) {
+            if (operation.get("name").equals("visitGym")) {
+                visitGym = operation;
+            }
+        }
+        assertNotNull(visitGym);
+        assertEquals(1L, visitGym.get("count"));
+    }
+}
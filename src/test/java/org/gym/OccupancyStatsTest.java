@@ -0,0 +1,76 @@
+package org.gym;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OccupancyStatsTest {
+
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2025, 6, 2, 0, 0);
+
+    private static Gym gymWithWeekOfVisits() {
+        Gym gym = new Gym("Sport Life", "Main St");
+        for (int day = 0; day < 7; day++) {
+            for (int i = 0; i < 10; i++) {
+                int hour = i < 6 ? 18 : 8;
+                gym.addVisit(new Visit(MONDAY.plusDays(day).plusHours(hour).plusMinutes(i), "+38050000000" + i));
+            }
+        }
+        return gym;
+    }
+
+    @Test
+    void testHistogramsFollowEveryVisit() {
+        Gym gym = gymWithWeekOfVisits();
+        OccupancyStats occupancy = gym.getOccupancy();
+
+        assertEquals(Map.of(MONDAY.plusHours(8), 4L, MONDAY.plusHours(18), 6L),
+                occupancy.hourlyCheckIns(MONDAY, MONDAY.plusDays(1)));
+        Map<LocalDate, Long> daily = occupancy.dailyCheckIns(MONDAY.toLocalDate(), MONDAY.toLocalDate().plusDays(7));
+        assertEquals(7, daily.size());
+        assertTrue(daily.values().stream().allMatch(count -> count == 10));
+
+        gym.recordVisits(List.of(new Visit(MONDAY.plusHours(18).plusMinutes(30), "+380509999999")));
+        assertEquals(10, occupancy.checkInsBetween(MONDAY, MONDAY.plusDays(1)));
+
+        gym.setVisitHistory(new ArrayList<>(gym.getVisitHistory().subList(0, 3)));
+        assertEquals(3, occupancy.checkInsBetween(MONDAY, MONDAY.plusDays(7)));
+    }
+
+    @Test
+    void testWindowQueriesMatchAScanOfTheVisitHistory() {
+        Gym gym = gymWithWeekOfVisits();
+        OccupancyStats occupancy = gym.getOccupancy();
+        LocalDateTime[][] windows = {
+                {MONDAY, MONDAY.plusDays(7)},
+                {MONDAY.plusHours(9), MONDAY.plusDays(3).plusHours(19)},
+                {MONDAY.plusDays(2).plusHours(8), MONDAY.plusDays(2).plusHours(18)},
+                {MONDAY.plusDays(5), MONDAY.plusDays(5)},
+        };
+        for (LocalDateTime[] window : windows) {
+            long scanned = gym.getVisitHistory().stream()
+                    .filter(v -> !v.getDateTime().isBefore(window[0]) && v.getDateTime().isBefore(window[1]))
+                    .count();
+            assertEquals(scanned, occupancy.checkInsBetween(window[0], window[1]), window[0] + " - " + window[1]);
+        }
+    }
+
+    @Test
+    void testPeakHourAndVisitsPerMember() {
+        OccupancyStats occupancy = gymWithWeekOfVisits().getOccupancy();
+
+        OccupancyStats.Peak peak = occupancy.peakHour(MONDAY, MONDAY.plusDays(7));
+        assertEquals(MONDAY.plusHours(18), peak.getHour());
+        assertEquals(6, peak.getCheckIns());
+        assertNull(occupancy.peakHour(MONDAY.minusDays(7), MONDAY));
+        assertEquals(7.0, occupancy.averageVisitsPerMember(YearMonth.of(2025, 6)));
+        assertEquals(0.0, occupancy.averageVisitsPerMember(YearMonth.of(2025, 5)));
+    }
+}
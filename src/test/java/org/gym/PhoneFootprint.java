@@ -0,0 +1,80 @@
+package org.gym;
+
+import java.lang.ref.Reference;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Heap report for phone identities. Builds a gym with N visitors the way a JSON
+ * import does (every phone reference parsed into its own string), each with a
+ * membership, two visits and one booked session, and compares the retained heap
+ * with the phone strings the previous String-typed fields kept alive.
+ *
+ * <pre>
+ * java -Xmx3g ... org.gym.PhoneFootprint [visitors]
+ * </pre>
+ */
+public class PhoneFootprint {
+    private static final int COACHES = 100;
+
+    public static void main(String[] args) {
+        int visitors = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        long before = usedHeap();
+        List<Visitor> graph = build(visitors);
+        long modelBytes = usedHeap() - before;
+
+        before = usedHeap();
+        String[] strings = new String[visitors * 4];
+        for (int i = 0; i < visitors; i++) {
+            String phone = phone(i);
+            String coachPhone = "+38067" + String.format("%07d", i % COACHES);
+            strings[i * 4] = new String(phone.toCharArray());
+            strings[i * 4 + 1] = new String(phone.toCharArray());
+            strings[i * 4 + 2] = new String(phone.toCharArray());
+            strings[i * 4 + 3] = new String(coachPhone.toCharArray());
+        }
+        long stringBytes = usedHeap() - before - (16L + 4L * strings.length);
+
+        System.out.printf("visitors: %,d%n", visitors);
+        System.out.printf("model heap with long phone ids: %,d MB%n", modelBytes >> 20);
+        System.out.printf("phone strings retained by String fields before (visitor, membership, "
+                + "session, booking key): %,d MB (%.1f bytes per visitor)%n",
+                stringBytes >> 20, (double) stringBytes / visitors);
+        Reference.reachabilityFence(graph);
+        Reference.reachabilityFence(strings);
+    }
+
+    private static List<Visitor> build(int visitors) {
+        Gym gym = new Gym("Footprint Gym", "Heap Street");
+        List<Coach> coaches = new ArrayList<>(COACHES);
+        for (int c = 0; c < COACHES; c++) {
+            coaches.add(new Coach("+38067" + String.format("%07d", c), "Coach " + c, "Strength"));
+        }
+        LocalDate start = LocalDate.of(2025, 1, 1);
+        LocalDateTime day = LocalDateTime.of(2025, 1, 2, 6, 0);
+        List<Visitor> graph = new ArrayList<>(visitors);
+        for (int i = 0; i < visitors; i++) {
+            Visitor visitor = new Visitor(new String(phone(i).toCharArray()), "Visitor " + i);
+            visitor.addMembership(new Membership(new String(phone(i).toCharArray()), gym.getName(), "1 year", start));
+            visitor.recordVisits(List.of(day.plusMinutes(i % 1000), day.plusDays(1).plusMinutes(i % 1000)));
+            visitor.bookSession(coaches.get(i % COACHES), day.plusDays(2 + i / COACHES));
+            graph.add(visitor);
+        }
+        return graph;
+    }
+
+    private static String phone(int i) {
+        return "+38050" + String.format("%07d", i);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
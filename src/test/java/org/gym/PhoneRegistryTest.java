@@ -0,0 +1,73 @@
+package org.gym;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PhoneRegistryTest {
+
+    @Test
+    void testE164PhonesEncodeToTheirDigits() {
+        assertEquals(380501111111L, PhoneRegistry.intern("+380501111111"));
+        assertEquals(380501111111L, PhoneRegistry.intern("+380 (50) 111-11-11"));
+        assertEquals("+380501111111", PhoneRegistry.canonicalize(" +380 50 111 11 11"));
+        assertEquals(PhoneRegistry.NONE, PhoneRegistry.intern(null));
+        assertNull(PhoneRegistry.phone(PhoneRegistry.NONE));
+    }
+
+    @Test
+    void testOtherPhonesAreInternedVerbatim() {
+        long local = PhoneRegistry.intern("050-111-11-11");
+        long tooLong = PhoneRegistry.intern("+1234567890123456");
+
+        assertTrue(local < 0);
+        assertTrue(tooLong < 0);
+        assertEquals(local, PhoneRegistry.intern("050-111-11-11"));
+        assertEquals("050-111-11-11", PhoneRegistry.phone(local));
+        assertEquals("+1234567890123456", PhoneRegistry.phone(tooLong));
+    }
+
+    @Test
+    void testEntitiesDecodeTheirPhoneOnce() {
+        Visitor visitor = new Visitor("+380 50 111 11 11", "Anna");
+        Coach coach = new Coach("+380502222222", "Oleh", "Yoga");
+        Visit visit = new Visit(LocalDateTime.of(2025, 4, 10, 9, 0), visitor.getPhone());
+
+        assertEquals("+380501111111", visitor.getPhone());
+        assertSame(visitor.getPhone(), visitor.getPhone());
+        assertSame(coach.getPhone(), coach.getPhone());
+        assertSame(visit.getVisitorPhone(), visit.getVisitorPhone());
+    }
+
+    @Test
+    void testEntitiesKeepStringJsonForm(@TempDir File dir) throws IOException {
+        Gym gym = new Gym("Sport Life", "Main St");
+        Coach coach = new Coach("+380670000000", "Oleh", "Yoga");
+        Visitor visitor = new Visitor("+380 50 000 00 01", "Anna");
+        new Membership(visitor, gym, "1 month", LocalDate.of(2025, 4, 1));
+        visitor.bookSession(coach, LocalDateTime.of(2025, 4, 3, 18, 0));
+
+        File file = new File(dir, "visitors.json");
+        JsonDataIO<Visitor> io = new JsonDataIO<>(Visitor[].class);
+        io.exportData(new ArrayList<>(List.of(visitor)), file);
+        String json = Files.readString(file.toPath());
+        assertTrue(json.contains("\"phone\" : \"+380500000001\""), json);
+        assertTrue(json.contains("\"+380670000000\" : ["), json);
+
+        Visitor imported = io.importData(file).get(0);
+        assertEquals(visitor.getPhoneId(), imported.getPhoneId());
+        assertEquals(visitor.getPhoneId(), imported.getMemberships().get(0).getVisitorId());
+        assertEquals(List.of(LocalDateTime.of(2025, 4, 3, 18, 0)),
+                imported.getBookedSessions().get("+380670000000"));
+        assertEquals("+380500000001", coach.getSessions().iterator().next().getVisitorPhone());
+    }
+}
@@ -0,0 +1,90 @@
+package org.gym;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardedLoaderTest {
+
+    private ExecutorService executor;
+    private ShardedLoader loader;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+        loader = new ShardedLoader(executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testDiscoverRecognisesShardNames(@TempDir File dir) throws IOException {
+        for (String name : List.of("gyms.json", "visitors-1.json", "coaches.json", "visits-GymB.json", "notes.txt")) {
+            Files.writeString(new File(dir, name).toPath(), "[]");
+        }
+
+        List<ShardedLoader.Shard> shards = ShardedLoader.discover(dir);
+
+        assertEquals(4, shards.size());
+        ShardedLoader.Shard visits = shards.stream()
+                .filter(s -> s.getType() == ShardedLoader.ShardType.VISITS)
+                .findFirst().orElseThrow();
+        assertEquals("GymB", visits.getGymName());
+    }
+
+    @Test
+    void testLoadMergesShardsByGymName(@TempDir File dir) throws IOException {
+        Gym gymA = new Gym("GymA", "Street A");
+        Gym gymB = new Gym("GymB", "Street B");
+        gymB.addCoach(new Coach("+380777777777", "Trainer", "Yoga"));
+        new JsonDataIO<>(Gym[].class).exportData(List.of(gymA, gymB), new File(dir, "gyms.json"));
+
+        Visitor member = new Visitor("+3801111111", "Member");
+        new Membership(member, gymB, "1 month", LocalDate.of(2025, 4, 1));
+        Visitor stranger = new Visitor("+380222222222", "Stranger");
+        new JsonDataIO<>(Visitor[].class).exportData(List.of(member, stranger), new File(dir, "visitors.json"));
+
+        Coach trainer = new Coach("+380777777777", "Trainer", "Yoga");
+        new JsonDataIO<>(Coach[].class).exportData(List.of(trainer), new File(dir, "coaches.json"));
+
+        Visit visit = new Visit(LocalDateTime.of(2025, 4, 10, 9, 0), "+3801111111");
+        new JsonDataIO<>(Visit[].class).exportData(List.of(visit, visit), new File(dir, "visits-GymB.json"));
+
+        List<Gym> gyms = new ArrayList<>();
+        ShardedLoader.Result result = loader.load(dir, gyms);
+
+        assertEquals(2, gyms.size());
+        Gym loadedB = gyms.get(1);
+        assertEquals("GymB", loadedB.getName());
+        assertEquals(1, loadedB.getAllVisitors().get("+3801111111").getMemberships().size());
+        assertEquals("Yoga", loadedB.getAllCoaches().get("+380777777777").getSpecialization());
+        assertEquals(List.of(visit), loadedB.getVisitHistory());
+        assertTrue(gyms.get(0).getAllVisitors().isEmpty());
+
+        assertEquals(List.of(stranger.getPhone()), result.getUnassignedVisitors().stream().map(Visitor::getPhone).toList());
+        assertEquals(1, result.getDuplicateVisits());
+    }
+
+    @Test
+    void testLoadPropagatesParseErrors(@TempDir File dir) throws IOException {
+        Files.writeString(new File(dir, "gyms.json").toPath(), "not json");
+
+        assertThrows(IOException.class, () -> loader.load(dir, new ArrayList<>()));
+    }
+}
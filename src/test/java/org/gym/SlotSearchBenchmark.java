@@ -0,0 +1,60 @@
+package org.gym;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SlotSearchBenchmark {
+
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 1, 0, 0);
+    private static final Duration SLOT = Duration.ofMinutes(30);
+
+    @Param({"10", "100"})
+    private int coaches;
+
+    private Gym gym;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        gym = new Gym("Bench Gym", "Bench Street");
+        for (int c = 0; c < coaches; c++) {
+            Coach coach = new Coach("+38050" + c, "Coach " + c, c % 2 == 0 ? "Yoga" : "Boxing");
+            for (int day = 0; day < 30; day++) {
+                for (int hour = 8 + c % 3; hour < 20; hour += 3) {
+                    coach.scheduleSession(START.plusDays(day).plusHours(hour), "+380" + day);
+                }
+            }
+            gym.addCoach(coach);
+        }
+    }
+
+    @Benchmark
+    public List<AvailableSlot> monthOfSlots() {
+        return gym.findAvailableSlots(START, START.plusDays(30), SLOT, null);
+    }
+
+    @Benchmark
+    public List<AvailableSlot> monthOfSlotsBySpecialization() {
+        return gym.findAvailableSlots(START, START.plusDays(30), SLOT, "Yoga");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SlotSearchBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,78 @@
+package org.gym;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic test data for benchmarks: N gyms with M visitors each, every
+ * visitor holding one membership and K visits, plus a few coaches per gym with a
+ * month of booked sessions. The same arguments and seed always give the same chain.
+ * Every membership is active on {@link #START_DAY} and every visit precedes it.
+ */
+final class SyntheticChain {
+    static final LocalDate START_DAY = LocalDate.of(2025, 1, 1);
+    static final int COACHES_PER_GYM = 20;
+
+    private static final String[] DURATIONS = {"1 month", "3 months", "6 months", "1 year"};
+    private static final String[] FIRST = {"Anna", "Bohdan", "Vira", "Oleh", "Iryna", "Taras", "Olena", "Dmytro"};
+    private static final String[] LAST = {"Shevchenko", "Kovalenko", "Bondarenko", "Tkachenko", "Melnyk", "Boyko"};
+    private static final String[] SPECIALIZATIONS = {"Yoga", "Boxing", "Strength", "Crossfit"};
+
+    private SyntheticChain() {
+    }
+
+    static List<Gym> generate(int gyms, int visitorsPerGym, int visitsPerVisitor, long seed) {
+        Random random = new Random(seed);
+        List<Gym> chain = new ArrayList<>(gyms);
+        for (int g = 0; g < gyms; g++) {
+            Gym gym = new Gym("Gym " + g, "Street " + g, visitorsPerGym, COACHES_PER_GYM);
+            List<Visit> visits = new ArrayList<>(visitorsPerGym * visitsPerVisitor);
+            for (int i = 0; i < visitorsPerGym; i++) {
+                Visitor visitor = visitor(g * visitorsPerGym + i);
+                gym.addVisitor(visitor);
+                new Membership(visitor, gym, DURATIONS[random.nextInt(DURATIONS.length)],
+                        START_DAY.minusDays(random.nextInt(30)));
+                List<LocalDateTime> times = new ArrayList<>(visitsPerVisitor);
+                for (int v = 0; v < visitsPerVisitor; v++) {
+                    LocalDateTime time = START_DAY.atTime(6, 0)
+                            .minusDays(v * 2L + 1 + random.nextInt(2))
+                            .plusMinutes(random.nextInt(15 * 60))
+                            .plusSeconds(i % 60);
+                    times.add(time);
+                    visits.add(new Visit(time, visitor.getPhone()));
+                }
+                visitor.recordVisits(times);
+            }
+            for (Visit visit : visits) {
+                gym.addVisit(visit);
+            }
+            for (int c = 0; c < COACHES_PER_GYM; c++) {
+                gym.addCoach(coach(g, c, random));
+            }
+            chain.add(gym);
+        }
+        return chain;
+    }
+
+    static Visitor visitor(int n) {
+        return new Visitor(phone(n), FIRST[n % FIRST.length] + " " + LAST[n / FIRST.length % LAST.length]);
+    }
+
+    static String phone(int n) {
+        return "+38050" + String.format("%07d", n);
+    }
+
+    private static Coach coach(int gym, int c, Random random) {
+        Coach coach = new Coach("+38067" + String.format("%07d", gym * COACHES_PER_GYM + c),
+                "Coach " + c, SPECIALIZATIONS[c % SPECIALIZATIONS.length]);
+        for (int day = 0; day < 30; day++) {
+            for (int hour = 8; hour < 20; hour += 2 + random.nextInt(3)) {
+                coach.scheduleSession(START_DAY.atTime(hour, 0).plusDays(day), phone(random.nextInt(1000)));
+            }
+        }
+        return coach;
+    }
+}
@@ -0,0 +1,185 @@
+package org.gym;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VisitLogTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2025, 6, 2, 0, 0);
+
+    @Test
+    void testRecordsSurviveReopen(@TempDir File tempDir) throws IOException {
+        File file = new File(tempDir, "visits.log");
+        long member = PhoneRegistry.intern("+380501111111");
+        long frontDesk = PhoneRegistry.intern("front desk");
+        try (VisitLog log = VisitLog.open(file)) {
+            log.append("Sport Life", DAY.plusHours(8), member);
+            log.append("Gym Pro", DAY.plusHours(9), frontDesk);
+            log.append("Sport Life", DAY.plusHours(18), member);
+        }
+
+        try (VisitLog log = VisitLog.open(file)) {
+            assertEquals(3, log.size());
+            List<String> seen = new ArrayList<>();
+            log.forEachBetween(DAY, DAY.plusDays(1), (second, gymId, visitorId) ->
+                    seen.add(LocalDateTime.ofEpochSecond(second, 0, ZoneOffset.UTC).getHour() + " "
+                            + log.gymName(gymId) + " " + PhoneRegistry.phone(visitorId)));
+            assertEquals(List.of("8 Sport Life +380501111111", "9 Gym Pro front desk",
+                    "18 Sport Life +380501111111"), seen);
+
+            List<String> desk = new ArrayList<>();
+            log.forEachOfVisitor("front desk", (second, gymId, visitorId) -> desk.add(log.gymName(gymId)));
+            assertEquals(List.of("Gym Pro"), desk);
+
+            log.append("Gym Pro", DAY.plusHours(20), member);
+            assertEquals(4, log.size());
+        }
+    }
+
+    @Test
+    void testRangeScansAcrossRegionsAndOutOfOrderAppends(@TempDir File tempDir) throws IOException {
+        File file = new File(tempDir, "visits.log");
+        long member = PhoneRegistry.intern("+380502222222");
+        int records = (1 << 20) + 1000;
+        try (VisitLog log = VisitLog.open(file)) {
+            for (int i = 0; i < records; i++) {
+                log.append("Sport Life", DAY.plusSeconds(i), member);
+            }
+            assertEquals(1, log.blocksReadBetween(DAY.plusSeconds(5000), DAY.plusSeconds(5001)));
+            assertEquals(records, log.countBetween(DAY, DAY.plusYears(1)));
+            assertEquals(2000, log.countBetween(DAY.plusSeconds((1 << 20) - 1000), DAY.plusSeconds((1 << 20) + 1000)));
+            assertEquals(0, log.countBetween(DAY.minusDays(1), DAY));
+
+            log.append("Sport Life", DAY.minusHours(1), member);
+            assertEquals(1, log.countBetween(DAY.minusDays(1), DAY));
+            // The late record only widens the block it landed in.
+            assertEquals(2, log.blocksReadBetween(DAY.plusSeconds(5000), DAY.plusSeconds(5001)));
+        }
+
+        try (VisitLog log = VisitLog.open(file)) {
+            assertEquals(records + 1, log.size());
+            assertEquals(1, log.countBetween(DAY.minusDays(1), DAY));
+            assertEquals(2, log.blocksReadBetween(DAY.plusSeconds(5000), DAY.plusSeconds(5001)));
+        }
+    }
+
+    @Test
+    void testAttachedGymLogsEveryRecordedVisit(@TempDir File tempDir) throws IOException {
+        Gym gym = new Gym("Sport Life", "Main St");
+        Visitor visitor = new Visitor("+380503333333", "John");
+        gym.addVisitor(visitor);
+        new Membership(visitor, gym, "1 month", LocalDate.now().minusDays(1));
+
+        try (VisitLog log = VisitLog.open(new File(tempDir, "visits.log"))) {
+            log.attach(gym);
+            assertSame(log, gym.getVisitLog());
+            visitor.visitGym(gym);
+            gym.recordVisits(List.of(new Visit(LocalDateTime.now().minusDays(1), visitor.getPhone())));
+            gym.addVisit(new Visit(LocalDateTime.now().minusDays(2), "+380504444444"));
+
+            assertEquals(3, log.size());
+            long[] count = new long[1];
+            log.forEachOfVisitor(visitor.getPhone(), (second, gymId, visitorId) -> {
+                assertEquals("Sport Life", log.gymName(gymId));
+                assertEquals(visitor.getPhoneId(), visitorId);
+                count[0]++;
+            });
+            assertEquals(2, count[0]);
+        }
+    }
+
+    @Test
+    void testFirstAttachBackfillsHistory(@TempDir File tempDir) throws IOException {
+        File file = new File(tempDir, "visits.log");
+        Gym gym = new Gym("Sport Life", "Main St");
+        gym.addVisit(new Visit(DAY.plusHours(8), "+380505555555"));
+        gym.addVisit(new Visit(DAY.plusHours(9), "+380505555556"));
+
+        try (VisitLog log = VisitLog.open(file)) {
+            log.attach(gym);
+            assertEquals(2, log.size());
+        }
+        try (VisitLog log = VisitLog.open(file)) {
+            log.attach(gym);
+            assertEquals(2, log.size());
+            log.backfill(gym);
+            assertEquals(4, log.size());
+        }
+    }
+
+    @Test
+    void testRangeReadsStayIndexedAfterBackfillingTwoGyms(@TempDir File tempDir) throws IOException {
+        Gym first = new Gym("Sport Life", "Main St");
+        Gym second = new Gym("Gym Pro", "Park Ave");
+        for (int i = 0; i < 5000; i++) {
+            first.addVisit(new Visit(DAY.plusMinutes(i), "+38050700" + String.format("%04d", i % 100)));
+            second.addVisit(new Visit(DAY.plusMinutes(i), "+38050800" + String.format("%04d", i % 100)));
+        }
+
+        try (VisitLog log = VisitLog.open(new File(tempDir, "visits.log"))) {
+            log.attachAll(List.of(first, second));
+            assertEquals(10_000, log.size());
+            LocalDateTime from = DAY.plusHours(40);
+            assertEquals(120, log.countBetween(from, from.plusHours(1)));
+            assertTrue(log.blocksReadBetween(from, from.plusHours(1)) <= 4,
+                    "a range read should open a few of the " + log.blockCount() + " blocks");
+
+            long[] visits = new long[1];
+            log.forEachOfVisitor("+380508000042", (sec, gymId, visitorId) -> {
+                assertEquals("Gym Pro", log.gymName(gymId));
+                visits[0]++;
+            });
+            assertEquals(50, visits[0]);
+        }
+    }
+
+    @Test
+    void testConcurrentAppendsCommitEveryRecord(@TempDir File tempDir) throws Exception {
+        int threads = 4;
+        int perThread = 20_000;
+        try (VisitLog log = VisitLog.open(new File(tempDir, "visits.log"))) {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    String gymName = "Gym " + t;
+                    long visitor = PhoneRegistry.intern("+38050600000" + t);
+                    futures.add(executor.submit(() -> {
+                        for (int i = 0; i < perThread; i++) {
+                            log.append(gymName, DAY.plusSeconds(i), visitor);
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get(60, TimeUnit.SECONDS);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+
+            assertEquals(threads * perThread, log.size());
+            assertEquals(threads * perThread, log.countBetween(DAY, DAY.plusDays(1)));
+            long[] perVisitor = new long[1];
+            log.forEachOfVisitor("+380506000002", (second, gymId, visitorId) -> {
+                assertEquals("Gym 2", log.gymName(gymId));
+                perVisitor[0]++;
+            });
+            assertEquals(perThread, perVisitor[0]);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.gym;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VisitStoreTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2025, 4, 10, 0, 0);
+
+    private VisitStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new VisitStore();
+    }
+
+    @Test
+    void testAddRejectsDuplicateVisit() {
+        assertTrue(store.add(DAY.plusHours(9), "+3801111111"));
+        assertFalse(store.add(DAY.plusHours(9), "+3801111111"));
+        assertTrue(store.add(DAY.plusHours(9), "+380222222222"));
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    void testVisitsAreReturnedInChronologicalOrder() {
+        store.add(DAY.plusDays(1).plusHours(8), "+3801111111");
+        store.add(DAY.plusHours(18), "+380222222222");
+        store.add(DAY.plusHours(7), "+3801111111");
+
+        List<Visit> visits = store.toList();
+        assertEquals(DAY.plusHours(7), visits.get(0).getDateTime());
+        assertEquals("+380222222222", visits.get(1).getVisitorPhone());
+        assertEquals(DAY.plusDays(1).plusHours(8), visits.get(2).getDateTime());
+    }
+
+    @Test
+    void testBetweenSpansSegments() {
+        for (int day = 0; day < 5; day++) {
+            for (int hour = 6; hour < 22; hour++) {
+                store.add(DAY.plusDays(day).plusHours(hour), "+380" + hour);
+            }
+        }
+
+        LocalDateTime from = DAY.plusDays(1).plusHours(20);
+        LocalDateTime to = DAY.plusDays(3).plusHours(7);
+        List<Visit> visits = store.between(from, to);
+
+        assertEquals(2 + 16 + 1, visits.size());
+        assertEquals(visits.size(), store.countBetween(from, to));
+        assertEquals(from, visits.get(0).getDateTime());
+        assertEquals(DAY.plusDays(3).plusHours(6), visits.get(visits.size() - 1).getDateTime());
+        assertEquals(0, store.countBetween(to, from));
+    }
+
+    @Test
+    void testContains() {
+        Visit visit = new Visit(DAY.plusHours(10), "+3801111111");
+        store.add(visit);
+
+        assertTrue(store.contains(new Visit(DAY.plusHours(10), "+3801111111")));
+        assertFalse(store.contains(new Visit(DAY.plusHours(11), "+3801111111")));
+        assertFalse(store.contains(new Visit(DAY.plusHours(10), "+380999999999")));
+    }
+
+    @Test
+    void testAddAllMergesIntoExistingSegments() {
+        store.add(DAY.plusHours(8), "+3801111111");
+        store.add(DAY.plusHours(12), "+3801111111");
+
+        boolean[] added = store.addAll(List.of(
+                new Visit(DAY.plusDays(1).plusHours(6), "+380222222222"),
+                new Visit(DAY.plusHours(10), "+380222222222"),
+                new Visit(DAY.plusHours(12), "+3801111111"),
+                new Visit(DAY.plusHours(6), "+380222222222"),
+                new Visit(DAY.plusHours(10), "+380222222222")));
+
+        assertArrayEquals(new boolean[]{true, true, false, true, false}, added);
+        assertEquals(5, store.size());
+        List<Visit> visits = store.toList();
+        assertEquals(DAY.plusHours(6), visits.get(0).getDateTime());
+        assertEquals(DAY.plusHours(8), visits.get(1).getDateTime());
+        assertEquals(DAY.plusHours(10), visits.get(2).getDateTime());
+        assertEquals(DAY.plusHours(12), visits.get(3).getDateTime());
+        assertEquals(DAY.plusDays(1).plusHours(6), visits.get(4).getDateTime());
+    }
+}